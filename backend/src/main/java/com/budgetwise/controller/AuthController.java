@@ -5,12 +5,14 @@ import com.budgetwise.service.AuthService;
 import com.budgetwise.model.entity.User;
 import com.budgetwise.repository.UserRepository;
 import com.budgetwise.util.JwtUtil;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -41,6 +43,8 @@ public class AuthController {
             } else {
                 return ResponseEntity.status(401).body(Map.of("error", "Invalid credentials"));
             }
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("error", "Login failed: " + e.getMessage()));
         }
@@ -56,6 +60,8 @@ public class AuthController {
 
             String jwtToken = authService.verifyGoogleTokenAndLogin(token);
             return ResponseEntity.ok(Map.of("token", jwtToken, "message", "Google login successful"));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(401).body(Map.of("error", "Google authentication failed: " + e.getMessage()));
         }
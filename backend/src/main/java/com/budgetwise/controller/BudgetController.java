@@ -3,9 +3,9 @@ package com.budgetwise.controller;
 import com.budgetwise.dto.BudgetRequest;
 import com.budgetwise.model.entity.Budget;
 import com.budgetwise.service.BudgetService;
-import com.budgetwise.util.JwtUtil;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -25,11 +25,11 @@ public class BudgetController {
 
     @GetMapping
     public ResponseEntity<?> getBudgets(
-            @RequestHeader("Authorization") String authHeader,
+            Authentication authentication,
             @RequestParam Integer month,
             @RequestParam Integer year) {
         try {
-            String email = extractEmailFromToken(authHeader);
+            String email = authentication.getName();
             List<Budget> budgets = budgetService.getBudgetsForMonth(email, month, year);
             return ResponseEntity.ok(budgets);
         } catch (Exception e) {
@@ -38,10 +38,13 @@ public class BudgetController {
     }
 
     @GetMapping("/status")
-    public ResponseEntity<?> getBudgetStatus(@RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<?> getBudgetStatus(
+            Authentication authentication,
+            @RequestParam(required = false) Integer month,
+            @RequestParam(required = false) Integer year) {
         try {
-            String email = extractEmailFromToken(authHeader);
-            List<Map<String, Object>> status = budgetService.getBudgetStatus(email);
+            String email = authentication.getName();
+            List<Map<String, Object>> status = budgetService.getBudgetStatus(email, month, year);
             return ResponseEntity.ok(status);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -50,10 +53,10 @@ public class BudgetController {
 
     @PostMapping
     public ResponseEntity<?> createOrUpdateBudget(
-            @RequestHeader("Authorization") String authHeader,
+            Authentication authentication,
             @Valid @RequestBody BudgetRequest request) {
         try {
-            String email = extractEmailFromToken(authHeader);
+            String email = authentication.getName();
             Budget budget = budgetService.createOrUpdateBudget(email, request);
 
             Map<String, Object> response = new HashMap<>();
@@ -72,22 +75,14 @@ public class BudgetController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteBudget(
-            @RequestHeader("Authorization") String authHeader,
+            Authentication authentication,
             @PathVariable Long id) {
         try {
-            String email = extractEmailFromToken(authHeader);
+            String email = authentication.getName();
             budgetService.deleteBudget(email, id);
             return ResponseEntity.ok(Map.of("message", "Budget deleted successfully"));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
-
-    private String extractEmailFromToken(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Invalid authorization header");
-        }
-        String token = authHeader.substring(7);
-        return JwtUtil.extractEmail(token);
-    }
 }
@@ -1,12 +1,26 @@
 package com.budgetwise.controller;
 
+import com.budgetwise.model.dto.ChatReply;
+import com.budgetwise.model.dto.InsightsSnapshot;
 import com.budgetwise.service.ChatService;
+import com.budgetwise.service.InsightsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/chat")
@@ -14,13 +28,18 @@ import java.util.Map;
 public class ChatController {
 
     private final ChatService chatService;
+    private final InsightsService insightsService;
+    private final Duration streamTimeout;
 
-    public ChatController(ChatService chatService) {
+    public ChatController(ChatService chatService, InsightsService insightsService,
+            @Value("${app.openai.stream.max-duration:2m}") Duration streamTimeout) {
         this.chatService = chatService;
+        this.insightsService = insightsService;
+        this.streamTimeout = streamTimeout;
     }
 
     @PostMapping("/ask")
-    public ResponseEntity<Map<String, String>> ask(@RequestBody Map<String, String> payload) {
+    public ResponseEntity<Map<String, Object>> ask(@RequestBody Map<String, String> payload) {
         String message = payload.get("message");
         if (message == null || message.trim().isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of("response", "Please provide a message."));
@@ -29,15 +48,106 @@ public class ChatController {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String email = authentication.getName(); // Assuming email is the username
 
-        String response = chatService.processMessage(message, email);
-        return ResponseEntity.ok(Map.of("response", response));
+        // timings: per-stage milliseconds, empty for conversational replies;
+        // card: structured form of the spending card, when that is the reply
+        ChatReply reply = chatService.reply(message, email);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("response", reply.getResponse());
+        body.put("timings", reply.getTimings());
+        if (reply.getCard() != null) {
+            body.put("card", reply.getCard());
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Same routing as /ask, but the reply is sent as Server-Sent Events:
+     * "token" events carrying {"text": ...} as the model generates, then a
+     * single "done" (or "error") event. The request thread is released as soon
+     * as the stream is set up. Returns 429 when too many streams are open.
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@RequestBody Map<String, String> payload) {
+        String message = payload.get("message");
+        if (message == null || message.trim().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String email = authentication.getName();
+
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        CompletableFuture<Void> reply;
+        try {
+            reply = chatService.streamMessage(message, email,
+                    chunk -> send(emitter, "token", Map.of("text", chunk)));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+
+        reply.whenComplete((v, error) -> {
+            try {
+                if (error == null) {
+                    send(emitter, "done", Map.of());
+                } else {
+                    send(emitter, "error", Map.of("message", "The AI service stopped responding."));
+                }
+                emitter.complete();
+            } catch (UncheckedIOException e) {
+                // Client already disconnected
+                emitter.completeWithError(e);
+            }
+        });
+        emitter.onTimeout(() -> reply.cancel(true));
+        emitter.onError(e -> reply.cancel(true));
+        emitter.onCompletion(() -> reply.cancel(true));
+        return ResponseEntity.ok(emitter);
     }
 
+    private static void send(SseEmitter emitter, String event, Map<String, String> data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Clears the conversation history replayed to the model with each question. */
+    @DeleteMapping("/history")
+    public ResponseEntity<Void> clearHistory() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        chatService.clearHistory(authentication.getName());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Precomputed insights as a JSON array. X-Insights-Generated-At and
+     * X-Insights-Age (seconds) say when they were generated, and
+     * X-Insights-Stale is true when the user's data has changed since and a
+     * refresh is under way; none of them are set for the canned fallback.
+     */
     @GetMapping("/insights")
     public ResponseEntity<String> getInsights() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String email = authentication.getName();
-        String insightsJson = chatService.generateInsights(email);
-        return ResponseEntity.ok(insightsJson);
+        return insightsResponse(insightsService.getInsights(email));
+    }
+
+    /** Regenerates the insights now; concurrent refreshes for the same user share one model call. */
+    @PostMapping("/insights/refresh")
+    public ResponseEntity<String> refreshInsights() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return insightsResponse(insightsService.refreshNow(authentication.getName()));
+    }
+
+    private static ResponseEntity<String> insightsResponse(InsightsSnapshot snapshot) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (snapshot.getGeneratedAt() != null) {
+            response.header("X-Insights-Generated-At", snapshot.getGeneratedAt().toString())
+                    .header("X-Insights-Age", String.valueOf(Math.max(0,
+                            Duration.between(snapshot.getGeneratedAt(), LocalDateTime.now()).toSeconds())))
+                    .header("X-Insights-Stale", String.valueOf(snapshot.isStale()));
+        }
+        return response.body(snapshot.getInsights());
     }
 }
@@ -5,6 +5,7 @@ import com.budgetwise.model.entity.User;
 import com.budgetwise.service.SubscriptionService;
 import com.budgetwise.util.JwtUtil;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -22,24 +23,18 @@ public class SubscriptionController {
     }
 
     @PostMapping("/upgrade")
-    public ResponseEntity<?> upgrade(@RequestHeader("Authorization") String token,
+    public ResponseEntity<?> upgrade(Authentication authentication,
             @RequestBody SubscriptionRequest request) {
         try {
-            if (token != null && token.startsWith("Bearer ")) {
-                String jwtToken = token.substring(7);
-                String email = JwtUtil.extractEmail(jwtToken);
+            User updatedUser = subscriptionService.upgradeSubscription(authentication.getName(), request);
 
-                User updatedUser = subscriptionService.upgradeSubscription(email, request);
+            // Generate a new token with updated claims (plan, etc.)
+            String newToken = jwtUtil.generateToken(updatedUser);
 
-                // Generate a new token with updated claims (plan, etc.)
-                String newToken = jwtUtil.generateToken(updatedUser);
-
-                return ResponseEntity.ok(Map.of(
-                        "message", "Subscription upgraded successfully",
-                        "plan", updatedUser.getSubscriptionPlan(),
-                        "token", newToken));
-            }
-            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+            return ResponseEntity.ok(Map.of(
+                    "message", "Subscription upgraded successfully",
+                    "plan", updatedUser.getSubscriptionPlan(),
+                    "token", newToken));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
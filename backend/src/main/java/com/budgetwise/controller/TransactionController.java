@@ -1,14 +1,25 @@
 package com.budgetwise.controller;
 
 import com.budgetwise.dto.TransactionRequest;
+import com.budgetwise.model.dto.TransactionImportResult;
 import com.budgetwise.model.entity.Transaction;
+import com.budgetwise.service.TransactionExportService;
+import com.budgetwise.service.TransactionImportService;
 import com.budgetwise.service.TransactionService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -19,33 +30,60 @@ import java.util.Map;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final TransactionImportService transactionImportService;
+    private final TransactionExportService transactionExportService;
 
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService,
+            TransactionImportService transactionImportService,
+            TransactionExportService transactionExportService) {
         this.transactionService = transactionService;
+        this.transactionImportService = transactionImportService;
+        this.transactionExportService = transactionExportService;
     }
 
+    /**
+     * Without {@code cursor}/{@code size} this returns the full list as before.
+     * With either of them it returns a keyset page of list-view projections.
+     */
     @GetMapping
-    public ResponseEntity<List<Transaction>> getUserTransactions(Authentication authentication) {
+    public ResponseEntity<?> getUserTransactions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            Authentication authentication) {
         Long userId = ((com.budgetwise.model.entity.User) authentication.getPrincipal()).getId();
+        if (isPaged(cursor, size)) {
+            return ResponseEntity.ok(transactionService.getUserTransactionsPage(userId, cursor, size));
+        }
         List<Transaction> transactions = transactionService.getUserTransactions(userId);
         return ResponseEntity.ok(transactions);
     }
 
     @GetMapping("/date-range")
-    public ResponseEntity<List<Transaction>> getTransactionsByDateRange(
+    public ResponseEntity<?> getTransactionsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
             Authentication authentication) {
         Long userId = ((com.budgetwise.model.entity.User) authentication.getPrincipal()).getId();
+        if (isPaged(cursor, size)) {
+            return ResponseEntity.ok(transactionService.getUserTransactionsPageByDateRange(userId, startDate,
+                    endDate, cursor, size));
+        }
         List<Transaction> transactions = transactionService.getUserTransactionsByDateRange(userId, startDate, endDate);
         return ResponseEntity.ok(transactions);
     }
 
     @GetMapping("/type/{type}")
-    public ResponseEntity<List<Transaction>> getTransactionsByType(
+    public ResponseEntity<?> getTransactionsByType(
             @PathVariable Transaction.TransactionType type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
             Authentication authentication) {
         Long userId = ((com.budgetwise.model.entity.User) authentication.getPrincipal()).getId();
+        if (isPaged(cursor, size)) {
+            return ResponseEntity.ok(transactionService.getUserTransactionsPageByType(userId, type, cursor, size));
+        }
         List<Transaction> transactions = transactionService.getUserTransactionsByType(userId, type);
         return ResponseEntity.ok(transactions);
     }
@@ -53,8 +91,9 @@ public class TransactionController {
     @GetMapping("/summary")
     public ResponseEntity<Map<String, BigDecimal>> getTransactionSummary(Authentication authentication) {
         Long userId = ((com.budgetwise.model.entity.User) authentication.getPrincipal()).getId();
-        BigDecimal totalIncome = transactionService.getTotalIncome(userId);
-        BigDecimal totalExpenses = transactionService.getTotalExpenses(userId);
+        Map<Transaction.TransactionType, BigDecimal> totals = transactionService.getTotalsByType(userId);
+        BigDecimal totalIncome = totals.get(Transaction.TransactionType.INCOME);
+        BigDecimal totalExpenses = totals.get(Transaction.TransactionType.EXPENSE);
 
         return ResponseEntity.ok(Map.of(
                 "totalIncome", totalIncome,
@@ -99,6 +138,47 @@ public class TransactionController {
         return ResponseEntity.ok(transactionService.getWeeklySavings(userId));
     }
 
+    /**
+     * Imports a CSV or OFX/QFX bank statement. The format comes from
+     * {@code format} or else the file extension; rows without a category go to
+     * {@code categoryId}. Invalid rows are skipped and listed in the result.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<TransactionImportResult> importTransactions(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) Long categoryId,
+            Authentication authentication) throws IOException {
+        Long userId = ((com.budgetwise.model.entity.User) authentication.getPrincipal()).getId();
+        TransactionImportService.Format importFormat = TransactionImportService.Format.detect(format,
+                file.getOriginalFilename());
+        try (InputStream input = file.getInputStream()) {
+            return ResponseEntity.ok(transactionImportService.importTransactions(userId, input, importFormat,
+                    categoryId));
+        }
+    }
+
+    /**
+     * Streams the user's transactions as CSV, optionally limited to a date
+     * range and/or type. With {@code gzip=true} the download is a .csv.gz.
+     */
+    @GetMapping("/export.csv")
+    public void exportTransactions(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) Transaction.TransactionType type,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            Authentication authentication,
+            HttpServletResponse response) throws IOException {
+        Long userId = ((com.budgetwise.model.entity.User) authentication.getPrincipal()).getId();
+        String filename = "transactions_" + LocalDate.now() + (gzip ? ".csv.gz" : ".csv");
+        response.setContentType(gzip ? "application/gzip" : "text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(filename).build().toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        transactionExportService.export(userId, startDate, endDate, type, gzip, response.getOutputStream());
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, String>> deleteTransaction(
             @PathVariable Long id,
@@ -107,4 +187,8 @@ public class TransactionController {
         transactionService.deleteTransaction(id, userId);
         return ResponseEntity.ok(Map.of("message", "Transaction deleted successfully"));
     }
+
+    private boolean isPaged(String cursor, Integer size) {
+        return cursor != null || size != null;
+    }
 }
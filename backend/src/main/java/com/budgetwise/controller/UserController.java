@@ -3,6 +3,7 @@ package com.budgetwise.controller;
 import com.budgetwise.model.dto.UserPreferencesDTO;
 import com.budgetwise.model.entity.User;
 import com.budgetwise.repository.UserRepository;
+import com.budgetwise.security.PrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -16,6 +17,9 @@ public class UserController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @GetMapping("/preferences")
     public ResponseEntity<UserPreferencesDTO> getPreferences(Authentication authentication) {
         String email = authentication.getName();
@@ -36,6 +40,7 @@ public class UserController {
 
         user.setPreferredCurrency(preferences.getPreferredCurrency());
         userRepository.save(user);
+        principalCache.invalidate(email);
 
         return ResponseEntity.ok(preferences);
     }
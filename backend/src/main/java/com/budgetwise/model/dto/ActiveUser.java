@@ -0,0 +1,8 @@
+package com.budgetwise.model.dto;
+
+public interface ActiveUser {
+
+    Long getUserId();
+
+    String getEmail();
+}
@@ -0,0 +1,10 @@
+package com.budgetwise.model.dto;
+
+import java.math.BigDecimal;
+
+public interface CategoryTotal {
+
+    String getName();
+
+    BigDecimal getTotal();
+}
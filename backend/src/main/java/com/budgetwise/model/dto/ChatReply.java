@@ -0,0 +1,52 @@
+package com.budgetwise.model.dto;
+
+import java.util.Map;
+
+/**
+ * A chat answer plus how long each stage took to produce it, in milliseconds.
+ * {@code timings} is empty for replies that have no separate stages;
+ * {@code card} is set only when the answer is the spending card.
+ */
+public class ChatReply {
+    private String response;
+    private Map<String, Long> timings;
+    private SpendingCard card;
+
+    public ChatReply() {
+    }
+
+    public ChatReply(String response, Map<String, Long> timings) {
+        this(response, timings, null);
+    }
+
+    public ChatReply(String response, Map<String, Long> timings, SpendingCard card) {
+        this.response = response;
+        this.timings = timings;
+        this.card = card;
+    }
+
+    // Getters and Setters
+    public String getResponse() {
+        return response;
+    }
+
+    public void setResponse(String response) {
+        this.response = response;
+    }
+
+    public Map<String, Long> getTimings() {
+        return timings;
+    }
+
+    public void setTimings(Map<String, Long> timings) {
+        this.timings = timings;
+    }
+
+    public SpendingCard getCard() {
+        return card;
+    }
+
+    public void setCard(SpendingCard card) {
+        this.card = card;
+    }
+}
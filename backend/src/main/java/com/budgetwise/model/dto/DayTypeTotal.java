@@ -0,0 +1,15 @@
+package com.budgetwise.model.dto;
+
+import com.budgetwise.model.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface DayTypeTotal {
+
+    LocalDate getDay();
+
+    Transaction.TransactionType getType();
+
+    BigDecimal getTotal();
+}
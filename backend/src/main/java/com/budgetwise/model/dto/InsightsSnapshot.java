@@ -0,0 +1,48 @@
+package com.budgetwise.model.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Insights JSON as served by /api/chat/insights, with when it was generated
+ * (null for the canned fallback) and whether the user's data has changed
+ * since, in which case a refresh is already running.
+ */
+public class InsightsSnapshot {
+    private String insights;
+    private LocalDateTime generatedAt;
+    private boolean stale;
+
+    public InsightsSnapshot() {
+    }
+
+    public InsightsSnapshot(String insights, LocalDateTime generatedAt, boolean stale) {
+        this.insights = insights;
+        this.generatedAt = generatedAt;
+        this.stale = stale;
+    }
+
+    // Getters and Setters
+    public String getInsights() {
+        return insights;
+    }
+
+    public void setInsights(String insights) {
+        this.insights = insights;
+    }
+
+    public LocalDateTime getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public void setGeneratedAt(LocalDateTime generatedAt) {
+        this.generatedAt = generatedAt;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public void setStale(boolean stale) {
+        this.stale = stale;
+    }
+}
@@ -0,0 +1,24 @@
+package com.budgetwise.model.dto;
+
+import com.budgetwise.model.entity.Transaction;
+
+import java.math.BigDecimal;
+
+/**
+ * Raw-transaction aggregate for one (year, month, category, type) bucket,
+ * used to rebuild and verify the rollup table.
+ */
+public interface MonthCategoryTotal {
+
+    Integer getYear();
+
+    Integer getMonth();
+
+    Long getCategoryId();
+
+    Transaction.TransactionType getType();
+
+    BigDecimal getTotal();
+
+    Long getCount();
+}
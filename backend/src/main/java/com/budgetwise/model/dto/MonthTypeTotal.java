@@ -0,0 +1,14 @@
+package com.budgetwise.model.dto;
+
+import com.budgetwise.model.entity.Transaction;
+
+import java.math.BigDecimal;
+
+public interface MonthTypeTotal {
+
+    Integer getMonthKey();
+
+    Transaction.TransactionType getType();
+
+    BigDecimal getTotal();
+}
@@ -0,0 +1,59 @@
+package com.budgetwise.model.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of comparing a user's rollup rows against a fresh aggregate of their
+ * raw transactions.
+ */
+public class RollupDriftReport {
+    private Long userId;
+    private int bucketsChecked;
+    private List<String> drift = new ArrayList<>();
+    private boolean repaired;
+
+    public RollupDriftReport() {
+    }
+
+    public RollupDriftReport(Long userId) {
+        this.userId = userId;
+    }
+
+    public boolean hasDrift() {
+        return !drift.isEmpty();
+    }
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public int getBucketsChecked() {
+        return bucketsChecked;
+    }
+
+    public void setBucketsChecked(int bucketsChecked) {
+        this.bucketsChecked = bucketsChecked;
+    }
+
+    public List<String> getDrift() {
+        return drift;
+    }
+
+    public void setDrift(List<String> drift) {
+        this.drift = drift;
+    }
+
+    public boolean isRepaired() {
+        return repaired;
+    }
+
+    public void setRepaired(boolean repaired) {
+        this.repaired = repaired;
+    }
+}
@@ -0,0 +1,163 @@
+package com.budgetwise.model.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Structured form of the chat spending card, returned next to its text
+ * rendering so the frontend can lay it out without parsing the text.
+ * Percentages are whole numbers; amounts are in rupees.
+ */
+public class SpendingCard {
+    /** excellent, moderate or at_risk */
+    private String health;
+    private String healthLabel;
+    private BigDecimal income;
+    private BigDecimal expenses;
+    private BigDecimal savings;
+    private int savingsRate;
+    private List<CategoryShare> categories;
+    private List<String> alerts;
+    private List<String> suggestions;
+
+    public SpendingCard() {
+    }
+
+    public SpendingCard(String health, String healthLabel, BigDecimal income, BigDecimal expenses,
+            BigDecimal savings, int savingsRate, List<CategoryShare> categories, List<String> alerts,
+            List<String> suggestions) {
+        this.health = health;
+        this.healthLabel = healthLabel;
+        this.income = income;
+        this.expenses = expenses;
+        this.savings = savings;
+        this.savingsRate = savingsRate;
+        this.categories = categories;
+        this.alerts = alerts;
+        this.suggestions = suggestions;
+    }
+
+    // Getters and Setters
+    public String getHealth() {
+        return health;
+    }
+
+    public void setHealth(String health) {
+        this.health = health;
+    }
+
+    public String getHealthLabel() {
+        return healthLabel;
+    }
+
+    public void setHealthLabel(String healthLabel) {
+        this.healthLabel = healthLabel;
+    }
+
+    public BigDecimal getIncome() {
+        return income;
+    }
+
+    public void setIncome(BigDecimal income) {
+        this.income = income;
+    }
+
+    public BigDecimal getExpenses() {
+        return expenses;
+    }
+
+    public void setExpenses(BigDecimal expenses) {
+        this.expenses = expenses;
+    }
+
+    public BigDecimal getSavings() {
+        return savings;
+    }
+
+    public void setSavings(BigDecimal savings) {
+        this.savings = savings;
+    }
+
+    public int getSavingsRate() {
+        return savingsRate;
+    }
+
+    public void setSavingsRate(int savingsRate) {
+        this.savingsRate = savingsRate;
+    }
+
+    public List<CategoryShare> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<CategoryShare> categories) {
+        this.categories = categories;
+    }
+
+    public List<String> getAlerts() {
+        return alerts;
+    }
+
+    public void setAlerts(List<String> alerts) {
+        this.alerts = alerts;
+    }
+
+    public List<String> getSuggestions() {
+        return suggestions;
+    }
+
+    public void setSuggestions(List<String> suggestions) {
+        this.suggestions = suggestions;
+    }
+
+    /** One category's share of total expenses; bars is the number of 5% blocks drawn for it. */
+    public static class CategoryShare {
+        private String name;
+        private BigDecimal amount;
+        private int percent;
+        private int bars;
+
+        public CategoryShare() {
+        }
+
+        public CategoryShare(String name, BigDecimal amount, int percent, int bars) {
+            this.name = name;
+            this.amount = amount;
+            this.percent = percent;
+            this.bars = bars;
+        }
+
+        // Getters and Setters
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public int getPercent() {
+            return percent;
+        }
+
+        public void setPercent(int percent) {
+            this.percent = percent;
+        }
+
+        public int getBars() {
+            return bars;
+        }
+
+        public void setBars(int bars) {
+            this.bars = bars;
+        }
+    }
+}
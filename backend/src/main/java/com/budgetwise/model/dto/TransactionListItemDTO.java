@@ -0,0 +1,102 @@
+package com.budgetwise.model.dto;
+
+import com.budgetwise.model.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Column projection for the transaction list view. Populated directly by a
+ * JPQL constructor expression, so no entity or Category proxy is loaded.
+ */
+public class TransactionListItemDTO {
+    private Long id;
+    private String description;
+    private BigDecimal amount;
+    private Transaction.TransactionType type;
+    private LocalDateTime transactionDate;
+    private Long categoryId;
+    private String categoryName;
+    private String categoryColor;
+
+    public TransactionListItemDTO() {
+    }
+
+    public TransactionListItemDTO(Long id, String description, BigDecimal amount,
+            Transaction.TransactionType type, LocalDateTime transactionDate,
+            Long categoryId, String categoryName, String categoryColor) {
+        this.id = id;
+        this.description = description;
+        this.amount = amount;
+        this.type = type;
+        this.transactionDate = transactionDate;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.categoryColor = categoryColor;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public Transaction.TransactionType getType() {
+        return type;
+    }
+
+    public void setType(Transaction.TransactionType type) {
+        this.type = type;
+    }
+
+    public LocalDateTime getTransactionDate() {
+        return transactionDate;
+    }
+
+    public void setTransactionDate(LocalDateTime transactionDate) {
+        this.transactionDate = transactionDate;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public String getCategoryColor() {
+        return categoryColor;
+    }
+
+    public void setCategoryColor(String categoryColor) {
+        this.categoryColor = categoryColor;
+    }
+}
@@ -0,0 +1,56 @@
+package com.budgetwise.model.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of transactions. {@code nextCursor} is null on the last page.
+ */
+public class TransactionPageDTO {
+    private List<TransactionListItemDTO> items;
+    private String nextCursor;
+    private boolean hasMore;
+    private int size;
+
+    public TransactionPageDTO() {
+    }
+
+    public TransactionPageDTO(List<TransactionListItemDTO> items, String nextCursor, boolean hasMore, int size) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+        this.size = size;
+    }
+
+    // Getters and Setters
+    public List<TransactionListItemDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<TransactionListItemDTO> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
@@ -0,0 +1,16 @@
+package com.budgetwise.model.dto;
+
+import com.budgetwise.model.entity.Transaction;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection for the per-type SUM aggregate so totals can be computed in the
+ * database instead of loading every transaction entity.
+ */
+public interface TransactionTypeTotal {
+
+    Transaction.TransactionType getType();
+
+    BigDecimal getTotal();
+}
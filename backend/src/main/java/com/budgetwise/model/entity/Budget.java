@@ -7,6 +7,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "budgets", uniqueConstraints = {
         @UniqueConstraint(columnNames = { "user_id", "category_id", "month", "year" })
+}, indexes = {
+        @Index(name = "idx_budgets_user_month_year", columnList = "user_id, month, year")
 })
 public class Budget {
 
@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "otp_tokens")
+@Table(name = "otp_tokens", indexes = {
+        @Index(name = "idx_otp_tokens_email_purpose", columnList = "email, purpose"),
+        @Index(name = "idx_otp_tokens_expiry", columnList = "expiry_time")
+})
 public class OtpToken {
 
     @Id
@@ -27,6 +30,9 @@ public class OtpToken {
     @Column(nullable = false)
     private Boolean verified = false;
 
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -88,6 +94,14 @@ public class OtpToken {
         this.verified = verified;
     }
 
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
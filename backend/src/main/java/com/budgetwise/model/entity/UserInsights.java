@@ -0,0 +1,79 @@
+package com.budgetwise.model.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last AI insights generated for a user, as the JSON array served by
+ * /api/chat/insights. Maintained by InsightsService.
+ */
+@Entity
+@Table(name = "user_insights")
+public class UserInsights {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(length = 8000)
+    private String insights;
+
+    @Column(name = "context_hash", length = 64)
+    private String contextHash; // SHA-256 of the financial context the insights were built from
+
+    @Column(name = "generated_at")
+    private LocalDateTime generatedAt;
+
+    @Column(name = "last_requested_at", nullable = false)
+    private LocalDateTime lastRequestedAt;
+
+    public UserInsights() {
+    }
+
+    public UserInsights(Long userId, LocalDateTime lastRequestedAt) {
+        this.userId = userId;
+        this.lastRequestedAt = lastRequestedAt;
+    }
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getInsights() {
+        return insights;
+    }
+
+    public void setInsights(String insights) {
+        this.insights = insights;
+    }
+
+    public String getContextHash() {
+        return contextHash;
+    }
+
+    public void setContextHash(String contextHash) {
+        this.contextHash = contextHash;
+    }
+
+    public LocalDateTime getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public void setGeneratedAt(LocalDateTime generatedAt) {
+        this.generatedAt = generatedAt;
+    }
+
+    public LocalDateTime getLastRequestedAt() {
+        return lastRequestedAt;
+    }
+
+    public void setLastRequestedAt(LocalDateTime lastRequestedAt) {
+        this.lastRequestedAt = lastRequestedAt;
+    }
+}
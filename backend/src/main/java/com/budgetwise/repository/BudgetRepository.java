@@ -26,5 +26,10 @@ public interface BudgetRepository extends JpaRepository<Budget, Long> {
     List<Budget> findAllBudgetsForMonth(@Param("user") User user, @Param("month") Integer month,
             @Param("year") Integer year);
 
+    @Query("SELECT b FROM Budget b LEFT JOIN FETCH b.category WHERE b.user.id = :userId "
+            + "AND b.month = :month AND b.year = :year")
+    List<Budget> findWithCategoryByUserIdAndMonthAndYear(@Param("userId") Long userId,
+            @Param("month") Integer month, @Param("year") Integer year);
+
     void deleteByUserAndId(User user, Long id);
 }
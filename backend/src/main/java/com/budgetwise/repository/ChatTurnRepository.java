@@ -0,0 +1,28 @@
+package com.budgetwise.repository;
+
+import com.budgetwise.model.entity.ChatTurn;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ChatTurnRepository extends JpaRepository<ChatTurn, Long> {
+
+    /** Newest first. */
+    @Query("SELECT t FROM ChatTurn t WHERE t.userId = :userId ORDER BY t.id DESC")
+    List<ChatTurn> findRecentByUserId(@Param("userId") Long userId, Pageable limit);
+
+    @Modifying
+    @Query("DELETE FROM ChatTurn t WHERE t.userId = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM ChatTurn t WHERE t.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,26 @@
+package com.budgetwise.repository;
+
+import com.budgetwise.model.entity.EmailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    /** Messages in the given state whose next_attempt_at is at or before {@code time}, oldest first. */
+    @Query("SELECT m FROM EmailOutbox m WHERE m.status = :status AND m.nextAttemptAt <= :time "
+            + "ORDER BY m.nextAttemptAt, m.id")
+    List<EmailOutbox> findByStatusDueBy(@Param("status") EmailOutbox.Status status,
+            @Param("time") LocalDateTime time, Pageable limit);
+
+    @Modifying
+    @Query("DELETE FROM EmailOutbox m WHERE m.status = :status AND m.nextAttemptAt < :cutoff")
+    int deleteByStatusBefore(@Param("status") EmailOutbox.Status status, @Param("cutoff") LocalDateTime cutoff);
+}
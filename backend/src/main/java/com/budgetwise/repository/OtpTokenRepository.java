@@ -2,6 +2,7 @@ package com.budgetwise.repository;
 
 import com.budgetwise.model.entity.OtpToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -11,16 +12,30 @@ import java.util.Optional;
 
 @Repository
 public interface OtpTokenRepository extends JpaRepository<OtpToken, Long> {
-    
-    Optional<OtpToken> findByEmailAndPurposeAndVerifiedFalse(String email, OtpToken.OtpPurpose purpose);
-    
-    Optional<OtpToken> findByEmailAndPurposeAndVerifiedTrue(String email, OtpToken.OtpPurpose purpose);
-    
-    @Query("SELECT o FROM OtpToken o WHERE o.email = :email AND o.otp = :otp AND o.purpose = :purpose AND o.verified = false AND o.expiryTime > :currentTime")
-    Optional<OtpToken> findValidOtp(@Param("email") String email, 
-                                   @Param("otp") String otp, 
-                                   @Param("purpose") OtpToken.OtpPurpose purpose, 
-                                   @Param("currentTime") LocalDateTime currentTime);
-    
+
+    /** The latest unverified code; older duplicates can exist from before codes were replaced on reissue. */
+    Optional<OtpToken> findFirstByEmailAndPurposeAndVerifiedFalseOrderByIdDesc(String email,
+            OtpToken.OtpPurpose purpose);
+
+    boolean existsByEmailAndPurposeAndVerifiedTrueAndExpiryTimeAfter(String email, OtpToken.OtpPurpose purpose,
+            LocalDateTime currentTime);
+
+    /** Marks the code verified unless a concurrent request already has; returns 1 for the winner. */
+    @Modifying
+    @Query("UPDATE OtpToken o SET o.verified = true, o.expiryTime = :verifiedUntil WHERE o.id = :id AND o.verified = false")
+    int markVerified(@Param("id") Long id, @Param("verifiedUntil") LocalDateTime verifiedUntil);
+
+    @Modifying
+    @Query("UPDATE OtpToken o SET o.attempts = o.attempts + 1 WHERE o.id = :id")
+    int incrementAttempts(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM OtpToken o WHERE o.id = :id AND o.attempts >= :maxAttempts")
+    int deleteIfAttemptsReached(@Param("id") Long id, @Param("maxAttempts") int maxAttempts);
+
+    @Modifying
+    @Query("DELETE FROM OtpToken o WHERE o.expiryTime < :currentTime")
+    int deleteExpired(@Param("currentTime") LocalDateTime currentTime);
+
     void deleteByEmailAndPurpose(String email, OtpToken.OtpPurpose purpose);
 }
@@ -1,6 +1,12 @@
 package com.budgetwise.repository;
 
+import com.budgetwise.model.dto.CategorySpend;
+import com.budgetwise.model.dto.DayTypeTotal;
+import com.budgetwise.model.dto.MonthCategoryTotal;
+import com.budgetwise.model.dto.TransactionListItemDTO;
+import com.budgetwise.model.dto.TransactionTypeTotal;
 import com.budgetwise.model.entity.Transaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -24,4 +30,64 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     @Query("SELECT t FROM Transaction t WHERE t.user.id = :userId AND t.type = :type ORDER BY t.transactionDate DESC")
     List<Transaction> findByUserIdAndType(@Param("userId") Long userId,
             @Param("type") Transaction.TransactionType type);
+
+    // Keyset pages over (transactionDate DESC, id DESC). Only the list-view
+    // columns are selected; pass TransactionCursor.START for the first page.
+    String LIST_ITEM_SELECT = "SELECT new com.budgetwise.model.dto.TransactionListItemDTO("
+            + "t.id, t.description, t.amount, t.type, t.transactionDate, c.id, c.name, c.color) "
+            + "FROM Transaction t JOIN t.category c ";
+    String KEYSET_BEFORE = "(t.transactionDate < :cursorDate OR (t.transactionDate = :cursorDate AND t.id < :cursorId)) ";
+    String KEYSET_ORDER = "ORDER BY t.transactionDate DESC, t.id DESC";
+
+    @Query(LIST_ITEM_SELECT + "WHERE t.user.id = :userId " + KEYSET_ORDER)
+    List<TransactionListItemDTO> findRecentByUserId(@Param("userId") Long userId, Pageable limit);
+
+    @Query(LIST_ITEM_SELECT + "WHERE t.user.id = :userId AND " + KEYSET_BEFORE + KEYSET_ORDER)
+    List<TransactionListItemDTO> findPageByUserId(@Param("userId") Long userId,
+            @Param("cursorDate") LocalDateTime cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable limit);
+
+    @Query(LIST_ITEM_SELECT + "WHERE t.user.id = :userId AND t.transactionDate BETWEEN :startDate AND :endDate AND "
+            + KEYSET_BEFORE + KEYSET_ORDER)
+    List<TransactionListItemDTO> findPageByUserIdAndDateRange(@Param("userId") Long userId,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            @Param("cursorDate") LocalDateTime cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable limit);
+
+    @Query(LIST_ITEM_SELECT + "WHERE t.user.id = :userId AND t.type = :type AND " + KEYSET_BEFORE + KEYSET_ORDER)
+    List<TransactionListItemDTO> findPageByUserIdAndType(@Param("userId") Long userId,
+            @Param("type") Transaction.TransactionType type,
+            @Param("cursorDate") LocalDateTime cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable limit);
+
+    @Query("SELECT t.type AS type, SUM(t.amount) AS total FROM Transaction t WHERE t.user.id = :userId GROUP BY t.type")
+    List<TransactionTypeTotal> sumAmountByType(@Param("userId") Long userId);
+
+    @Query("SELECT year(t.transactionDate) AS year, month(t.transactionDate) AS month, t.category.id AS categoryId, "
+            + "t.type AS type, SUM(t.amount) AS total, COUNT(t) AS count FROM Transaction t WHERE t.user.id = :userId "
+            + "GROUP BY year(t.transactionDate), month(t.transactionDate), t.category.id, t.type")
+    List<MonthCategoryTotal> sumByMonthAndCategory(@Param("userId") Long userId);
+
+    @Query("SELECT cast(t.transactionDate AS LocalDate) AS day, t.type AS type, SUM(t.amount) AS total "
+            + "FROM Transaction t WHERE t.user.id = :userId AND t.transactionDate BETWEEN :startDate AND :endDate "
+            + "GROUP BY cast(t.transactionDate AS LocalDate), t.type")
+    List<DayTypeTotal> sumByDayAndType(@Param("userId") Long userId,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    // Half-open [startDate, endDate) so month boundaries never double count
+    @Query("SELECT t.category.id AS categoryId, SUM(t.amount) AS total FROM Transaction t "
+            + "WHERE t.user.id = :userId AND t.type = :type "
+            + "AND t.transactionDate >= :startDate AND t.transactionDate < :endDate GROUP BY t.category.id")
+    List<CategorySpend> sumByCategoryInRange(@Param("userId") Long userId,
+            @Param("type") Transaction.TransactionType type,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT DISTINCT t.user.id FROM Transaction t")
+    List<Long> findDistinctUserIds();
 }
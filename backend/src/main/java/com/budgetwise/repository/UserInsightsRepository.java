@@ -0,0 +1,19 @@
+package com.budgetwise.repository;
+
+import com.budgetwise.model.dto.ActiveUser;
+import com.budgetwise.model.entity.UserInsights;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserInsightsRepository extends JpaRepository<UserInsights, Long> {
+
+    @Query("SELECT i.userId AS userId, u.email AS email FROM UserInsights i JOIN User u ON u.id = i.userId "
+            + "WHERE i.lastRequestedAt >= :since")
+    List<ActiveUser> findRequestedSince(@Param("since") LocalDateTime since);
+}
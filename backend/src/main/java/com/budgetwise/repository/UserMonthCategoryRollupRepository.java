@@ -0,0 +1,64 @@
+package com.budgetwise.repository;
+
+import com.budgetwise.model.dto.CategoryTotal;
+import com.budgetwise.model.dto.MonthTypeTotal;
+import com.budgetwise.model.entity.Transaction;
+import com.budgetwise.model.entity.UserMonthCategoryRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface UserMonthCategoryRollupRepository extends JpaRepository<UserMonthCategoryRollup, Long> {
+
+    List<UserMonthCategoryRollup> findByUserId(Long userId);
+
+    // Atomic delta so concurrent writers to the same bucket never race on the
+    // first insert.
+    @Modifying
+    @Query(value = "INSERT INTO user_month_category_rollup "
+            + "(user_id, month_key, category_id, type, total_amount, tx_count, updated_at) "
+            + "VALUES (:userId, :monthKey, :categoryId, :type, :amount, :count, CURRENT_TIMESTAMP) "
+            + "ON DUPLICATE KEY UPDATE total_amount = total_amount + VALUES(total_amount), "
+            + "tx_count = tx_count + VALUES(tx_count), updated_at = CURRENT_TIMESTAMP", nativeQuery = true)
+    void applyDelta(@Param("userId") Long userId,
+            @Param("monthKey") Integer monthKey,
+            @Param("categoryId") Long categoryId,
+            @Param("type") String type,
+            @Param("amount") BigDecimal amount,
+            @Param("count") long count);
+
+    @Modifying
+    @Query("DELETE FROM UserMonthCategoryRollup r WHERE r.userId = :userId AND r.monthKey = :monthKey "
+            + "AND r.categoryId = :categoryId AND r.type = :type AND r.txCount <= 0")
+    void deleteIfEmpty(@Param("userId") Long userId,
+            @Param("monthKey") Integer monthKey,
+            @Param("categoryId") Long categoryId,
+            @Param("type") Transaction.TransactionType type);
+
+    @Modifying
+    @Query("DELETE FROM UserMonthCategoryRollup r WHERE r.userId = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM UserMonthCategoryRollup r WHERE r.categoryId = :categoryId")
+    void deleteByCategoryId(@Param("categoryId") Long categoryId);
+
+    @Query("SELECT r.monthKey AS monthKey, r.type AS type, SUM(r.totalAmount) AS total "
+            + "FROM UserMonthCategoryRollup r WHERE r.userId = :userId "
+            + "AND r.monthKey BETWEEN :fromMonthKey AND :toMonthKey "
+            + "GROUP BY r.monthKey, r.type ORDER BY r.monthKey")
+    List<MonthTypeTotal> sumByMonthAndType(@Param("userId") Long userId,
+            @Param("fromMonthKey") Integer fromMonthKey, @Param("toMonthKey") Integer toMonthKey);
+
+    @Query("SELECT c.name AS name, SUM(r.totalAmount) AS total FROM UserMonthCategoryRollup r "
+            + "JOIN Category c ON c.id = r.categoryId "
+            + "WHERE r.userId = :userId AND r.type = :type GROUP BY c.name")
+    List<CategoryTotal> sumByCategory(@Param("userId") Long userId,
+            @Param("type") Transaction.TransactionType type);
+}
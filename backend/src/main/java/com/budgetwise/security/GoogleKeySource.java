@@ -0,0 +1,24 @@
+package com.budgetwise.security;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Where GoogleTokenVerifier gets the keys Google signs ID tokens with. The
+ * application uses JwksKeySource; tests can point one at a local stub.
+ */
+public interface GoogleKeySource {
+
+    /** Fetches the current keys, blocking until they are loaded. */
+    KeySet fetch() throws IOException, GeneralSecurityException;
+
+    /**
+     * Signing keys by key id ("kid"), and how long they may be cached
+     * (Duration.ZERO when the source did not say).
+     */
+    record KeySet(Map<String, PublicKey> keys, Duration maxAge) {
+    }
+}
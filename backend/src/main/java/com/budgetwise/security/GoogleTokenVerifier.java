@@ -0,0 +1,170 @@
+package com.budgetwise.security;
+
+import com.google.api.client.auth.openidconnect.IdTokenVerifier;
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import com.google.api.client.json.gson.GsonFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies Google ID tokens for sign-in: issuer, audience (our client id),
+ * expiry and the RS256 signature against Google's published keys.
+ *
+ * One instance serves every request. The keys are held in memory for as
+ * long as the key source allows (Cache-Control max-age, never less than
+ * min-refresh-interval) and refreshed in the background refresh-ahead before
+ * they expire, so a sign-in does not wait on Google unless the keys were
+ * never loaded or have expired. A token signed with a key id we do not know
+ * (Google rotated its keys) triggers one early refresh, at most once per
+ * min-refresh-interval. If a refresh fails the previous keys stay in use.
+ *
+ * Metrics: auth.google.verify{outcome=valid|invalid} (with percentiles) and
+ * auth.google.keys.refresh{outcome=ok|failed}.
+ */
+@Component
+public class GoogleTokenVerifier {
+
+    private static final Logger log = LoggerFactory.getLogger(GoogleTokenVerifier.class);
+
+    private static final List<String> ISSUERS = List.of("accounts.google.com", "https://accounts.google.com");
+
+    private final GoogleKeySource keySource;
+    private final List<String> audience;
+    private final long refreshAheadMillis;
+    private final long minRefreshMillis;
+    private final Clock clock;
+    private final Timer validTime;
+    private final Timer invalidTime;
+    private final Counter refreshed;
+    private final Counter refreshFailed;
+    private final Object refreshLock = new Object();
+
+    private volatile Keys keys;
+
+    @Autowired
+    public GoogleTokenVerifier(GoogleKeySource keySource, MeterRegistry meterRegistry,
+            @Value("${app.google.client-id}") String clientId,
+            @Value("${app.google.keys.refresh-ahead:5m}") Duration refreshAhead,
+            @Value("${app.google.keys.min-refresh-interval:30s}") Duration minRefreshInterval) {
+        this(keySource, meterRegistry, clientId, refreshAhead, minRefreshInterval, Clock.systemUTC());
+    }
+
+    GoogleTokenVerifier(GoogleKeySource keySource, MeterRegistry meterRegistry, String clientId,
+            Duration refreshAhead, Duration minRefreshInterval, Clock clock) {
+        this.keySource = keySource;
+        this.audience = List.of(clientId);
+        this.refreshAheadMillis = refreshAhead.toMillis();
+        this.minRefreshMillis = minRefreshInterval.toMillis();
+        this.clock = clock;
+        this.validTime = verifyTimer(meterRegistry, "valid");
+        this.invalidTime = verifyTimer(meterRegistry, "invalid");
+        this.refreshed = Counter.builder("auth.google.keys.refresh").tag("outcome", "ok").register(meterRegistry);
+        this.refreshFailed = Counter.builder("auth.google.keys.refresh").tag("outcome", "failed")
+                .register(meterRegistry);
+    }
+
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("auth.google.verify").tag("outcome", outcome).publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The token's payload, or null when the token is not a valid Google ID
+     * token for this application.
+     *
+     * @throws IllegalArgumentException or IOException if the token cannot be
+     *         parsed, and IOException or GeneralSecurityException if the keys
+     *         could not be loaded at all
+     */
+    public GoogleIdToken.Payload verify(String idTokenString) throws IOException, GeneralSecurityException {
+        long started = System.nanoTime();
+        boolean valid = false;
+        try {
+            GoogleIdToken idToken = GoogleIdToken.parse(GsonFactory.getDefaultInstance(), idTokenString);
+            long now = clock.millis();
+            if (!idToken.verifyIssuer(ISSUERS) || !idToken.verifyAudience(audience)
+                    || !idToken.verifyTime(now, IdTokenVerifier.DEFAULT_TIME_SKEW_SECONDS)) {
+                return null;
+            }
+            PublicKey key = keyFor(idToken.getHeader().getKeyId(), now);
+            if (key == null || !idToken.verifySignature(key)) {
+                return null;
+            }
+            valid = true;
+            return idToken.getPayload();
+        } finally {
+            (valid ? validTime : invalidTime).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Reloads the keys when they are within refresh-ahead of expiring. */
+    @Scheduled(fixedDelayString = "${app.google.keys.check-interval:60000}")
+    public void refreshAhead() {
+        Keys current = keys;
+        if (current != null && clock.millis() < current.expiresAt - refreshAheadMillis) {
+            return;
+        }
+        try {
+            refresh(current);
+        } catch (IOException | GeneralSecurityException e) {
+            log.warn("Could not load Google signing keys: {}", e.getMessage());
+        }
+    }
+
+    private PublicKey keyFor(String keyId, long now) throws IOException, GeneralSecurityException {
+        Keys current = keys;
+        if (current == null || now >= current.expiresAt) {
+            current = refresh(current);
+        }
+        PublicKey key = keyId == null ? null : current.byId.get(keyId);
+        if (key == null && keyId != null && now - current.fetchedAt >= minRefreshMillis) {
+            current = refresh(current);
+            key = current.byId.get(keyId);
+        }
+        return key;
+    }
+
+    /** Loads new keys unless another thread already replaced {@code seen}. */
+    private Keys refresh(Keys seen) throws IOException, GeneralSecurityException {
+        synchronized (refreshLock) {
+            if (keys != seen) {
+                return keys;
+            }
+            long now = clock.millis();
+            try {
+                GoogleKeySource.KeySet keySet = keySource.fetch();
+                long ttl = Math.max(keySet.maxAge().toMillis(), minRefreshMillis);
+                keys = new Keys(keySet.keys(), now, now + ttl);
+                refreshed.increment();
+                log.debug("Loaded {} Google signing keys, cached for {}s", keySet.keys().size(), ttl / 1000);
+            } catch (IOException | GeneralSecurityException | RuntimeException e) {
+                refreshFailed.increment();
+                if (seen == null) {
+                    throw e;
+                }
+                log.warn("Could not refresh Google signing keys, keeping the previous ones: {}", e.getMessage());
+                keys = new Keys(seen.byId, now, now + minRefreshMillis);
+            }
+            return keys;
+        }
+    }
+
+    private record Keys(Map<String, PublicKey> byId, long fetchedAt, long expiresAt) {
+    }
+}
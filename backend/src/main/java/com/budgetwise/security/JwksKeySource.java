@@ -0,0 +1,105 @@
+package com.budgetwise.security;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.JsonObjectParser;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.Key;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Google's signing keys from a JWKS endpoint, over one HTTP transport for
+ * the life of the application. The cache lifetime is the response's
+ * Cache-Control max-age less its Age.
+ */
+@Component
+public class JwksKeySource implements GoogleKeySource {
+
+    private static final Pattern MAX_AGE = Pattern.compile("\\bmax-age\\s*=\\s*(\\d+)");
+
+    private final GenericUrl url;
+    private final HttpRequestFactory requestFactory;
+    private final JsonObjectParser parser = new JsonObjectParser(GsonFactory.getDefaultInstance());
+
+    public JwksKeySource(@Value("${app.google.jwks-url:https://www.googleapis.com/oauth2/v3/certs}") String url) {
+        this.url = new GenericUrl(url);
+        this.requestFactory = new NetHttpTransport().createRequestFactory();
+    }
+
+    @Override
+    public KeySet fetch() throws IOException, GeneralSecurityException {
+        HttpRequest request = requestFactory.buildGetRequest(url).setParser(parser);
+        HttpResponse response = request.execute();
+        try {
+            Jwks jwks = response.parseAs(Jwks.class);
+            KeyFactory rsa = KeyFactory.getInstance("RSA");
+            Map<String, PublicKey> keys = new HashMap<>();
+            if (jwks.keys != null) {
+                for (Jwk jwk : jwks.keys) {
+                    if ("RSA".equals(jwk.kty) && jwk.kid != null && jwk.n != null && jwk.e != null) {
+                        keys.put(jwk.kid, rsa.generatePublic(new RSAPublicKeySpec(unsigned(jwk.n), unsigned(jwk.e))));
+                    }
+                }
+            }
+            if (keys.isEmpty()) {
+                throw new IOException("No RSA keys in " + url);
+            }
+            return new KeySet(Map.copyOf(keys), maxAge(response.getHeaders()));
+        } finally {
+            response.disconnect();
+        }
+    }
+
+    static Duration maxAge(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl == null) {
+            return Duration.ZERO;
+        }
+        Matcher matcher = MAX_AGE.matcher(cacheControl);
+        if (!matcher.find()) {
+            return Duration.ZERO;
+        }
+        long seconds = Long.parseLong(matcher.group(1)) - (headers.getAge() == null ? 0 : headers.getAge());
+        return Duration.ofSeconds(Math.max(0, seconds));
+    }
+
+    private static BigInteger unsigned(String base64Url) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(base64Url));
+    }
+
+    public static class Jwks extends GenericJson {
+        @Key
+        public List<Jwk> keys;
+    }
+
+    public static class Jwk extends GenericJson {
+        @Key
+        public String kid;
+        @Key
+        public String kty;
+        @Key
+        public String n;
+        @Key
+        public String e;
+    }
+}
@@ -0,0 +1,167 @@
+package com.budgetwise.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt on a dedicated pool of one thread per core, so a burst of logins
+ * cannot take every CPU away from the request threads. Callers block until
+ * their hash is done; when queue-capacity hashes are already waiting, new
+ * ones are refused with RejectedExecutionException, which the API turns into
+ * 429 Too Many Requests.
+ *
+ * Unless a fixed strength is configured, the BCrypt cost is calibrated at
+ * startup to the highest cost between min-strength and max-strength whose
+ * hash takes no longer than target-time on this machine. Hashes stored with
+ * a lower cost report upgradeEncoding, and AuthService re-hashes them on the
+ * next successful login.
+ *
+ * Metrics: auth.password.hash{op=encode|matches} (time on the pool),
+ * auth.password.queue (gauge) and auth.password.rejected.
+ */
+@Component
+public class PooledPasswordEncoder implements PasswordEncoder {
+
+    private static final Logger log = LoggerFactory.getLogger(PooledPasswordEncoder.class);
+
+    private static final String CALIBRATION_PASSWORD = "calibration-Password-123";
+    private static final int CALIBRATION_RUNS = 3;
+
+    private final BCryptPasswordEncoder bcrypt;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTime;
+    private final Timer matchTime;
+    private final Counter rejected;
+
+    public PooledPasswordEncoder(MeterRegistry meterRegistry,
+            @Value("${app.security.bcrypt.strength:0}") int strength,
+            @Value("${app.security.bcrypt.target-time:250ms}") Duration targetTime,
+            @Value("${app.security.bcrypt.min-strength:10}") int minStrength,
+            @Value("${app.security.bcrypt.max-strength:14}") int maxStrength,
+            @Value("${app.security.bcrypt.threads:0}") int threads,
+            @Value("${app.security.bcrypt.queue-capacity:64}") int queueCapacity) {
+        this.strength = strength > 0 ? strength : calibrate(targetTime, minStrength, maxStrength);
+        this.bcrypt = new BCryptPasswordEncoder(this.strength);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("Password-Hasher-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.encodeTime = hashTimer(meterRegistry, "encode");
+        this.matchTime = hashTimer(meterRegistry, "matches");
+        this.rejected = Counter.builder("auth.password.rejected")
+                .description("Hashes refused because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+        log.info("BCrypt cost {} on {} hashing threads", this.strength, poolSize);
+    }
+
+    private static Timer hashTimer(MeterRegistry meterRegistry, String op) {
+        return Timer.builder("auth.password.hash").tag("op", op).publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The highest cost in [minStrength, maxStrength] whose hash is expected to
+     * take at most {@code targetTime}, from the median time at minStrength
+     * (each step up doubles the work). Never below minStrength.
+     */
+    public static int calibrate(Duration targetTime, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode(CALIBRATION_PASSWORD); // warm up
+        long[] runs = new long[CALIBRATION_RUNS];
+        for (int i = 0; i < runs.length; i++) {
+            long started = System.nanoTime();
+            probe.encode(CALIBRATION_PASSWORD);
+            runs[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(runs);
+        long nanos = runs[runs.length / 2];
+        int cost = minStrength;
+        while (cost < maxStrength && nanos * 2 <= targetTime.toNanos()) {
+            nanos *= 2;
+            cost++;
+        }
+        log.info("Calibrated BCrypt cost {}: about {} ms per hash (target {} ms)", cost, nanos / 1_000_000,
+                targetTime.toMillis());
+        return cost;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> bcrypt.encode(rawPassword), encodeTime);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        return run(() -> bcrypt.matches(rawPassword, encodedPassword), matchTime);
+    }
+
+    /** True for a BCrypt hash made with a lower cost than the current one. */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        try {
+            return bcrypt.upgradeEncoding(encodedPassword);
+        } catch (IllegalArgumentException e) {
+            // Not a BCrypt hash
+            return false;
+        }
+    }
+
+    private <T> T run(Callable<T> hash, Timer timer) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.recordCallable(hash));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new RejectedExecutionException("Too many sign-in requests right now, please try again shortly");
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,195 @@
+package com.budgetwise.service;
+
+/**
+ * Reflows flat model output so the chat window can show structured sections:
+ * a line break goes before every section emoji and bullet, trailing spaces
+ * and tabs are dropped, runs of blank lines collapse to one and the result
+ * is trimmed. Everything happens in one pass over the text into a single
+ * buffer; the output is the same as applying the individual replacements in
+ * turn.
+ *
+ * A streamed reply goes through a {@link Stream}, which gives the same
+ * result in pieces as tokens arrive.
+ */
+public final class AiResponseNormalizer {
+
+    private static final char BULLET = '\u2022'; // •
+
+    private AiResponseNormalizer() {
+    }
+
+    public static String normalize(String response) {
+        if (response == null) {
+            return "";
+        }
+        Stream stream = new Stream(response.length() + 16);
+        stream.scan(response, response.length());
+        return stream.out.finish();
+    }
+
+    /**
+     * Normalizes a reply that arrives in chunks. Each call returns the part
+     * of the output that later text can no longer change: everything except
+     * trailing whitespace and a last character that may start a marker.
+     * The concatenation of all returned pieces equals normalize() of the
+     * whole reply.
+     */
+    public static final class Stream {
+        private final Writer out;
+        private char pending; // held back until the next character is known
+        private int emitted;
+
+        public Stream() {
+            this(256);
+        }
+
+        private Stream(int capacity) {
+            out = new Writer(capacity);
+        }
+
+        public String accept(String chunk) {
+            String text = pending == 0 ? chunk : pending + chunk;
+            pending = 0;
+            scan(text, text.length() - 1);
+            return drain(committedLength());
+        }
+
+        public String finish() {
+            if (pending != 0) {
+                String last = String.valueOf(pending);
+                pending = 0;
+                scan(last, 1);
+            }
+            out.finish();
+            return drain(out.sb.length());
+        }
+
+        /** Writes text[0, end) using text[i + 1] as lookahead; a character left over at end is held back. */
+        private void scan(String text, int end) {
+            int length = text.length();
+            int i = 0;
+            while (i < end) {
+                char c = text.charAt(i);
+                char next = i + 1 < length ? text.charAt(i + 1) : 0;
+                if (Character.isHighSurrogate(c) && isEmojiMarker(Character.toCodePoint(c, next), next)) {
+                    out.put('\n');
+                    out.put(c);
+                    out.put(next);
+                    i += 2;
+                } else if (c == '\u26A0' && next == '\uFE0F') { // ⚠️
+                    out.put('\n');
+                    out.put(c);
+                    out.put(next);
+                    i += 2;
+                } else if (c == '\u2705') { // ✅
+                    out.put('\n');
+                    out.put(c);
+                    i++;
+                } else if ((c == ' ' || c == '\t') && next == BULLET) {
+                    out.put('\n'); // the blank before a bullet becomes its line break
+                    i++;
+                } else {
+                    out.put(c);
+                    i++;
+                }
+            }
+            if (i < length) {
+                pending = text.charAt(i);
+            }
+        }
+
+        /** Output up to the trailing whitespace, which a newline or the final trim may still take back. */
+        private int committedLength() {
+            int end = out.sb.length();
+            while (end > emitted && out.sb.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            return end;
+        }
+
+        private String drain(int end) {
+            if (end <= emitted) {
+                return "";
+            }
+            String piece = out.sb.substring(emitted, end);
+            emitted = end;
+            return piece;
+        }
+    }
+
+    private static boolean isEmojiMarker(int codePoint, char low) {
+        if (!Character.isLowSurrogate(low)) {
+            return false;
+        }
+        switch (codePoint) {
+            case 0x1F7E2: // 🟢
+            case 0x1F7E1: // 🟡
+            case 0x1F534: // 🔴
+            case 0x1F9E0: // 🧠
+            case 0x1F4CA: // 📊
+            case 0x1F3AF: // 🎯
+            case 0x1F4A1: // 💡
+            case 0x1F4CC: // 📌
+            case 0x1F50D: // 🔍
+            case 0x1F4B0: // 💰
+            case 0x1F4B8: // 💸
+            case 0x1F4B3: // 💳
+            case 0x1F4BC: // 💼
+            case 0x1F4B9: // 💹
+            case 0x1F4C8: // 📈
+            case 0x1F4C9: // 📉
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Output buffer that applies the whitespace rules as characters arrive:
+     * leading whitespace is skipped, a space/tab run is taken back when a
+     * newline follows it, and at most two newlines are kept in a row.
+     */
+    private static final class Writer {
+        private final StringBuilder sb;
+        private int blankRunStart = -1;
+        private int newlines;
+
+        Writer(int capacity) {
+            sb = new StringBuilder(capacity);
+        }
+
+        void put(char c) {
+            if (sb.length() == 0 && c <= ' ') {
+                return;
+            }
+            if (c == '\n') {
+                if (blankRunStart >= 0) {
+                    sb.setLength(blankRunStart);
+                    blankRunStart = -1;
+                }
+                if (newlines < 2) {
+                    sb.append('\n');
+                    newlines++;
+                }
+            } else if (c == ' ' || c == '\t') {
+                if (blankRunStart < 0) {
+                    blankRunStart = sb.length();
+                }
+                sb.append(c);
+            } else {
+                blankRunStart = -1;
+                newlines = 0;
+                sb.append(c);
+            }
+        }
+
+        String finish() {
+            int end = sb.length();
+            while (end > 0 && sb.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            sb.setLength(end);
+            return sb.toString();
+        }
+    }
+}
@@ -5,26 +5,26 @@ import com.budgetwise.model.entity.OtpToken;
 import com.budgetwise.model.entity.Role;
 import com.budgetwise.model.entity.User;
 import com.budgetwise.model.entity.UserRole;
-import com.budgetwise.repository.OtpTokenRepository;
 import com.budgetwise.repository.RoleRepository;
 import com.budgetwise.repository.UserRepository;
 import com.budgetwise.repository.UserRoleRepository;
+import com.budgetwise.security.GoogleTokenVerifier;
+import com.budgetwise.security.PrincipalCache;
 import com.budgetwise.util.JwtUtil;
 import com.budgetwise.util.OtpUtil;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
-import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
-import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
 
 import java.time.LocalDateTime;
-import java.util.Collections;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 @Transactional
@@ -33,37 +33,42 @@ public class AuthService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final UserRoleRepository userRoleRepository;
-    private final OtpTokenRepository otpTokenRepository;
+    private final OtpStore otpStore;
     private final EmailService emailService;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
-
-    @Value("${app.google.client-id}")
-    private String googleClientId;
+    private final PrincipalCache principalCache;
+    private final GoogleTokenVerifier googleTokenVerifier;
+    private final TransactionTemplate writeTransaction;
 
     public AuthService(UserRepository userRepository, RoleRepository roleRepository,
-            UserRoleRepository userRoleRepository, OtpTokenRepository otpTokenRepository,
-            EmailService emailService, PasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
+            UserRoleRepository userRoleRepository, OtpStore otpStore,
+            EmailService emailService, PasswordEncoder passwordEncoder, JwtUtil jwtUtil,
+            PrincipalCache principalCache, GoogleTokenVerifier googleTokenVerifier,
+            PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.userRoleRepository = userRoleRepository;
-        this.otpTokenRepository = otpTokenRepository;
+        this.otpStore = otpStore;
         this.emailService = emailService;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
+        this.principalCache = principalCache;
+        this.googleTokenVerifier = googleTokenVerifier;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
     }
 
+    /*
+     * Password hashing waits on PooledPasswordEncoder's queue, so sign-in runs
+     * without a transaction and only opens a short one for the write. Holding
+     * a pooled connection while waiting would let a login burst exhaust the
+     * connection pool long before the hashing queue fills up and sheds load.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String verifyGoogleTokenAndLogin(String googleTokenString) {
         try {
-            GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier.Builder(
-                    new NetHttpTransport(), new GsonFactory())
-                    .setAudience(Collections.singletonList(googleClientId))
-                    .build();
-
-            GoogleIdToken idToken = verifier.verify(googleTokenString);
-            if (idToken != null) {
-                GoogleIdToken.Payload payload = idToken.getPayload();
-
+            GoogleIdToken.Payload payload = googleTokenVerifier.verify(googleTokenString);
+            if (payload != null) {
                 String email = payload.getEmail();
                 String firstName = (String) payload.get("given_name");
                 String lastName = (String) payload.get("family_name");
@@ -85,6 +90,7 @@ public class AuthService {
                     }
                     if (updated) {
                         user = userRepository.save(user);
+                        principalCache.invalidate(email);
                     }
                 } else {
                     // Create new user for Google Sign-In
@@ -97,14 +103,8 @@ public class AuthService {
                     user.setLastName(lastName);
                     user.setEnabled(true);
 
-                    user = userRepository.save(user);
-
-                    Role userRole = roleRepository.findByName("USER")
-                            .orElseThrow(() -> new RuntimeException("USER role not found"));
-                    UserRole userRoleEntity = new UserRole();
-                    userRoleEntity.setUser(user);
-                    userRoleEntity.setRole(userRole);
-                    userRoleRepository.save(userRoleEntity);
+                    User newUser = user;
+                    user = writeTransaction.execute(status -> createWithUserRole(newUser));
                 }
 
                 // Generate native JWT token
@@ -112,11 +112,14 @@ public class AuthService {
             } else {
                 throw new RuntimeException("Invalid Google ID token.");
             }
+        } catch (RejectedExecutionException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Google authentication failed: " + e.getMessage(), e);
         }
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String loginUser(String email, String password) {
         try {
             // Find user by email
@@ -127,6 +130,12 @@ public class AuthService {
 
                 // Verify password
                 if (passwordEncoder.matches(password, user.getPassword())) {
+                    if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+                        // Stored with an older BCrypt cost, re-hash while we have the plain password
+                        user.setPassword(passwordEncoder.encode(password));
+                        user = userRepository.save(user);
+                        principalCache.invalidate(email);
+                    }
                     // Generate JWT token with full user info
                     return jwtUtil.generateToken(user);
                 } else {
@@ -135,6 +144,8 @@ public class AuthService {
             } else {
                 return null; // User not found
             }
+        } catch (RejectedExecutionException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("An error occurred while logging in", e);
         }
@@ -144,40 +155,41 @@ public class AuthService {
         // Generate OTP using new OTP generator
         String otp = com.budgetwise.util.OtpGenerator.generateOtp();
 
-        // Store OTP in database
-        OtpToken otpToken = new OtpToken();
-        otpToken.setEmail(request.getEmail());
-        otpToken.setOtp(otp);
-        otpToken.setPurpose(OtpToken.OtpPurpose.SIGNUP);
-        otpToken.setExpiryTime(LocalDateTime.now().plusMinutes(5));
-        otpToken.setVerified(false);
-        otpTokenRepository.save(otpToken);
-
-        // Send OTP email asynchronously (returns immediately)
-        emailService.sendOtpEmailAsync(request.getEmail(), otp, "SIGNUP");
+        // Store OTP, replacing any earlier one for this email
+        otpStore.issue(request.getEmail(), OtpToken.OtpPurpose.SIGNUP, otp, LocalDateTime.now().plusMinutes(5));
+
+        // Queue the OTP email; it goes out once this transaction commits
+        emailService.queueOtpEmail(request.getEmail(), otp, "SIGNUP");
     }
 
     public String verifySignupOtp(OtpVerification verification, SignupRequest signupRequest) {
-        // Verify OTP
-        OtpToken otpToken = verifyOtpToken(verification.getEmail(), verification.getOtp(), OtpToken.OtpPurpose.SIGNUP);
+        // Hash first: a busy hasher (429) must not use up the OTP, which an
+        // in-memory store would not restore on rollback
+        String encodedPassword = passwordEncoder.encode(signupRequest.getPassword());
 
-        // Mark OTP as verified
-        otpToken.setVerified(true);
-        otpTokenRepository.save(otpToken);
+        // Verify OTP and mark it as verified
+        verifyOtpToken(verification.getEmail(), verification.getOtp(), OtpToken.OtpPurpose.SIGNUP);
 
         // Create new user
         User user = new User();
         user.setEmail(signupRequest.getEmail());
-        user.setPassword(passwordEncoder.encode(signupRequest.getPassword()));
+        user.setPassword(encodedPassword);
         user.setFirstName(signupRequest.getFirstName());
         user.setLastName(signupRequest.getLastName());
         user.setDepartment(signupRequest.getDepartment());
         user.setGender(signupRequest.getGender());
         user.setEnabled(true);
 
+        User savedUser = createWithUserRole(user);
+
+        // Generate JWT token with full user info
+        return jwtUtil.generateToken(savedUser);
+    }
+
+    /** Saves a new user and assigns the USER role; the caller provides the transaction. */
+    private User createWithUserRole(User user) {
         User savedUser = userRepository.save(user);
 
-        // Assign USER role
         Role userRole = roleRepository.findByName("USER")
                 .orElseThrow(() -> new RuntimeException("USER role not found"));
 
@@ -186,9 +198,7 @@ public class AuthService {
         userRoleEntity.setRole(userRole);
 
         userRoleRepository.save(userRoleEntity);
-
-        // Generate JWT token with full user info
-        return jwtUtil.generateToken(savedUser);
+        return savedUser;
     }
 
     public void requestLoginOtp(OtpRequest request) {
@@ -198,31 +208,17 @@ public class AuthService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        // Clean up any existing unverified OTPs for this email and purpose
-        otpTokenRepository.deleteByEmailAndPurpose(email, OtpToken.OtpPurpose.LOGIN);
-
-        // Generate and save new OTP
+        // Generate and store a new OTP, replacing any earlier one for this email and purpose
         String otp = OtpUtil.generateOtp();
-        OtpToken otpToken = new OtpToken();
-        otpToken.setEmail(email);
-        otpToken.setOtp(otp);
-        otpToken.setExpiryTime(OtpUtil.calculateExpiryTime());
-        otpToken.setPurpose(OtpToken.OtpPurpose.LOGIN);
-        otpToken.setVerified(false);
+        otpStore.issue(email, OtpToken.OtpPurpose.LOGIN, otp, OtpUtil.calculateExpiryTime());
 
-        otpTokenRepository.save(otpToken);
-
-        // Send OTP email asynchronously (returns immediately)
-        emailService.sendOtpEmailAsync(email, otp, "LOGIN");
+        // Queue the OTP email; it goes out once this transaction commits
+        emailService.queueOtpEmail(email, otp, "LOGIN");
     }
 
     public String verifyLoginOtp(OtpVerification verification) {
-        // Verify OTP
-        OtpToken otpToken = verifyOtpToken(verification.getEmail(), verification.getOtp(), OtpToken.OtpPurpose.LOGIN);
-
-        // Mark OTP as verified
-        otpToken.setVerified(true);
-        otpTokenRepository.save(otpToken);
+        // Verify OTP and mark it as verified
+        verifyOtpToken(verification.getEmail(), verification.getOtp(), OtpToken.OtpPurpose.LOGIN);
 
         // Generate JWT token with full user info
         User user = userRepository.findByEmail(verification.getEmail())
@@ -237,32 +233,17 @@ public class AuthService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        // Clean up any existing unverified OTPs for this email and purpose
-        otpTokenRepository.deleteByEmailAndPurpose(email, OtpToken.OtpPurpose.RESET_PASSWORD);
-
-        // Generate and save new OTP
+        // Generate and store a new OTP, replacing any earlier one for this email and purpose
         String otp = OtpUtil.generateOtp();
-        OtpToken otpToken = new OtpToken();
-        otpToken.setEmail(email);
-        otpToken.setOtp(otp);
-        otpToken.setExpiryTime(OtpUtil.calculateExpiryTime());
-        otpToken.setPurpose(OtpToken.OtpPurpose.RESET_PASSWORD);
-        otpToken.setVerified(false);
-
-        otpTokenRepository.save(otpToken);
+        otpStore.issue(email, OtpToken.OtpPurpose.RESET_PASSWORD, otp, OtpUtil.calculateExpiryTime());
 
-        // Send OTP email asynchronously (returns immediately)
-        emailService.sendOtpEmailAsync(email, otp, "RESET_PASSWORD");
+        // Queue the OTP email; it goes out once this transaction commits
+        emailService.queueOtpEmail(email, otp, "RESET_PASSWORD");
     }
 
     public String verifyForgotPasswordOtp(OtpVerification verification) {
-        // Verify OTP
-        OtpToken otpToken = verifyOtpToken(verification.getEmail(), verification.getOtp(),
-                OtpToken.OtpPurpose.RESET_PASSWORD);
-
-        // Mark OTP as verified
-        otpToken.setVerified(true);
-        otpTokenRepository.save(otpToken);
+        // Verify OTP and mark it as verified
+        verifyOtpToken(verification.getEmail(), verification.getOtp(), OtpToken.OtpPurpose.RESET_PASSWORD);
 
         // Return a temporary token for password reset
         User user = userRepository.findByEmail(verification.getEmail())
@@ -274,9 +255,7 @@ public class AuthService {
         String email = passwordReset.getEmail();
 
         // Check if there's a verified OTP for password reset
-        Optional<OtpToken> otpTokenOpt = otpTokenRepository.findByEmailAndPurposeAndVerifiedTrue(email,
-                OtpToken.OtpPurpose.RESET_PASSWORD);
-        if (otpTokenOpt.isEmpty()) {
+        if (!otpStore.isVerified(email, OtpToken.OtpPurpose.RESET_PASSWORD)) {
             throw new RuntimeException("No valid password reset request found");
         }
 
@@ -286,34 +265,27 @@ public class AuthService {
 
         user.setPassword(passwordEncoder.encode(passwordReset.getNewPassword()));
         userRepository.save(user);
+        principalCache.invalidate(email);
 
         // Clean up OTP tokens for this user
-        otpTokenRepository.deleteByEmailAndPurpose(email, OtpToken.OtpPurpose.RESET_PASSWORD);
+        otpStore.remove(email, OtpToken.OtpPurpose.RESET_PASSWORD);
     }
 
-    private OtpToken verifyOtpToken(String email, String otp, OtpToken.OtpPurpose purpose) {
-        Optional<OtpToken> otpTokenOpt = otpTokenRepository.findValidOtp(email, otp, purpose, LocalDateTime.now());
-
-        if (otpTokenOpt.isEmpty()) {
+    private void verifyOtpToken(String email, String otp, OtpToken.OtpPurpose purpose) {
+        if (!otpStore.verify(email, purpose, otp)) {
             throw new RuntimeException("Invalid or expired OTP");
         }
-
-        return otpTokenOpt.get();
     }
 
     public boolean validateToken(String token) {
         try {
-            String email = JwtUtil.extractEmail(token);
+            // Parsing verifies signature and expiry
+            String email = jwtUtil.extractEmail(token);
             if (email == null) {
                 return false;
             }
 
-            Optional<User> userOpt = userRepository.findByEmail(email);
-            if (userOpt.isEmpty()) {
-                return false;
-            }
-
-            return JwtUtil.validateToken(token, email);
+            return userRepository.existsByEmail(email);
         } catch (Exception e) {
             return false;
         }
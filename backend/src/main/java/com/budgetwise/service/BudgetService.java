@@ -1,6 +1,7 @@
 package com.budgetwise.service;
 
 import com.budgetwise.dto.BudgetRequest;
+import com.budgetwise.model.dto.CategorySpend;
 import com.budgetwise.model.entity.Budget;
 import com.budgetwise.model.entity.Category;
 import com.budgetwise.model.entity.Transaction;
@@ -15,6 +16,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.*;
 
 @Service
@@ -25,13 +27,16 @@ public class BudgetService {
     private final CategoryRepository categoryRepository;
     private final TransactionRepository transactionRepository;
     private final UserRepository userRepository;
+    private final FinancialContextCache financialContextCache;
 
     public BudgetService(BudgetRepository budgetRepository, CategoryRepository categoryRepository,
-            TransactionRepository transactionRepository, UserRepository userRepository) {
+            TransactionRepository transactionRepository, UserRepository userRepository,
+            FinancialContextCache financialContextCache) {
         this.budgetRepository = budgetRepository;
         this.categoryRepository = categoryRepository;
         this.transactionRepository = transactionRepository;
         this.userRepository = userRepository;
+        this.financialContextCache = financialContextCache;
     }
 
     public List<Budget> getBudgetsForMonth(String email, Integer month, Integer year) {
@@ -71,7 +76,9 @@ public class BudgetService {
             budget.setYear(request.getYear());
         }
 
-        return budgetRepository.save(budget);
+        Budget saved = budgetRepository.save(budget);
+        financialContextCache.invalidate(user.getId());
+        return saved;
     }
 
     public void deleteBudget(String email, Long budgetId) {
@@ -84,31 +91,40 @@ public class BudgetService {
         }
 
         budgetRepository.delete(budget);
+        financialContextCache.invalidate(user.getId());
     }
 
     /**
      * Returns budget status with spending amounts for the current month
      */
     public List<Map<String, Object>> getBudgetStatus(String email) {
+        return getBudgetStatus(email, null, null);
+    }
+
+    /**
+     * Returns budget status for the given month (defaults to the current one).
+     * Spending comes from a single grouped query over that month only.
+     */
+    public List<Map<String, Object>> getBudgetStatus(String email, Integer month, Integer year) {
         User user = getUserByEmail(email);
         LocalDate now = LocalDate.now();
-        int month = now.getMonthValue();
-        int year = now.getYear();
-
-        List<Budget> budgets = budgetRepository.findByUserAndMonthAndYear(user, month, year);
-        List<Transaction> transactions = transactionRepository.findByUser(user);
-
-        // Filter transactions for current month expenses only
-        List<Transaction> monthlyExpenses = transactions.stream()
-                .filter(tx -> {
-                    if (tx.getTransactionDate() == null)
-                        return false;
-                    LocalDate txDate = tx.getTransactionDate().toLocalDate();
-                    return txDate.getMonthValue() == month &&
-                            txDate.getYear() == year &&
-                            "EXPENSE".equals(tx.getType().name());
-                })
-                .toList();
+        YearMonth period = YearMonth.of(year != null ? year : now.getYear(),
+                month != null ? month : now.getMonthValue());
+
+        List<Budget> budgets = budgetRepository.findWithCategoryByUserIdAndMonthAndYear(user.getId(),
+                period.getMonthValue(), period.getYear());
+        if (budgets.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, BigDecimal> spentByCategory = new HashMap<>();
+        BigDecimal totalSpent = BigDecimal.ZERO;
+        for (CategorySpend row : transactionRepository.sumByCategoryInRange(user.getId(),
+                Transaction.TransactionType.EXPENSE, period.atDay(1).atStartOfDay(),
+                period.plusMonths(1).atDay(1).atStartOfDay())) {
+            spentByCategory.put(row.getCategoryId(), row.getTotal());
+            totalSpent = totalSpent.add(row.getTotal());
+        }
 
         List<Map<String, Object>> result = new ArrayList<>();
 
@@ -125,19 +141,13 @@ public class BudgetService {
                 status.put("categoryId", budget.getCategory().getId());
                 status.put("categoryName", budget.getCategory().getName());
 
-                spent = monthlyExpenses.stream()
-                        .filter(tx -> tx.getCategory() != null &&
-                                tx.getCategory().getId().equals(budget.getCategory().getId()))
-                        .map(Transaction::getAmount)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                spent = spentByCategory.getOrDefault(budget.getCategory().getId(), BigDecimal.ZERO);
             } else {
                 // Total budget
                 status.put("categoryId", null);
                 status.put("categoryName", "Total");
 
-                spent = monthlyExpenses.stream()
-                        .map(Transaction::getAmount)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                spent = totalSpent;
             }
 
             status.put("spent", spent);
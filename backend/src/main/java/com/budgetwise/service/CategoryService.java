@@ -3,6 +3,7 @@ package com.budgetwise.service;
 import com.budgetwise.dto.CategoryRequest;
 import com.budgetwise.model.entity.Category;
 import com.budgetwise.repository.CategoryRepository;
+import com.budgetwise.repository.UserMonthCategoryRollupRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,9 +15,14 @@ import java.util.Optional;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final UserMonthCategoryRollupRepository rollupRepository;
+    private final FinancialContextCache financialContextCache;
 
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository,
+            UserMonthCategoryRollupRepository rollupRepository, FinancialContextCache financialContextCache) {
         this.categoryRepository = categoryRepository;
+        this.rollupRepository = rollupRepository;
+        this.financialContextCache = financialContextCache;
     }
 
     public List<Category> getAllCategories() {
@@ -59,11 +65,17 @@ public class CategoryService {
             category.setColor(request.getColor());
         }
 
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        // Category names appear in every user's budget section
+        financialContextCache.invalidateAll();
+        return saved;
     }
 
     public void deleteCategory(Long id) {
         Category category = getCategoryById(id);
+        // Transactions cascade with the category, so their rollup buckets go too
+        rollupRepository.deleteByCategoryId(id);
         categoryRepository.delete(category);
+        financialContextCache.invalidateAll();
     }
 }
@@ -0,0 +1,18 @@
+package com.budgetwise.service;
+
+/**
+ * What a chat message is asking for. When keyword scores tie, the intent
+ * declared first wins.
+ */
+public enum ChatIntent {
+    /** Over-limit or near-limit budgets. */
+    BUDGET_ALERTS,
+    /** Current balance. */
+    BALANCE,
+    /** Tips, suggestions, investing. */
+    ADVICE,
+    /** Spending by category; the full visualization card. */
+    BREAKDOWN,
+    /** Anything else; answered by the model. */
+    CASUAL
+}
@@ -1,274 +1,413 @@
 package com.budgetwise.service;
 
+import com.budgetwise.model.dto.ChatReply;
+import com.budgetwise.model.dto.SpendingCard;
+import com.budgetwise.model.dto.TransactionListItemDTO;
 import com.budgetwise.model.entity.Transaction;
 import com.budgetwise.model.entity.User;
 import com.budgetwise.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.text.NumberFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class ChatService {
 
+    // Order of the per-stage timings reported with a visualization card
+    private static final List<String> CARD_STAGES = List.of(
+            "totals", "categories", "budgets", "suggestions", "render", "total");
+
     private final TransactionService transactionService;
     private final BudgetService budgetService;
     private final UserRepository userRepository;
     private final LLMService llmService;
+    private final LLMResponseCache llmResponseCache;
+    private final LLMStreamingService llmStreamingService;
+    private final Executor taskExecutor;
+    private final Executor chatExecutor;
+    private final FinancialContextCache financialContextCache;
+    private final ConversationMemory conversationMemory;
+    private final int contextTokenBudget;
+    private final IntentRouter intentRouter = new IntentRouter();
+    private final SpendingCardRenderer cardRenderer = new SpendingCardRenderer();
 
     public ChatService(TransactionService transactionService, BudgetService budgetService,
-            UserRepository userRepository, LLMService llmService) {
+            UserRepository userRepository, LLMService llmService, LLMResponseCache llmResponseCache,
+            LLMStreamingService llmStreamingService,
+            @Qualifier("taskExecutor") Executor taskExecutor, @Qualifier("chatExecutor") Executor chatExecutor,
+            FinancialContextCache financialContextCache, ConversationMemory conversationMemory,
+            @Value("${app.chat.prompt.context-tokens:400}") int contextTokenBudget) {
         this.transactionService = transactionService;
         this.budgetService = budgetService;
         this.userRepository = userRepository;
         this.llmService = llmService;
+        this.llmResponseCache = llmResponseCache;
+        this.llmStreamingService = llmStreamingService;
+        this.taskExecutor = taskExecutor;
+        this.chatExecutor = chatExecutor;
+        this.financialContextCache = financialContextCache;
+        this.conversationMemory = conversationMemory;
+        this.contextTokenBudget = contextTokenBudget;
     }
 
     public String processMessage(String message, String email) {
+        return reply(message, email).getResponse();
+    }
+
+    /** Same as processMessage, with per-stage timings for financial queries. */
+    public ChatReply reply(String message, String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         Long userId = user.getId();
 
-        // Route: financial query → rich Java visualization + AI suggestions
-        // casual message → AI conversational reply
-        if (isFinancialQuery(message)) {
-            return buildSpendingVisualization(userId, email);
+        ChatIntent intent = intentRouter.classify(message);
+        if (intent != ChatIntent.CASUAL) {
+            ChatReply reply = handle(intent, message, userId, email);
+            conversationMemory.record(userId, message, reply.getResponse());
+            return reply;
         }
 
-        // Casual / general question — let AI answer naturally
-        String financialContext = buildFinancialContext(userId, email);
-        String systemPrompt = "You are BudgetWise AI, a friendly financial assistant. "
-                + "Answer the user's question naturally and briefly (1-3 sentences). "
-                + "Only use the financial data below if directly relevant.\n\n"
-                + "User Financial Data:\n" + financialContext;
-
-        String aiResponse = llmService.getChatResponse(systemPrompt, message);
-        if (aiResponse.startsWith("Error") || aiResponse.contains("Configuration Error")) {
-            return processMessageFallback(message, userId, email);
+        // Casual / general question — let AI answer naturally, with the recent conversation
+        LLMResult aiResponse = llmService.getChatResponse(
+                conversationMemory.messages(userId, buildChatSystemPrompt(userId, email), message));
+        if (!aiResponse.isSuccess()) {
+            return new ChatReply(processMessageFallback(message, userId, email), Map.of());
         }
-        return aiResponse;
+        String text = AiResponseNormalizer.normalize(aiResponse.getText());
+        conversationMemory.record(userId, message, text);
+        return new ChatReply(text, Map.of());
     }
 
-    /** Returns true if the message is asking about finances / spending. */
-    private boolean isFinancialQuery(String msg) {
-        String m = msg.toLowerCase();
-        return m.contains("spend") || m.contains("budget") || m.contains("income")
-                || m.contains("expense") || m.contains("saving") || m.contains("analys")
-                || m.contains("financ") || m.contains("money") || m.contains("balance")
-                || m.contains("transaction") || m.contains("invest") || m.contains("summary")
-                || m.contains("breakdown") || m.contains("report") || m.contains("how much")
-                || m.contains("overview") || m.contains("spend") || m.contains("tip")
-                || m.contains("suggestion") || m.contains("advice") || m.contains("₹")
-                || m.contains("rs.") || m.contains("rupee");
+    /** Forgets the user's conversation, so the next question starts fresh. */
+    public void clearHistory(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        conversationMemory.clear(user.getId());
     }
 
-    /** Builds the full rich visualization card from real financial data. */
-    private String buildSpendingVisualization(Long userId, String email) {
-        BigDecimal income = transactionService.getTotalIncome(userId);
-        BigDecimal expenses = transactionService.getTotalExpenses(userId);
-        income = income != null ? income : BigDecimal.ZERO;
-        expenses = expenses != null ? expenses : BigDecimal.ZERO;
-        BigDecimal savings = income.subtract(expenses);
-
-        double savingsRate = income.compareTo(BigDecimal.ZERO) > 0
-                ? savings.divide(income, 4, RoundingMode.HALF_UP).doubleValue() * 100
-                : 0;
+    /**
+     * Streaming variant of processMessage for /api/chat/stream. Conversational
+     * replies are forwarded as tokens arrive, reflowed by AiResponseNormalizer
+     * the same way as in reply; other intents are answered off the
+     * request thread by their handler and sent as one chunk. Completed replies
+     * are added to the conversation memory as in reply.
+     * If the model fails before sending anything, the rule-based fallback is
+     * sent instead.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the streaming
+     *                                                         client is at capacity
+     */
+    public CompletableFuture<Void> streamMessage(String message, String email, Consumer<String> onChunk) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Long userId = user.getId();
 
-        String healthEmoji, healthLabel;
-        if (savingsRate >= 50) {
-            healthEmoji = "\uD83D\uDFE2";
-            healthLabel = "Excellent";
-        } else if (savingsRate >= 20) {
-            healthEmoji = "\uD83D\uDFE1";
-            healthLabel = "Moderate";
-        } else {
-            healthEmoji = "\uD83D\uDD34";
-            healthLabel = "At Risk";
+        ChatIntent intent = intentRouter.classify(message);
+        if (intent != ChatIntent.CASUAL) {
+            return CompletableFuture.runAsync(() -> {
+                String text = handle(intent, message, userId, email).getResponse();
+                onChunk.accept(text);
+                conversationMemory.record(userId, message, text);
+            }, taskExecutor);
         }
 
-        NumberFormat nf = NumberFormat.getNumberInstance(new Locale("en", "IN"));
-        nf.setMaximumFractionDigits(0);
-
-        // Spending breakdown by category
-        List<Transaction> txs = transactionService.getUserTransactions(userId);
-        Map<String, BigDecimal> catSpend = new LinkedHashMap<>();
-        for (Transaction tx : txs) {
-            if ("EXPENSE".equalsIgnoreCase(tx.getType().name())) {
-                String cat = tx.getCategory() != null ? tx.getCategory().getName() : tx.getDescription();
-                catSpend.merge(cat, tx.getAmount(), BigDecimal::add);
+        AtomicBoolean streamed = new AtomicBoolean();
+        // Tokens arrive one at a time, in order
+        StringBuilder text = new StringBuilder();
+        AiResponseNormalizer.Stream normalizer = new AiResponseNormalizer.Stream();
+        Consumer<String> send = piece -> {
+            if (!piece.isEmpty()) {
+                text.append(piece);
+                onChunk.accept(piece);
+            }
+        };
+        CompletableFuture<Void> upstream = llmStreamingService.streamChatResponse(
+                conversationMemory.messages(userId, buildChatSystemPrompt(userId, email), message), token -> {
+                    streamed.set(true);
+                    send.accept(normalizer.accept(token));
+                });
+        // Completes on an HttpClient or stream-timeout thread; the fallback queries the database, so move off it
+        CompletableFuture<Void> reply = upstream.handleAsync((v, error) -> {
+            if (error == null) {
+                send.accept(normalizer.finish());
+                conversationMemory.record(userId, message, text.toString());
+            } else {
+                if (streamed.get()) {
+                    throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+                }
+                onChunk.accept(processMessageFallback(message, userId, email));
             }
+            return null;
+        }, taskExecutor);
+        // Cancelling the reply (client went away) has to abort the model request
+        reply.whenComplete((v, error) -> upstream.cancel(true));
+        return reply;
+    }
+
+    private String buildChatSystemPrompt(Long userId, String email) {
+        String financialContext = financialContext(userId, email);
+        return "You are BudgetWise AI, a friendly financial assistant. "
+                + "Answer the user's question naturally and briefly (1-3 sentences). "
+                + "Only use the financial data below if directly relevant.\n\n"
+                + "User Financial Data:\n" + financialContext;
+    }
+
+    private ChatReply handle(ChatIntent intent, String message, Long userId, String email) {
+        switch (intent) {
+            case BALANCE:
+                return new ChatReply(answerBalance(message, userId, email), Map.of());
+            case BUDGET_ALERTS:
+                return new ChatReply(buildBudgetAlerts(email), Map.of());
+            case ADVICE:
+                return new ChatReply(buildAdvice(userId), Map.of());
+            default:
+                return buildSpendingVisualization(userId, email);
         }
-        // Sort descending by amount
-        List<Map.Entry<String, BigDecimal>> sorted = catSpend.entrySet().stream()
-                .sorted(Map.Entry.<String, BigDecimal>comparingByValue().reversed())
-                .collect(Collectors.toList());
+    }
 
-        // Build response
-        StringBuilder sb = new StringBuilder();
-        sb.append("----------------------------------\n");
-        sb.append(healthEmoji).append(" Financial Health: ").append(healthLabel).append("\n");
-        sb.append("----------------------------------\n");
-        sb.append("\n");
-        sb.append("\uD83D\uDCB0 Income:   \u20B9").append(nf.format(income)).append("\n");
-        sb.append("\uD83D\uDCB8 Expenses: \u20B9").append(nf.format(expenses)).append("\n");
-        sb.append("\uD83D\uDCB5 Savings:  \u20B9").append(nf.format(savings))
-                .append("  (").append(String.format("%.0f", savingsRate)).append("%)\n");
-
-        if (!sorted.isEmpty()) {
-            sb.append("\n");
-            sb.append("\uD83D\uDCCA Spending Breakdown\n");
-            int maxNameLen = sorted.stream().mapToInt(e -> e.getKey().length()).max().orElse(10);
-            for (Map.Entry<String, BigDecimal> e : sorted) {
-                double pct = expenses.compareTo(BigDecimal.ZERO) > 0
-                        ? e.getValue().divide(expenses, 4, RoundingMode.HALF_UP).doubleValue() * 100
-                        : 0;
-                int bars = (int) Math.round(pct / 5.0); // each █ = 5%
-                String bar = "\u2588".repeat(Math.max(1, bars));
-                String name = String.format("%-" + maxNameLen + "s", e.getKey());
-                sb.append(name).append("  ").append(bar)
-                        .append(" ").append(String.format("%.0f", pct)).append("%\n");
-            }
+    /** The model phrases the answer around exact figures; the rule-based reply covers failures. */
+    private String answerBalance(String message, Long userId, String email) {
+        Map<Transaction.TransactionType, BigDecimal> totals = transactionService.getTotalsByType(userId);
+        BigDecimal income = totals.getOrDefault(Transaction.TransactionType.INCOME, BigDecimal.ZERO);
+        BigDecimal expenses = totals.getOrDefault(Transaction.TransactionType.EXPENSE, BigDecimal.ZERO);
+        NumberFormat nf = rupeeFormat();
+
+        String systemPrompt = "You are BudgetWise AI, a friendly financial assistant. "
+                + "Answer the user's question about their balance in 1-2 sentences, using these exact figures:\n"
+                + "Current Balance: ₹" + nf.format(income.subtract(expenses)) + "\n"
+                + "Total Income: ₹" + nf.format(income) + "\n"
+                + "Total Expenses: ₹" + nf.format(expenses);
+        LLMResult result = llmService.getChatResponse(systemPrompt, message);
+        return result.isSuccess() ? AiResponseNormalizer.normalize(result.getText())
+                : processMessageFallback(message, userId, email);
+    }
+
+    private String buildBudgetAlerts(String email) {
+        List<Map<String, Object>> budgets = new ArrayList<>(budgetService.getBudgetStatus(email));
+        if (budgets.isEmpty()) {
+            return "No budgets set for this month. Add one on the Budgets page to get alerts.";
         }
+        budgets.sort(Comparator.comparingInt(b -> budgetUrgency(String.valueOf(b.get("status")))));
+        NumberFormat nf = rupeeFormat();
 
-        // Budget alerts
-        List<Map<String, Object>> budgets = budgetService.getBudgetStatus(email);
-        List<String> alerts = new ArrayList<>();
+        StringBuilder sb = new StringBuilder("\u26A0\uFE0F Budget Alerts\n");
+        int flagged = 0;
         for (Map<String, Object> b : budgets) {
-            if ("over".equalsIgnoreCase(String.valueOf(b.get("status")))) {
-                alerts.add(b.get("categoryName") + " budget exceeded");
+            String status = String.valueOf(b.get("status"));
+            if (budgetUrgency(status) > 1) {
+                continue;
             }
+            flagged++;
+            sb.append("over".equals(status) ? "\uD83D\uDD34 " : "\uD83D\uDFE1 ")
+                    .append(b.get("categoryName")).append(": \u20B9").append(nf.format(b.get("spent")))
+                    .append(" of \u20B9").append(nf.format(b.get("limitAmount")))
+                    .append(" (").append(nf.format(b.get("percentage"))).append("%)\n");
         }
-        sb.append("\n");
-        sb.append("\u26A0\uFE0F Alerts\n");
-        if (alerts.isEmpty()) {
+        if (flagged == 0) {
             sb.append("No budget alerts — you're on track!\n");
-        } else {
-            alerts.forEach(a -> sb.append("• ").append(a).append("\n"));
         }
+        return sb.toString();
+    }
+
+    private String buildAdvice(Long userId) {
+        Map<Transaction.TransactionType, BigDecimal> totals = transactionService.getTotalsByType(userId);
+        BigDecimal income = totals.getOrDefault(Transaction.TransactionType.INCOME, BigDecimal.ZERO);
+        BigDecimal expenses = totals.getOrDefault(Transaction.TransactionType.EXPENSE, BigDecimal.ZERO);
+        StringBuilder sb = new StringBuilder("\uD83C\uDFAF AI Suggestions\n");
+        SpendingCardRenderer.appendBullets(sb,
+                fetchSuggestions(income, expenses, savingsRate(income, expenses), sortedCategorySpend(userId)));
+        return sb.toString();
+    }
+
+    private static double savingsRate(BigDecimal income, BigDecimal expenses) {
+        return income.compareTo(BigDecimal.ZERO) > 0
+                ? income.subtract(expenses).divide(income, 4, RoundingMode.HALF_UP).doubleValue() * 100
+                : 0;
+    }
+
+    private static NumberFormat rupeeFormat() {
+        return SpendingCardRenderer.amountFormat(SpendingCardRenderer.DEFAULT_LOCALE);
+    }
+
+    /**
+     * Builds the full rich visualization card from real financial data. The
+     * totals, category breakdown and budget status are independent reads, so
+     * they run concurrently on the chat executor. The AI suggestion call only
+     * needs totals and categories and starts as soon as those two are in,
+     * overlapping the budget read.
+     */
+    private ChatReply buildSpendingVisualization(Long userId, String email) {
+        long started = System.nanoTime();
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+
+        CompletableFuture<Map<Transaction.TransactionType, BigDecimal>> totalsFuture = timedAsync("totals", timings,
+                () -> transactionService.getTotalsByType(userId));
+        CompletableFuture<List<Map.Entry<String, BigDecimal>>> categoriesFuture = timedAsync("categories",
+                timings, () -> sortedCategorySpend(userId));
+        CompletableFuture<List<Map<String, Object>>> budgetsFuture = timedAsync("budgets", timings,
+                () -> budgetService.getBudgetStatus(email));
+
+        Map<Transaction.TransactionType, BigDecimal> totals = await(totalsFuture);
+        BigDecimal income = totals.getOrDefault(Transaction.TransactionType.INCOME, BigDecimal.ZERO);
+        BigDecimal expenses = totals.getOrDefault(Transaction.TransactionType.EXPENSE, BigDecimal.ZERO);
+
+        List<Map.Entry<String, BigDecimal>> sorted = await(categoriesFuture);
+
+        // Runs on this thread, which would otherwise just wait for the budgets
+        long suggestionsStarted = System.nanoTime();
+        List<String> suggestions = fetchSuggestions(income, expenses, savingsRate(income, expenses), sorted);
+        timings.put("suggestions", elapsedMillis(suggestionsStarted));
+
+        List<Map<String, Object>> budgets = await(budgetsFuture);
+
+        long renderStarted = System.nanoTime();
+        SpendingCard card = cardRenderer.toCard(income, expenses, sorted, budgets, suggestions);
+        String text = cardRenderer.render(card);
+        timings.put("render", elapsedMillis(renderStarted));
+        timings.put("total", elapsedMillis(started));
+
+        Map<String, Long> ordered = new LinkedHashMap<>();
+        for (String stage : CARD_STAGES) {
+            ordered.put(stage, timings.get(stage));
+        }
+        return new ChatReply(text, ordered, card);
+    }
+
+    /** Expense totals per category, largest first, from the rollup. */
+    private List<Map.Entry<String, BigDecimal>> sortedCategorySpend(Long userId) {
+        Map<String, BigDecimal> catSpend = new LinkedHashMap<>();
+        for (Map<String, Object> row : transactionService.getCategoryExpenseSummary(userId)) {
+            catSpend.merge(String.valueOf(row.get("name")), (BigDecimal) row.get("value"), BigDecimal::add);
+        }
+        return catSpend.entrySet().stream()
+                .sorted(Map.Entry.<String, BigDecimal>comparingByValue().reversed())
+                .collect(Collectors.toList());
+    }
 
-        // AI suggestions (short, focused)
+    /** AI suggestions (short, focused), with canned bullets if the model is unavailable. */
+    private List<String> fetchSuggestions(BigDecimal income, BigDecimal expenses, double savingsRate,
+            List<Map.Entry<String, BigDecimal>> sorted) {
         String suggestionPrompt = "You are a concise financial advisor. Give exactly 3 short bullet suggestions "
                 + "(starting with •) based on this data. No headers, no greetings, just 3 bullets:\n"
-                + "Income: ₹" + nf.format(income) + ", Expenses: ₹" + nf.format(expenses)
+                + "Income: ₹" + PromptBuilder.compact(income) + ", Expenses: ₹" + PromptBuilder.compact(expenses)
                 + ", Savings rate: " + String.format("%.0f", savingsRate) + "%\n"
                 + "Top spending: "
-                + (sorted.isEmpty() ? "none" : sorted.get(0).getKey() + " ₹" + nf.format(sorted.get(0).getValue()));
+                + (sorted.isEmpty() ? "none"
+                        : sorted.get(0).getKey() + " ₹" + PromptBuilder.compact(sorted.get(0).getValue()));
 
-        sb.append("\n");
-        sb.append("\uD83C\uDFAF AI Suggestions\n");
         try {
-            String suggestions = llmService.getChatResponse(suggestionPrompt, "Give 3 bullet suggestions.");
-            if (!suggestions.startsWith("Error")) {
-                // Normalize bullets
-                suggestions = suggestions.replaceAll("(?m)^[-*]\\s", "• ");
-                sb.append(suggestions.trim()).append("\n");
-            } else {
-                sb.append("• Automate your savings each month\n");
-                sb.append("• Review subscriptions for unused services\n");
-                sb.append("• Build a 3-month emergency fund\n");
+            LLMResult result = llmResponseCache.getChatResponse(suggestionPrompt, "Give 3 bullet suggestions.");
+            if (result.isSuccess()) {
+                List<String> bullets = SpendingCardRenderer.bulletLines(result.getText());
+                if (!bullets.isEmpty()) {
+                    return bullets;
+                }
             }
+            return List.of("Automate your savings each month",
+                    "Review subscriptions for unused services",
+                    "Build a 3-month emergency fund");
         } catch (Exception e) {
-            sb.append("• Automate your savings each month\n");
+            return List.of("Automate your savings each month");
         }
-
-        return sb.toString();
     }
 
-    /** Builds a bar string: each █ block represents ~5% */
-    @SuppressWarnings("unused")
-    private String buildBar(double pct, int maxLen) {
-        int filled = (int) Math.round(pct / 100.0 * maxLen);
-        return "\u2588".repeat(filled) + "\u2591".repeat(maxLen - filled);
+    private <T> CompletableFuture<T> timedAsync(String stage, Map<String, Long> timings, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            long started = System.nanoTime();
+            try {
+                return task.get();
+            } finally {
+                timings.put(stage, elapsedMillis(started));
+            }
+        }, chatExecutor);
     }
 
-    public String generateInsights(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Long userId = user.getId();
-
-        String financialContext = buildFinancialContext(userId, email);
-
-        String systemPrompt = "You are an AI financial analyst. Analyze the user's financial data below and provide 4-6 short, actionable insights. "
-                +
-                "Return the response strictly as a valid JSON array of objects. Do not include markdown formatting. " +
-                "Each object must have the following fields:\n" +
-                "- type: One of ['Spending Alert', 'Savings Opportunity', 'Positive Trend', 'Investment Tip', 'Goal Progress', 'Smart Suggestion']\n"
-                +
-                "- title: A short, catchy title (max 5 words)\n" +
-                "- description: A clear 1-2 sentence explanation\n" +
-                "- sentiment: One of ['positive', 'negative', 'neutral'] (used for UI coloring)\n\n" +
-                "User Data:\n" + financialContext;
-
-        String response = llmService.getChatResponse(systemPrompt, "Generate financial insights JSON.");
-
-        if (response.startsWith("Error") || response.startsWith("Configuration Error")) {
-            return "[\n" +
-                    "  {\n" +
-                    "    \"type\": \"System Alert\",\n" +
-                    "    \"title\": \"AI Insights Unavailable\",\n" +
-                    "    \"description\": \"We couldn't generate personalized insights right now. Please check your API key or try again later.\",\n"
-                    +
-                    "    \"sentiment\": \"negative\"\n" +
-                    "  }\n" +
-                    "]";
+    /** Joins a stage, rethrowing its own exception rather than the CompletionException wrapper. */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
+    }
 
-        int startIndex = response.indexOf("[");
-        int endIndex = response.lastIndexOf("]");
-        if (startIndex != -1 && endIndex != -1 && endIndex > startIndex) {
-            return response.substring(startIndex, endIndex + 1);
-        }
+    private static long elapsedMillis(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
 
-        return "[\n" +
-                "  {\n" +
-                "    \"type\": \"System Alert\",\n" +
-                "    \"title\": \"Format Error\",\n" +
-                "    \"description\": \"AI returned an invalid format. Please try again.\",\n" +
-                "    \"sentiment\": \"negative\"\n" +
-                "  }\n" +
-                "]";
+    /**
+     * Financial data embedded in the chat and insights prompts. Served from
+     * the per-user snapshot until a transaction or budget write.
+     */
+    public String financialContext(Long userId, String email) {
+        return financialContextCache.get(userId, () -> loadFinancialContext(userId, email));
     }
 
-    private String buildFinancialContext(Long userId, String email) {
-        BigDecimal income = transactionService.getTotalIncome(userId);
-        BigDecimal expenses = transactionService.getTotalExpenses(userId);
-        income = income != null ? income : BigDecimal.ZERO;
-        expenses = expenses != null ? expenses : BigDecimal.ZERO;
+    /**
+     * Context text for the chat and insights prompts, kept within
+     * contextTokenBudget estimated tokens. Totals always go in; budgets
+     * (over-limit first) and then recent transactions fill what is left.
+     */
+    private String loadFinancialContext(Long userId, String email) {
+        Map<Transaction.TransactionType, BigDecimal> totals = transactionService.getTotalsByType(userId);
+        BigDecimal income = totals.getOrDefault(Transaction.TransactionType.INCOME, BigDecimal.ZERO);
+        BigDecimal expenses = totals.getOrDefault(Transaction.TransactionType.EXPENSE, BigDecimal.ZERO);
         BigDecimal balance = income.subtract(expenses);
 
-        StringBuilder sb = new StringBuilder();
-        sb.append("- Total Income: ").append(income).append("\n");
-        sb.append("- Total Expenses: ").append(expenses).append("\n");
-        sb.append("- Current Balance: ").append(balance).append("\n");
+        PromptBuilder prompt = new PromptBuilder(contextTokenBudget);
+        prompt.section(0, null, List.of(
+                "- Total Income: " + PromptBuilder.compact(income),
+                "- Total Expenses: " + PromptBuilder.compact(expenses),
+                "- Current Balance: " + PromptBuilder.compact(balance)));
 
-        // Add Budgets
-        List<Map<String, Object>> budgets = budgetService.getBudgetStatus(email);
+        List<Map<String, Object>> budgets = new ArrayList<>(budgetService.getBudgetStatus(email));
         if (!budgets.isEmpty()) {
-            sb.append("- Budgets:\n");
+            budgets.sort(Comparator.comparingInt(b -> budgetUrgency(String.valueOf(b.get("status")))));
+            List<String> lines = new ArrayList<>(budgets.size());
             for (Map<String, Object> b : budgets) {
-                sb.append("  * ").append(b.get("categoryName")).append(": ")
-                        .append(b.get("spent")).append("/").append(b.get("limitAmount"))
-                        .append(" (Status: ").append(b.get("status")).append(")\n");
+                lines.add("  * " + PromptBuilder.clip(String.valueOf(b.get("categoryName")), 24) + ": "
+                        + PromptBuilder.compact((BigDecimal) b.get("spent")) + "/"
+                        + PromptBuilder.compact((BigDecimal) b.get("limitAmount")) + " " + b.get("status"));
             }
+            prompt.section(1, "- Budgets (spent/limit, status):", lines);
         } else {
-            sb.append("- Budgets: None set for this month.\n");
+            prompt.section(1, "- Budgets: None set for this month.");
         }
 
-        // Add Recent Transactions (last 5)
-        List<Transaction> transactions = transactionService.getUserTransactions(userId);
+        List<TransactionListItemDTO> transactions = transactionService.getRecentTransactions(userId, 5);
         if (!transactions.isEmpty()) {
-            sb.append("- Recent Transactions:\n");
-            transactions.stream().limit(5).forEach(tx -> {
-                sb.append("  * ").append(tx.getTransactionDate().toLocalDate()).append(": ")
-                        .append(tx.getDescription()).append(" - ").append(tx.getAmount())
-                        .append(" (").append(tx.getType()).append(")\n");
-            });
+            List<String> lines = new ArrayList<>(transactions.size());
+            for (TransactionListItemDTO tx : transactions) {
+                String sign = tx.getType() == Transaction.TransactionType.EXPENSE ? "-" : "+";
+                lines.add("  * " + tx.getTransactionDate().toLocalDate() + " "
+                        + PromptBuilder.clip(tx.getDescription(), 40) + ": "
+                        + sign + PromptBuilder.compact(tx.getAmount()));
+            }
+            prompt.section(2, "- Recent Transactions (+income/-expense):", lines);
         }
 
-        return sb.toString();
+        return prompt.build().getText();
+    }
+
+    private static int budgetUrgency(String status) {
+        return "over".equals(status) ? 0 : "warning".equals(status) ? 1 : 2;
     }
 
     // Original rule-based logic as fallback
@@ -285,43 +424,4 @@ public class ChatService {
         // ... (simplified fallback)
         return "I'm having trouble connecting to my brain right now. Please check your API key.";
     }
-
-    /**
-     * Inserts newlines before every recognised emoji marker so the frontend
-     * can render structured sections even when the AI returns a flat response.
-     * Java String.replace() handles Unicode/emoji correctly.
-     */
-    private String normalizeAiResponse(String response) {
-        if (response == null)
-            return "";
-
-        String[] breakBefore = {
-                "\uD83D\uDFE2", "\uD83D\uDFE1", "\uD83D\uDD34", // 🟢 🟡 🔴
-                "\uD83E\uDDE0", // 🧠
-                "\uD83D\uDCCA", // 📊
-                "\u26A0\uFE0F", // ⚠️
-                "\uD83C\uDFAF", // 🎯
-                "\uD83D\uDCA1", // 💡
-                "\uD83D\uDCCC", // 📌
-                "\uD83D\uDD0D", // 🔍
-                "\u2705", // ✅
-                "\uD83D\uDCB0", // 💰
-                "\uD83D\uDCB8", // 💸
-                "\uD83D\uDCB3", // 💳
-                "\uD83D\uDCBC", // 💼
-                "\uD83D\uDCB9", // 💹
-                "\uD83D\uDCC8", // 📈
-                "\uD83D\uDCC9", // 📉
-        };
-
-        String result = response;
-        for (String sym : breakBefore) {
-            result = result.replace(sym, "\n" + sym);
-        }
-        result = result.replace(" \u2022", "\n\u2022"); // • → \n•
-        result = result.replace("\t\u2022", "\n\u2022");
-        result = result.replaceAll("[ \t]+\n", "\n"); // trailing spaces before \n
-        result = result.replaceAll("\n{3,}", "\n\n"); // collapse 3+ blank lines to 2
-        return result.trim();
-    }
 }
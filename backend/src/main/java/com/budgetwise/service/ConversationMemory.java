@@ -0,0 +1,273 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.entity.ChatTurn;
+import com.budgetwise.repository.ChatTurnRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recent chat turns per user, replayed to the model so follow-up questions
+ * keep their context.
+ *
+ * Each user has a ring buffer of the last max-turns turns, every message
+ * clipped to turn-chars, so a conversation holds at most about
+ * 2 x max-turns x turn-chars characters plus its summary. At most max-users
+ * conversations are kept; the least recently used one is dropped first.
+ *
+ * Turns pushed out of the ring, and older turns that do not fit the
+ * history-tokens budget of a prompt, are folded into one-line summaries
+ * ("Q: ... A: ...") kept within summary-tokens, oldest dropped first.
+ *
+ * With app.chat.memory.persist on, turns are also written to chat_turn and
+ * a conversation that is not in memory is reloaded from there; rows older
+ * than the retention period are purged nightly.
+ *
+ * Metrics: chat.memory.users (gauge) and chat.memory.evictions.
+ */
+@Component
+public class ConversationMemory {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationMemory.class);
+
+    private static final int SUMMARY_QUESTION_CHARS = 80;
+    private static final int SUMMARY_REPLY_CHARS = 120;
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4; // role framing, as in LLMCallMetrics
+    private static final int USER_MESSAGE_COLUMN = 2000;
+    private static final int REPLY_COLUMN = 4000;
+
+    private final ChatTurnRepository turnRepository;
+    private final int maxTurns;
+    private final int maxUsers;
+    private final int turnChars;
+    private final int historyTokens;
+    private final int summaryTokens;
+    private final boolean persist;
+    private final Duration retention;
+
+    // Access-ordered, so iteration order is least recently used first; guarded by itself
+    private final Map<Long, Conversation> conversations;
+    private final Counter evictions;
+
+    public ConversationMemory(ChatTurnRepository turnRepository, MeterRegistry meterRegistry,
+            @Value("${app.chat.memory.max-turns:8}") int maxTurns,
+            @Value("${app.chat.memory.max-users:10000}") int maxUsers,
+            @Value("${app.chat.memory.turn-chars:1000}") int turnChars,
+            @Value("${app.chat.memory.history-tokens:600}") int historyTokens,
+            @Value("${app.chat.memory.summary-tokens:150}") int summaryTokens,
+            @Value("${app.chat.memory.persist:false}") boolean persist,
+            @Value("${app.chat.memory.retention:30d}") Duration retention) {
+        if (maxTurns < 1 || maxUsers < 1) {
+            throw new IllegalArgumentException("Conversation memory needs at least one turn and one user");
+        }
+        this.turnRepository = turnRepository;
+        this.maxTurns = maxTurns;
+        this.maxUsers = maxUsers;
+        this.turnChars = turnChars;
+        this.historyTokens = historyTokens;
+        this.summaryTokens = summaryTokens;
+        this.persist = persist;
+        this.retention = retention;
+        this.evictions = Counter.builder("chat.memory.evictions")
+                .description("Conversations dropped to stay within max-users")
+                .register(meterRegistry);
+        this.conversations = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Conversation> eldest) {
+                if (size() > ConversationMemory.this.maxUsers) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder("chat.memory.users", this, ConversationMemory::activeUsers).register(meterRegistry);
+    }
+
+    /**
+     * Messages for the next model call: the system prompt (with a summary of
+     * earlier turns appended when there is one), the recent turns that fit
+     * the history budget, oldest first, then the new user message.
+     */
+    public List<Map<String, String>> messages(Long userId, String systemPrompt, String userMessage) {
+        return conversation(userId).messages(systemPrompt, userMessage, historyTokens, summaryTokens);
+    }
+
+    public void record(Long userId, String userMessage, String reply) {
+        Turn turn = new Turn(PromptBuilder.clip(userMessage, turnChars), PromptBuilder.clip(reply, turnChars));
+        conversation(userId).append(turn, summaryTokens);
+        if (persist) {
+            try {
+                turnRepository.save(new ChatTurn(userId, PromptBuilder.clip(turn.question, USER_MESSAGE_COLUMN),
+                        PromptBuilder.clip(turn.answer, REPLY_COLUMN)));
+            } catch (RuntimeException e) {
+                // The in-memory history still has the turn
+                log.warn("Could not persist chat turn for user {}: {}", userId, e.getMessage());
+            }
+        }
+    }
+
+    @Transactional
+    public void clear(Long userId) {
+        synchronized (conversations) {
+            conversations.remove(userId);
+        }
+        if (persist) {
+            turnRepository.deleteByUserId(userId);
+        }
+    }
+
+    @Transactional
+    @Scheduled(cron = "${app.chat.memory.purge-cron:0 15 4 * * *}")
+    public void purgeExpired() {
+        if (!persist) {
+            return;
+        }
+        int deleted = turnRepository.deleteOlderThan(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Purged {} chat turns older than {}", deleted, retention);
+        }
+    }
+
+    public int activeUsers() {
+        synchronized (conversations) {
+            return conversations.size();
+        }
+    }
+
+    private Conversation conversation(Long userId) {
+        synchronized (conversations) {
+            Conversation existing = conversations.get(userId);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        // Loaded outside the lock; a concurrent load for the same user loses the race below
+        Conversation loaded = new Conversation(maxTurns);
+        if (persist) {
+            // Twice the ring, so the older half is folded into the summary on replay
+            List<ChatTurn> recent = turnRepository.findRecentByUserId(userId, PageRequest.of(0, maxTurns * 2));
+            for (int i = recent.size() - 1; i >= 0; i--) {
+                ChatTurn row = recent.get(i);
+                loaded.append(new Turn(PromptBuilder.clip(row.getUserMessage(), turnChars),
+                        PromptBuilder.clip(row.getReply(), turnChars)), summaryTokens);
+            }
+        }
+        synchronized (conversations) {
+            Conversation existing = conversations.putIfAbsent(userId, loaded);
+            return existing != null ? existing : loaded;
+        }
+    }
+
+    private static final class Turn {
+        private final String question;
+        private final String answer;
+        private final int tokens;
+
+        Turn(String question, String answer) {
+            this.question = question;
+            this.answer = answer;
+            this.tokens = PromptBuilder.estimateTokens(question) + PromptBuilder.estimateTokens(answer)
+                    + 2 * MESSAGE_OVERHEAD_TOKENS;
+        }
+
+        String summaryLine() {
+            // clip collapses line breaks, so each summary stays on one line
+            return "- Q: " + PromptBuilder.clip(question, SUMMARY_QUESTION_CHARS)
+                    + " A: " + PromptBuilder.clip(answer, SUMMARY_REPLY_CHARS);
+        }
+    }
+
+    private static final class Conversation {
+        private final Turn[] ring;
+        private int oldest;
+        private int size;
+        // Summaries of turns that left the ring, oldest first
+        private final Deque<String> summary = new ArrayDeque<>();
+        private int summaryCost;
+
+        Conversation(int capacity) {
+            this.ring = new Turn[capacity];
+        }
+
+        synchronized void append(Turn turn, int summaryBudget) {
+            if (size == ring.length) {
+                String line = ring[oldest].summaryLine();
+                summary.addLast(line);
+                summaryCost += PromptBuilder.estimateTokens(line) + 1;
+                while (summaryCost > summaryBudget && !summary.isEmpty()) {
+                    summaryCost -= PromptBuilder.estimateTokens(summary.removeFirst()) + 1;
+                }
+                ring[oldest] = turn;
+                oldest = (oldest + 1) % ring.length;
+            } else {
+                ring[(oldest + size) % ring.length] = turn;
+                size++;
+            }
+        }
+
+        synchronized List<Map<String, String>> messages(String systemPrompt, String userMessage,
+                int historyBudget, int summaryBudget) {
+            // Newest turns first until the budget runs out; everything older is summarised
+            int kept = 0;
+            int used = 0;
+            while (kept < size) {
+                Turn turn = ring[(oldest + size - 1 - kept) % ring.length];
+                if (used + turn.tokens > historyBudget) {
+                    break;
+                }
+                used += turn.tokens;
+                kept++;
+            }
+
+            List<String> lines = new ArrayList<>(summary);
+            for (int i = 0; i < size - kept; i++) {
+                lines.add(ring[(oldest + i) % ring.length].summaryLine());
+            }
+            // Drop the oldest summary lines until the rest fit
+            int cost = 0;
+            int first = lines.size();
+            while (first > 0) {
+                int lineCost = PromptBuilder.estimateTokens(lines.get(first - 1)) + 1;
+                if (cost + lineCost > summaryBudget) {
+                    break;
+                }
+                cost += lineCost;
+                first--;
+            }
+
+            String system = systemPrompt;
+            if (first < lines.size()) {
+                system = systemPrompt + "\n\nEarlier in this conversation:\n"
+                        + String.join("\n", lines.subList(first, lines.size()));
+            }
+
+            List<Map<String, String>> messages = new ArrayList<>(2 + 2 * kept);
+            messages.add(Map.of("role", "system", "content", system));
+            for (int i = size - kept; i < size; i++) {
+                Turn turn = ring[(oldest + i) % ring.length];
+                messages.add(Map.of("role", "user", "content", turn.question));
+                messages.add(Map.of("role", "assistant", "content", turn.answer));
+            }
+            messages.add(Map.of("role", "user", "content", userMessage));
+            return Collections.unmodifiableList(messages);
+        }
+    }
+}
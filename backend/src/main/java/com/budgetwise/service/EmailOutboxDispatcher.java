@@ -0,0 +1,312 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.entity.EmailOutbox;
+import com.budgetwise.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the OTP emails queued in email_outbox.
+ *
+ * A drain is started on the single mail thread as soon as a transaction that
+ * queued a message commits, and by a fallback poll for retries. While one
+ * drain runs at most one more is queued, so a burst of signups collapses
+ * into a few drains rather than a task per email. Each drain sends due
+ * messages in batches over one SMTP connection that is kept open between
+ * batches and closed after idle-timeout.
+ *
+ * Delivered rows are deleted. A failed send is retried with exponential
+ * backoff up to max-attempts; a rejected recipient, or a message older than
+ * max-age (its OTP has expired), is marked FAILED straight away.
+ *
+ * Metrics: mail.outbox.send (SMTP time per message), mail.outbox.delivery
+ * (queued to sent), mail.outbox.messages{result=sent|retried|failed} and
+ * mail.outbox.connections.
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private static final int MAX_ERROR_CHARS = 500; // email_outbox.last_error
+
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailService emailService;
+    private final JavaMailSenderImpl mailSender;
+    private final Executor mailExecutor;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration maxAge;
+    private final Duration idleTimeout;
+    private final Duration failedRetention;
+    private final boolean mailEnabled;
+
+    private final Timer sendTime;
+    private final Timer deliveryTime;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Counter connections;
+
+    // Only used under the drain lock
+    private Transport transport;
+    private long transportLastUsed;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository outboxRepository, EmailService emailService,
+            JavaMailSenderImpl mailSender, MeterRegistry meterRegistry,
+            @Qualifier("mailExecutor") Executor mailExecutor,
+            @Value("${app.mail.outbox.batch-size:50}") int batchSize,
+            @Value("${app.mail.outbox.max-attempts:5}") int maxAttempts,
+            @Value("${app.mail.outbox.initial-backoff:5s}") Duration initialBackoff,
+            @Value("${app.mail.outbox.max-backoff:5m}") Duration maxBackoff,
+            @Value("${app.mail.outbox.max-age:15m}") Duration maxAge,
+            @Value("${app.mail.outbox.idle-timeout:60s}") Duration idleTimeout,
+            @Value("${app.mail.outbox.failed-retention:7d}") Duration failedRetention,
+            @Value("${app.mail.enabled:true}") boolean mailEnabled) {
+        this.outboxRepository = outboxRepository;
+        this.emailService = emailService;
+        this.mailSender = mailSender;
+        this.mailExecutor = mailExecutor;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.maxAge = maxAge;
+        this.idleTimeout = idleTimeout;
+        this.failedRetention = failedRetention;
+        this.mailEnabled = mailEnabled;
+        this.sendTime = Timer.builder("mail.outbox.send").publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.deliveryTime = Timer.builder("mail.outbox.delivery").publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.sent = messages(meterRegistry, "sent");
+        this.retried = messages(meterRegistry, "retried");
+        this.failed = messages(meterRegistry, "failed");
+        this.connections = Counter.builder("mail.outbox.connections").register(meterRegistry);
+    }
+
+    private static Counter messages(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("mail.outbox.messages").tag("result", result).register(meterRegistry);
+    }
+
+    /** A transaction that queued a message has committed. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onQueued(EmailOutbox message) {
+        wake();
+    }
+
+    /** Picks up retries that have come due and closes an idle connection. */
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval:5000}")
+    public void poll() {
+        wake();
+    }
+
+    /** Opens the SMTP connection at startup so the first OTP does not pay for it. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (mailEnabled) {
+            mailExecutor.execute(() -> {
+                synchronized (this) {
+                    try {
+                        if (transport == null) {
+                            connected();
+                        }
+                    } catch (MessagingException e) {
+                        log.warn("SMTP warmup failed: {}", e.getMessage());
+                    }
+                }
+            });
+        }
+    }
+
+    /** Schedules a drain; a no-op when one is already waiting to run. */
+    public void wake() {
+        mailExecutor.execute(this::drain);
+    }
+
+    /**
+     * Sends every message that is due, batch by batch.
+     *
+     * @return number of messages sent
+     */
+    public synchronized int drain() {
+        int total = 0;
+        while (true) {
+            List<EmailOutbox> batch = outboxRepository.findByStatusDueBy(EmailOutbox.Status.PENDING,
+                    LocalDateTime.now(), PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                closeIfIdle();
+                return total;
+            }
+            checkConnection();
+            int before = total;
+            boolean connectionLost = false;
+            List<Long> delivered = new ArrayList<>(batch.size());
+            for (EmailOutbox message : batch) {
+                if (!send(message, delivered)) {
+                    connectionLost = true;
+                    break;
+                }
+            }
+            if (!delivered.isEmpty()) {
+                outboxRepository.deleteAllByIdInBatch(delivered);
+                total += delivered.size();
+            }
+            log.debug("Sent {} of {} queued emails", total - before, batch.size());
+            if (connectionLost || batch.size() < batchSize) {
+                return total;
+            }
+        }
+    }
+
+    /** Returns false if the connection failed, leaving the rest of the batch for later. */
+    private boolean send(EmailOutbox message, List<Long> delivered) {
+        LocalDateTime now = LocalDateTime.now();
+        if (message.getCreatedAt().isBefore(now.minus(maxAge))) {
+            fail(message, "Expired before it could be sent");
+            return true;
+        }
+        long started = System.nanoTime();
+        try {
+            MimeMessage mime = emailService.createOtpMessage(message.getRecipient(), message.getOtp(),
+                    message.getPurpose());
+            (transport != null ? transport : connected()).sendMessage(mime, mime.getAllRecipients());
+            transportLastUsed = System.nanoTime();
+            sendTime.record(transportLastUsed - started, TimeUnit.NANOSECONDS);
+            deliveryTime.record(Duration.between(message.getCreatedAt(), LocalDateTime.now()));
+            sent.increment();
+            delivered.add(message.getId());
+            return true;
+        } catch (SendFailedException e) {
+            if (e.getInvalidAddresses() != null && e.getInvalidAddresses().length > 0) {
+                // Rejected recipient: retrying cannot help
+                fail(message, e.getMessage());
+                return true;
+            }
+            retry(message, e);
+            closeTransport();
+            return false;
+        } catch (MessagingException e) {
+            retry(message, e);
+            closeTransport();
+            return false;
+        }
+    }
+
+    private void retry(EmailOutbox message, Exception error) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        message.setLastError(truncate(error.getMessage()));
+        if (attempts >= maxAttempts) {
+            fail(message, message.getLastError());
+            return;
+        }
+        message.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+        outboxRepository.save(message);
+        retried.increment();
+        log.info("Email {} to {} failed (attempt {} of {}), retrying at {}: {}", message.getId(),
+                message.getRecipient(), attempts, maxAttempts, message.getNextAttemptAt(), message.getLastError());
+    }
+
+    /** initial-backoff doubled for each attempt after the first, capped at max-backoff. */
+    Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private void fail(EmailOutbox message, String reason) {
+        // next_attempt_at records when it failed, for purgeFailed
+        message.setStatus(EmailOutbox.Status.FAILED);
+        message.setLastError(truncate(reason));
+        message.setNextAttemptAt(LocalDateTime.now());
+        outboxRepository.save(message);
+        failed.increment();
+        log.warn("Giving up on email {} to {}: {}", message.getId(), message.getRecipient(), reason);
+    }
+
+    @Transactional
+    @Scheduled(cron = "${app.mail.outbox.purge-cron:0 45 4 * * *}")
+    public void purgeFailed() {
+        int deleted = outboxRepository.deleteByStatusBefore(EmailOutbox.Status.FAILED,
+                LocalDateTime.now().minus(failedRetention));
+        if (deleted > 0) {
+            log.info("Purged {} failed emails older than {}", deleted, failedRetention);
+        }
+    }
+
+    private Transport connected() throws MessagingException {
+        String protocol = mailSender.getProtocol();
+        Transport opened = mailSender.getSession().getTransport(
+                protocol != null ? protocol : JavaMailSenderImpl.DEFAULT_PROTOCOL);
+        String username = mailSender.getUsername();
+        String password = mailSender.getPassword();
+        opened.connect(mailSender.getHost(), mailSender.getPort(),
+                username == null || username.isEmpty() ? null : username,
+                password == null || password.isEmpty() ? null : password);
+        connections.increment();
+        transport = opened;
+        transportLastUsed = System.nanoTime();
+        return transport;
+    }
+
+    /** Drops the kept connection if it has been idle too long or the server has closed it (one NOOP). */
+    private void checkConnection() {
+        if (transport != null && (System.nanoTime() - transportLastUsed > idleTimeout.toNanos()
+                || !transport.isConnected())) {
+            closeTransport();
+        }
+    }
+
+    private void closeIfIdle() {
+        if (transport != null && System.nanoTime() - transportLastUsed > idleTimeout.toNanos()) {
+            closeTransport();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void closeTransport() {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Closing SMTP connection failed: {}", e.getMessage());
+            }
+            transport = null;
+        }
+    }
+
+    private static String truncate(String text) {
+        if (text == null) {
+            return null;
+        }
+        return text.length() > MAX_ERROR_CHARS ? text.substring(0, MAX_ERROR_CHARS) : text;
+    }
+}
@@ -0,0 +1,159 @@
+package com.budgetwise.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Per-user snapshot of the financial context text embedded in chat prompts.
+ *
+ * Every write that can change a user's context bumps that user's version;
+ * a snapshot is served only while the version it was built against is still
+ * current and the calendar month (which scopes the budget section) has not
+ * rolled over. Versions rather than plain eviction keep a rebuild that raced
+ * a write from being served after the write commits. A user's version is
+ * kept for twice the snapshot ttl after it was last read or a snapshot was
+ * stored against it, so it cannot be dropped while a snapshot it guards is
+ * still cached; only users active within that window are tracked.
+ *
+ * Metrics: chat.context.lookups{result=hit|miss}, chat.context.build (timer)
+ * and chat.context.db.saved, the build time avoided by hits in milliseconds.
+ */
+@Component
+public class FinancialContextCache {
+
+    private final Cache<Long, Snapshot> snapshots;
+    private final Cache<Long, Long> versions;
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile long allInvalidatedAt;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter savedMillis;
+    private final Timer buildTimer;
+
+    @Autowired
+    public FinancialContextCache(MeterRegistry meterRegistry,
+            @Value("${app.chat.context-cache.max-size:10000}") long maxSize,
+            @Value("${app.chat.context-cache.ttl:10m}") Duration ttl) {
+        this(meterRegistry, maxSize, ttl, Ticker.systemTicker());
+    }
+
+    FinancialContextCache(MeterRegistry meterRegistry, long maxSize, Duration ttl, Ticker ticker) {
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .build();
+        // No size bound: evicting a version early could let a stale snapshot match again
+        this.versions = Caffeine.newBuilder()
+                .expireAfterAccess(ttl.multipliedBy(2))
+                .ticker(ticker)
+                .build();
+        this.hits = Counter.builder("chat.context.lookups").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("chat.context.lookups").tag("result", "miss").register(meterRegistry);
+        this.savedMillis = Counter.builder("chat.context.db.saved")
+                .description("Context build time avoided by snapshot hits")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        this.buildTimer = Timer.builder("chat.context.build").register(meterRegistry);
+    }
+
+    public String get(Long userId, Supplier<String> builder) {
+        long version = currentVersion(userId);
+        YearMonth month = YearMonth.now();
+
+        Snapshot snapshot = snapshots.getIfPresent(userId);
+        if (snapshot != null && snapshot.version == version && snapshot.month.equals(month)) {
+            hits.increment();
+            savedMillis.increment(snapshot.buildNanos / 1_000_000.0);
+            return snapshot.text;
+        }
+
+        misses.increment();
+        long started = System.nanoTime();
+        String text = builder.get();
+        long buildNanos = System.nanoTime() - started;
+        buildTimer.record(buildNanos, TimeUnit.NANOSECONDS);
+
+        Snapshot fresh = new Snapshot(text, version, month, buildNanos);
+        // Never replace a snapshot built against a newer version
+        snapshots.asMap().merge(userId, fresh, (old, built) -> old.version > built.version ? old : built);
+        versions.getIfPresent(userId); // keep the version at least as long as the snapshot
+        return text;
+    }
+
+    /**
+     * Marks the user's snapshot stale now and, inside a transaction, again
+     * after commit so a rebuild racing the write cannot be served afterwards.
+     */
+    public void invalidate(Long userId) {
+        bump(userId);
+        afterCommit(() -> bump(userId));
+    }
+
+    /** For shared data such as category names that appears in every snapshot. */
+    public void invalidateAll() {
+        bumpAll();
+        afterCommit(this::bumpAll);
+    }
+
+    private void bump(Long userId) {
+        versions.put(userId, sequence.incrementAndGet());
+        snapshots.invalidate(userId);
+    }
+
+    private void bumpAll() {
+        allInvalidatedAt = sequence.incrementAndGet();
+        snapshots.invalidateAll();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private long currentVersion(Long userId) {
+        Long version = versions.getIfPresent(userId);
+        return Math.max(version != null ? version : 0L, allInvalidatedAt);
+    }
+
+    long trackedUsers() {
+        versions.cleanUp();
+        return versions.estimatedSize();
+    }
+
+    private static final class Snapshot {
+        private final String text;
+        private final long version;
+        private final YearMonth month;
+        private final long buildNanos;
+
+        Snapshot(String text, long version, YearMonth month, long buildNanos) {
+            this.text = text;
+            this.version = version;
+            this.month = month;
+            this.buildNanos = buildNanos;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.entity.OtpToken;
+import com.budgetwise.util.TimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OtpStore held in memory, for a single instance: codes do not survive a
+ * restart and are not shared between instances.
+ *
+ * Codes live in a concurrent map keyed by email and purpose. Each entry is
+ * immutable and replaced atomically, so verification is a hash lookup and a
+ * constant-time compare with no lock shared between users, and the per-code
+ * count of wrong guesses cannot be lost to a race.
+ *
+ * Expiry is indexed by a hierarchical timing wheel (one-second ticks, about
+ * three days of range) advanced every tick-interval, so removing expired
+ * codes costs only the codes that expire rather than a scan of the map. Every
+ * read checks the expiry itself, so the wheel only reclaims memory.
+ *
+ * Metrics: auth.otp.codes (gauge) and auth.otp.purged{store=memory}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.auth.otp.store", havingValue = "memory")
+public class InMemoryOtpStore implements OtpStore {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryOtpStore.class);
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SLOTS = 64;
+    private static final int WHEEL_LEVELS = 3;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Clock clock;
+    private final int maxAttempts;
+    private final long verifiedTtlMillis;
+    private final Counter purged;
+
+    // Guarded by itself
+    private final TimingWheel<Key> expiries;
+
+    @Autowired
+    public InMemoryOtpStore(MeterRegistry meterRegistry,
+            @Value("${app.auth.otp.max-attempts:5}") int maxAttempts,
+            @Value("${app.auth.otp.verified-ttl:15m}") Duration verifiedTtl) {
+        this(meterRegistry, maxAttempts, verifiedTtl, Clock.systemDefaultZone());
+    }
+
+    InMemoryOtpStore(MeterRegistry meterRegistry, int maxAttempts, Duration verifiedTtl, Clock clock) {
+        this.clock = clock;
+        this.maxAttempts = maxAttempts;
+        this.verifiedTtlMillis = verifiedTtl.toMillis();
+        this.expiries = new TimingWheel<>(TICK_MILLIS, WHEEL_SLOTS, WHEEL_LEVELS, clock.millis());
+        this.purged = Counter.builder("auth.otp.purged").tag("store", "memory").register(meterRegistry);
+        Gauge.builder("auth.otp.codes", entries, Map::size).register(meterRegistry);
+    }
+
+    @Override
+    public void issue(String email, OtpToken.OtpPurpose purpose, String otp, LocalDateTime expiryTime) {
+        Key key = new Key(email, purpose);
+        long expiresAt = expiryTime.atZone(clock.getZone()).toInstant().toEpochMilli();
+        entries.put(key, new Entry(otp, expiresAt, false, 0));
+        schedule(key, expiresAt);
+    }
+
+    @Override
+    public boolean verify(String email, OtpToken.OtpPurpose purpose, String otp) {
+        long now = clock.millis();
+        Key key = new Key(email, purpose);
+        boolean[] verified = new boolean[1];
+        Entry updated = entries.computeIfPresent(key, (k, entry) -> {
+            if (entry.expiresAt <= now) {
+                return null;
+            }
+            if (entry.verified) {
+                return entry;
+            }
+            if (!OtpStore.matches(entry.otp, otp)) {
+                if (entry.attempts + 1 >= maxAttempts) {
+                    log.info("Discarded {} OTP for {} after {} wrong attempts", purpose, email, maxAttempts);
+                    return null;
+                }
+                return new Entry(entry.otp, entry.expiresAt, false, entry.attempts + 1);
+            }
+            verified[0] = true;
+            return new Entry(entry.otp, now + verifiedTtlMillis, true, entry.attempts);
+        });
+        if (verified[0]) {
+            schedule(key, updated.expiresAt);
+        }
+        return verified[0];
+    }
+
+    @Override
+    public boolean isVerified(String email, OtpToken.OtpPurpose purpose) {
+        Entry entry = entries.get(new Key(email, purpose));
+        return entry != null && entry.verified && entry.expiresAt > clock.millis();
+    }
+
+    @Override
+    public void remove(String email, OtpToken.OtpPurpose purpose) {
+        entries.remove(new Key(email, purpose));
+    }
+
+    /** Drops codes whose expiry has passed. */
+    @Scheduled(fixedDelayString = "${app.auth.otp.memory.tick-interval:1000}")
+    public void expire() {
+        long now = clock.millis();
+        int[] removed = new int[1];
+        synchronized (expiries) {
+            // A stale wheel entry, for a code reissued or verified since, finds a later expiry and is skipped
+            expiries.advance(now, key -> entries.computeIfPresent(key, (k, entry) -> {
+                if (entry.expiresAt > now) {
+                    return entry;
+                }
+                removed[0]++;
+                return null;
+            }));
+        }
+        purged.increment(removed[0]);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void schedule(Key key, long expiresAt) {
+        synchronized (expiries) {
+            expiries.schedule(key, expiresAt);
+        }
+    }
+
+    private record Key(String email, OtpToken.OtpPurpose purpose) {
+    }
+
+    private record Entry(String otp, long expiresAt, boolean verified, int attempts) {
+    }
+}
@@ -0,0 +1,335 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.dto.ActiveUser;
+import com.budgetwise.model.dto.InsightsSnapshot;
+import com.budgetwise.model.entity.User;
+import com.budgetwise.model.entity.UserInsights;
+import com.budgetwise.repository.UserInsightsRepository;
+import com.budgetwise.repository.UserRepository;
+import com.budgetwise.util.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * AI insights for /api/chat/insights, generated ahead of time and stored per
+ * user in user_insights.
+ *
+ * Stored insights carry a hash of the financial context they were built
+ * from. A read whose current context hashes the same is served as is; one
+ * whose data has changed gets the stored insights marked stale and starts a
+ * refresh in the background. Only a user's very first read waits for the
+ * model, and it (like a manual refresh) runs on the request thread rather
+ * than queueing behind the scheduled job.
+ *
+ * A scheduled job refreshes every user who asked for insights within the
+ * active window and whose data has changed since, on a small worker pool and
+ * under a token-bucket limit on provider calls. At most one refresh per user
+ * runs at a time; concurrent requests share it.
+ *
+ * Metrics: insights.refresh{result=generated|unchanged|failed|rate_limited}
+ * and insights.refresh.in_flight.
+ */
+@Service
+public class InsightsService {
+
+    private static final Logger log = LoggerFactory.getLogger(InsightsService.class);
+
+    private static final int MAX_INSIGHTS_CHARS = 8000; // user_insights.insights
+    private static final Duration TOUCH_INTERVAL = Duration.ofHours(1);
+
+    static final String UNAVAILABLE = "[\n" +
+            "  {\n" +
+            "    \"type\": \"System Alert\",\n" +
+            "    \"title\": \"AI Insights Unavailable\",\n" +
+            "    \"description\": \"We couldn't generate personalized insights right now. Please check your API key or try again later.\",\n"
+            +
+            "    \"sentiment\": \"negative\"\n" +
+            "  }\n" +
+            "]";
+
+    static final String FORMAT_ERROR = "[\n" +
+            "  {\n" +
+            "    \"type\": \"System Alert\",\n" +
+            "    \"title\": \"Format Error\",\n" +
+            "    \"description\": \"AI returned an invalid format. Please try again.\",\n" +
+            "    \"sentiment\": \"negative\"\n" +
+            "  }\n" +
+            "]";
+
+    private final ChatService chatService;
+    private final LLMService llmService;
+    private final UserRepository userRepository;
+    private final UserInsightsRepository insightsRepository;
+    private final Executor insightsExecutor;
+    private final RateLimiter providerLimit;
+    private final Duration activeWindow;
+    private final Duration rateLimitWait;
+    private final Map<Long, Running> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter generated;
+    private final Counter unchanged;
+    private final Counter failed;
+    private final Counter throttled;
+
+    public InsightsService(ChatService chatService, LLMService llmService, UserRepository userRepository,
+            UserInsightsRepository insightsRepository, MeterRegistry meterRegistry,
+            @Qualifier("insightsExecutor") Executor insightsExecutor,
+            @Value("${app.insights.precompute.active-window:7d}") Duration activeWindow,
+            @Value("${app.insights.precompute.calls-per-minute:30}") int callsPerMinute,
+            @Value("${app.insights.precompute.rate-limit-wait:30s}") Duration rateLimitWait) {
+        this.chatService = chatService;
+        this.llmService = llmService;
+        this.userRepository = userRepository;
+        this.insightsRepository = insightsRepository;
+        this.insightsExecutor = insightsExecutor;
+        this.providerLimit = new RateLimiter(callsPerMinute, Duration.ofMinutes(1), Math.min(callsPerMinute, 5));
+        this.activeWindow = activeWindow;
+        this.rateLimitWait = rateLimitWait;
+        this.generated = refreshes(meterRegistry, "generated");
+        this.unchanged = refreshes(meterRegistry, "unchanged");
+        this.failed = refreshes(meterRegistry, "failed");
+        this.throttled = refreshes(meterRegistry, "rate_limited");
+        Gauge.builder("insights.refresh.in_flight", inFlight, Map::size).register(meterRegistry);
+    }
+
+    private static Counter refreshes(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("insights.refresh").tag("result", result).register(meterRegistry);
+    }
+
+    /** Stored insights, marked stale (and being refreshed) if the user's data has changed since. */
+    public InsightsSnapshot getInsights(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Long userId = user.getId();
+        UserInsights stored = touch(userId);
+
+        if (stored.getInsights() == null) {
+            return snapshot(start(userId, email, false, false, Runnable::run).future.join());
+        }
+        if (hash(chatService.financialContext(userId, email)).equals(stored.getContextHash())) {
+            return snapshot(stored, false);
+        }
+        try {
+            refresh(userId, email, false, false);
+        } catch (RejectedExecutionException e) {
+            // Workers are busy; the scheduled job will get to it
+        }
+        return snapshot(stored, true);
+    }
+
+    /**
+     * Regenerates the user's insights now, on the calling thread. A forced
+     * refresh already running is joined; any other one may skip the model
+     * (unchanged data, rate limit), so it is waited out first.
+     */
+    public InsightsSnapshot refreshNow(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Long userId = user.getId();
+        touch(userId);
+        while (true) {
+            Running running = start(userId, email, true, false, Runnable::run);
+            if (running.force) {
+                return snapshot(running.future.join());
+            }
+            running.future.handle((refresh, error) -> null).join();
+        }
+    }
+
+    @Scheduled(cron = "${app.insights.precompute.cron:0 */15 * * * *}")
+    public void precomputeActive() {
+        List<ActiveUser> users = insightsRepository.findRequestedSince(LocalDateTime.now().minus(activeWindow));
+        int submitted = 0;
+        try {
+            for (ActiveUser user : users) {
+                refresh(user.getUserId(), user.getEmail(), false, true);
+                submitted++;
+            }
+        } catch (RejectedExecutionException e) {
+            log.info("Insights queue full; {} of {} active users left for the next run",
+                    users.size() - submitted, users.size());
+        }
+    }
+
+    /**
+     * Starts a background refresh for the user unless one is already
+     * running, in which case that one is returned. The future yields the
+     * stored row afterwards, updated or not, and the canned reply to show if
+     * it has no insights.
+     *
+     * @param force       regenerate even if the data is unchanged
+     * @param rateLimited wait for the provider rate limit; skipped if it is
+     *                    not available within rate-limit-wait
+     * @throws RejectedExecutionException if the worker queue is full
+     */
+    CompletableFuture<Refresh> refresh(Long userId, String email, boolean force, boolean rateLimited) {
+        return start(userId, email, force, rateLimited, insightsExecutor).future;
+    }
+
+    /**
+     * The refresh running for the user, or a new one started on
+     * {@code executor}; Runnable::run runs it on the calling thread.
+     */
+    private Running start(Long userId, String email, boolean force, boolean rateLimited, Executor executor) {
+        Running running = inFlight.get(userId);
+        if (running != null) {
+            return running;
+        }
+        CompletableFuture<Refresh> started = new CompletableFuture<>();
+        Running mine = new Running(started, force);
+        running = inFlight.putIfAbsent(userId, mine);
+        if (running != null) {
+            return running;
+        }
+        started.whenComplete((row, error) -> inFlight.remove(userId, mine));
+        try {
+            executor.execute(() -> {
+                try {
+                    started.complete(generate(userId, email, force, rateLimited));
+                } catch (Throwable e) {
+                    log.warn("Insights refresh failed for user {}: {}", userId, e.toString());
+                    started.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(userId, mine);
+            throw e;
+        }
+        return mine;
+    }
+
+    private Refresh generate(Long userId, String email, boolean force, boolean rateLimited)
+            throws InterruptedException {
+        String context = chatService.financialContext(userId, email);
+        String contextHash = hash(context);
+        UserInsights row = insightsRepository.findById(userId)
+                .orElseGet(() -> new UserInsights(userId, LocalDateTime.now()));
+        if (!force && row.getInsights() != null && contextHash.equals(row.getContextHash())) {
+            unchanged.increment();
+            return new Refresh(row, null);
+        }
+        if (rateLimited && !providerLimit.acquire(rateLimitWait)) {
+            throttled.increment();
+            return new Refresh(row, UNAVAILABLE);
+        }
+
+        LLMResult result = llmService.getChatResponse(systemPrompt(context), "Generate financial insights JSON.");
+        if (!result.isSuccess()) {
+            failed.increment();
+            log.warn("Insights generation failed for user {}: {}", userId, result);
+            return new Refresh(row, UNAVAILABLE);
+        }
+        String insights = jsonArray(result.getText());
+        if (insights == null || insights.length() > MAX_INSIGHTS_CHARS) {
+            failed.increment();
+            log.warn("Model reply for user {} is not a JSON array of at most {} chars", userId, MAX_INSIGHTS_CHARS);
+            return new Refresh(row, FORMAT_ERROR);
+        }
+        row.setInsights(insights);
+        row.setContextHash(contextHash);
+        row.setGeneratedAt(LocalDateTime.now());
+        generated.increment();
+        return new Refresh(insightsRepository.save(row), null);
+    }
+
+    private static String systemPrompt(String financialContext) {
+        return "You are an AI financial analyst. Analyze the user's financial data below and provide 4-6 short, actionable insights. "
+                +
+                "Return the response strictly as a valid JSON array of objects. Do not include markdown formatting. " +
+                "Each object must have the following fields:\n" +
+                "- type: One of ['Spending Alert', 'Savings Opportunity', 'Positive Trend', 'Investment Tip', 'Goal Progress', 'Smart Suggestion']\n"
+                +
+                "- title: A short, catchy title (max 5 words)\n" +
+                "- description: A clear 1-2 sentence explanation\n" +
+                "- sentiment: One of ['positive', 'negative', 'neutral'] (used for UI coloring)\n\n" +
+                "User Data:\n" + financialContext;
+    }
+
+    /** The outermost [...] of the model's reply, or null if there is none. */
+    private static String jsonArray(String response) {
+        int startIndex = response.indexOf("[");
+        int endIndex = response.lastIndexOf("]");
+        if (startIndex != -1 && endIndex != -1 && endIndex > startIndex) {
+            return response.substring(startIndex, endIndex + 1);
+        }
+        return null;
+    }
+
+    /**
+     * The user's row, created on first use; last_requested_at is moved
+     * forward at most once per TOUCH_INTERVAL.
+     */
+    private UserInsights touch(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        UserInsights row = insightsRepository.findById(userId).orElse(null);
+        if (row == null) {
+            try {
+                return insightsRepository.save(new UserInsights(userId, now));
+            } catch (DataIntegrityViolationException e) {
+                // Created by a concurrent first request
+                return insightsRepository.findById(userId).orElseThrow(() -> e);
+            }
+        }
+        if (row.getLastRequestedAt().isBefore(now.minus(TOUCH_INTERVAL))) {
+            row.setLastRequestedAt(now);
+            return insightsRepository.save(row);
+        }
+        return row;
+    }
+
+    /** Previously stored insights outlive a failed refresh; without any, the canned reply stands in. */
+    private static InsightsSnapshot snapshot(Refresh refresh) {
+        UserInsights row = refresh.row;
+        if (row.getInsights() == null) {
+            return new InsightsSnapshot(refresh.fallback != null ? refresh.fallback : UNAVAILABLE, null, false);
+        }
+        return new InsightsSnapshot(row.getInsights(), row.getGeneratedAt(), false);
+    }
+
+    private static InsightsSnapshot snapshot(UserInsights row, boolean stale) {
+        return new InsightsSnapshot(row.getInsights(), row.getGeneratedAt(), stale);
+    }
+
+    private record Running(CompletableFuture<Refresh> future, boolean force) {
+    }
+
+    private static final class Refresh {
+        private final UserInsights row;
+        private final String fallback;
+
+        Refresh(UserInsights row, String fallback) {
+            this.row = row;
+            this.fallback = fallback;
+        }
+    }
+
+    private static String hash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
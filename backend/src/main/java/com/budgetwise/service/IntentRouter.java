@@ -0,0 +1,86 @@
+package com.budgetwise.service;
+
+import com.budgetwise.util.KeywordAutomaton;
+
+/**
+ * Classifies chat messages into a {@link ChatIntent} in one pass over the
+ * text. Every keyword occurrence that starts at a word boundary ("tip" in
+ * "tips" but not in "multiple") adds its weight to its intent; the highest
+ * score wins and no match at all means {@link ChatIntent#CASUAL}.
+ *
+ * Weights: 3 for phrases that pin an intent down ("over budget"), 2 for
+ * intent words ("balance"), 1 for generic money words, which lean towards
+ * the breakdown card as the old single financial/casual split did.
+ */
+public class IntentRouter {
+
+    private static final ChatIntent[] INTENTS = ChatIntent.values();
+
+    private final KeywordAutomaton<Keyword> automaton;
+
+    public IntentRouter() {
+        KeywordAutomaton.Builder<Keyword> builder = KeywordAutomaton.builder();
+
+        add(builder, ChatIntent.BUDGET_ALERTS, 3, "over budget", "overspen", "over the limit", "over my limit",
+                "budget alert", "budget status", "within budget", "within my budget");
+        add(builder, ChatIntent.BUDGET_ALERTS, 2, "budget", "exceed", "limit", "alert", "on track");
+
+        add(builder, ChatIntent.BALANCE, 3, "how much do i have", "how much money do i have", "money left",
+                "net worth", "in my account");
+        add(builder, ChatIntent.BALANCE, 2, "balance");
+
+        add(builder, ChatIntent.ADVICE, 3, "how can i save", "how do i save", "help me save", "ways to save",
+                "should i invest", "cut back", "cut down");
+        add(builder, ChatIntent.ADVICE, 2, "tip", "suggest", "advice", "advise", "recommend", "invest",
+                "should i", "how can i");
+
+        add(builder, ChatIntent.BREAKDOWN, 3, "where does my money go", "where did my money go", "spending breakdown",
+                "how much did i spend", "how much have i spent");
+        add(builder, ChatIntent.BREAKDOWN, 2, "breakdown", "spend", "spent", "expense", "categor", "analys",
+                "summary", "report", "overview", "transaction");
+        add(builder, ChatIntent.BREAKDOWN, 1, "money", "financ", "income", "saving", "how much", "rupee", "rs.",
+                "₹");
+
+        this.automaton = builder.build();
+    }
+
+    public ChatIntent classify(String message) {
+        if (message == null || message.isEmpty()) {
+            return ChatIntent.CASUAL;
+        }
+        int[] scores = new int[INTENTS.length];
+        automaton.scan(message, (keyword, start, end) -> {
+            if (start == 0 || !Character.isLetterOrDigit(message.charAt(start - 1))) {
+                scores[keyword.intent.ordinal()] += keyword.weight;
+            }
+        });
+
+        ChatIntent best = ChatIntent.CASUAL;
+        int bestScore = 0;
+        for (ChatIntent intent : INTENTS) {
+            if (scores[intent.ordinal()] > bestScore) {
+                best = intent;
+                bestScore = scores[intent.ordinal()];
+            }
+        }
+        return best;
+    }
+
+    private static void add(KeywordAutomaton.Builder<Keyword> builder, ChatIntent intent, int weight,
+            String... keywords) {
+        Keyword value = new Keyword(intent, weight);
+        for (String keyword : keywords) {
+            builder.add(keyword, value);
+        }
+    }
+
+    private static final class Keyword {
+        private final ChatIntent intent;
+        private final int weight;
+
+        Keyword(ChatIntent intent, int weight) {
+            this.intent = intent;
+            this.weight = weight;
+        }
+    }
+}
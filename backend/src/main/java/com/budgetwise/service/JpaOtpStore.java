@@ -0,0 +1,115 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.entity.OtpToken;
+import com.budgetwise.repository.OtpTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * OtpStore on the otp_tokens table.
+ *
+ * Verification loads the latest unverified row for the email and purpose and
+ * compares the code in Java, so the database never matches on the code
+ * itself. Marking it verified is a conditional update, so two concurrent
+ * requests with the right code cannot both succeed. A wrong guess is counted
+ * in its own transaction, because the caller rolls back when verification
+ * fails. Expired rows, verified or not, are deleted in bulk by purge-cron.
+ *
+ * Metrics: auth.otp.purged{store=jpa}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.auth.otp.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaOtpStore implements OtpStore {
+
+    private static final Logger log = LoggerFactory.getLogger(JpaOtpStore.class);
+
+    private final OtpTokenRepository otpTokenRepository;
+    private final TransactionTemplate separateTransaction;
+    private final int maxAttempts;
+    private final Duration verifiedTtl;
+    private final Counter purged;
+
+    public JpaOtpStore(OtpTokenRepository otpTokenRepository, PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.auth.otp.max-attempts:5}") int maxAttempts,
+            @Value("${app.auth.otp.verified-ttl:15m}") Duration verifiedTtl) {
+        this.otpTokenRepository = otpTokenRepository;
+        this.separateTransaction = new TransactionTemplate(transactionManager);
+        this.separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = maxAttempts;
+        this.verifiedTtl = verifiedTtl;
+        this.purged = Counter.builder("auth.otp.purged").tag("store", "jpa").register(meterRegistry);
+    }
+
+    @Override
+    @Transactional
+    public void issue(String email, OtpToken.OtpPurpose purpose, String otp, LocalDateTime expiryTime) {
+        otpTokenRepository.deleteByEmailAndPurpose(email, purpose);
+        OtpToken otpToken = new OtpToken();
+        otpToken.setEmail(email);
+        otpToken.setOtp(otp);
+        otpToken.setPurpose(purpose);
+        otpToken.setExpiryTime(expiryTime);
+        otpToken.setVerified(false);
+        otpTokenRepository.save(otpToken);
+    }
+
+    @Override
+    @Transactional
+    public boolean verify(String email, OtpToken.OtpPurpose purpose, String otp) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<OtpToken> found = otpTokenRepository.findFirstByEmailAndPurposeAndVerifiedFalseOrderByIdDesc(email,
+                purpose);
+        if (found.isEmpty() || !found.get().getExpiryTime().isAfter(now)) {
+            return false;
+        }
+        OtpToken otpToken = found.get();
+        if (!OtpStore.matches(otpToken.getOtp(), otp)) {
+            separateTransaction.executeWithoutResult(status -> {
+                otpTokenRepository.incrementAttempts(otpToken.getId());
+                if (otpTokenRepository.deleteIfAttemptsReached(otpToken.getId(), maxAttempts) > 0) {
+                    log.info("Discarded {} OTP for {} after {} wrong attempts", purpose, email, maxAttempts);
+                }
+            });
+            return false;
+        }
+        return otpTokenRepository.markVerified(otpToken.getId(), now.plus(verifiedTtl)) == 1;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isVerified(String email, OtpToken.OtpPurpose purpose) {
+        return otpTokenRepository.existsByEmailAndPurposeAndVerifiedTrueAndExpiryTimeAfter(email, purpose,
+                LocalDateTime.now());
+    }
+
+    @Override
+    @Transactional
+    public void remove(String email, OtpToken.OtpPurpose purpose) {
+        otpTokenRepository.deleteByEmailAndPurpose(email, purpose);
+    }
+
+    @Transactional
+    @Scheduled(cron = "${app.auth.otp.purge-cron:0 */10 * * * *}")
+    public void purgeExpired() {
+        int deleted = otpTokenRepository.deleteExpired(LocalDateTime.now());
+        purged.increment(deleted);
+        if (deleted > 0) {
+            log.info("Purged {} expired OTP tokens", deleted);
+        }
+    }
+}
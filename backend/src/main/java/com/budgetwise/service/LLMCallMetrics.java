@@ -0,0 +1,69 @@
+package com.budgetwise.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt size and latency of every upstream LLM call, so latency can be read
+ * against prompt size. Metrics: llm.prompt.tokens{mode} (estimated tokens,
+ * see {@link PromptBuilder#estimateTokens}) and
+ * llm.call.latency{mode, prompt.size, outcome}, where prompt.size is a fixed
+ * bucket (le256, le512, le1024, le2048, gt2048).
+ */
+@Component
+public class LLMCallMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(LLMCallMetrics.class);
+
+    private final MeterRegistry meterRegistry;
+
+    public LLMCallMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public static int promptTokens(List<Map<String, String>> messages) {
+        int tokens = 0;
+        for (Map<String, String> message : messages) {
+            tokens += PromptBuilder.estimateTokens(message.getOrDefault("content", "")) + 4; // role framing
+        }
+        return tokens;
+    }
+
+    /** @param mode "blocking" or "stream"; outcome is a short status such as OK or TIMEOUT */
+    public void record(String mode, int promptTokens, long elapsedNanos, String outcome) {
+        DistributionSummary.builder("llm.prompt.tokens")
+                .tag("mode", mode)
+                .baseUnit("tokens")
+                .register(meterRegistry)
+                .record(promptTokens);
+        Timer.builder("llm.call.latency")
+                .tag("mode", mode)
+                .tag("prompt.size", sizeBucket(promptTokens))
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        log.debug("LLM {} call: ~{} prompt tokens, {} ms, {}", mode, promptTokens,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), outcome);
+    }
+
+    static String sizeBucket(int promptTokens) {
+        if (promptTokens <= 256) {
+            return "le256";
+        }
+        if (promptTokens <= 512) {
+            return "le512";
+        }
+        if (promptTokens <= 1024) {
+            return "le1024";
+        }
+        return promptTokens <= 2048 ? "le2048" : "gt2048";
+    }
+}
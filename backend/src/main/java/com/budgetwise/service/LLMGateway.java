@@ -0,0 +1,269 @@
+package com.budgetwise.service;
+
+import com.budgetwise.config.LLMGatewayProperties;
+import com.budgetwise.util.CircuitBreaker;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transport for OpenAI-compatible chat completions. Requests go over a
+ * pooled HTTP client with connect and read timeouts. Each call is guarded,
+ * outermost first, by:
+ * <ul>
+ * <li>a circuit breaker that fails fast while the upstream is unhealthy</li>
+ * <li>a bulkhead bounding concurrent calls from this instance</li>
+ * <li>bounded retries with exponential backoff and full jitter for 429, 5xx
+ * and I/O failures; Retry-After is honoured up to the backoff cap. The
+ * bulkhead permit is given up while backing off and taken again for the
+ * next attempt, so a permit is held for at most one read timeout at a
+ * time</li>
+ * </ul>
+ * Failures come back as typed {@link LLMResult}s, never as exceptions.
+ */
+@Component
+public class LLMGateway {
+
+    private static final Logger log = LoggerFactory.getLogger(LLMGateway.class);
+
+    private final String apiKey;
+    private final String model;
+    private final String apiUrl;
+    private final LLMGatewayProperties properties;
+    private final CloseableHttpClient httpClient;
+    private final RestClient restClient;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    public LLMGateway(@Value("${app.openai.api-key}") String apiKey,
+            @Value("${app.openai.model}") String model,
+            @Value("${app.openai.api-url}") String apiUrl,
+            LLMGatewayProperties properties) {
+        this.apiKey = apiKey;
+        this.model = model;
+        this.apiUrl = apiUrl;
+        this.properties = properties;
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(properties.getReadTimeout()))
+                        .build())
+                .build();
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.of(properties.getReadTimeout()))
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .disableAutomaticRetries()
+                .build();
+        this.restClient = RestClient.builder()
+                .requestFactory(new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build();
+
+        this.bulkhead = new Semaphore(properties.getMaxConcurrent());
+        this.circuitBreaker = new CircuitBreaker(properties.getBreakerFailureThreshold(),
+                properties.getBreakerOpenDuration());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    public LLMResult chat(List<Map<String, String>> messages) {
+        if (apiKey == null || apiKey.isBlank() || apiKey.contains("REPLACE_WITH")) {
+            return LLMResult.failure(LLMResult.Status.NOT_CONFIGURED,
+                    "API Key is missing. Please set 'app.openai.api-key' in application.properties.");
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            return LLMResult.failure(LLMResult.Status.CIRCUIT_OPEN, "AI service temporarily unavailable");
+        }
+
+        if (!acquireBulkhead()) {
+            circuitBreaker.onIgnored();
+            return LLMResult.failure(LLMResult.Status.BULKHEAD_FULL, "Too many concurrent AI requests");
+        }
+
+        LLMResult result;
+        try {
+            result = callWithRetries(Map.of("model", model, "messages", messages));
+        } catch (RuntimeException e) {
+            // Anything the attempt does not classify still has to reach the breaker,
+            // or a half-open trial would never finish
+            log.warn("AI call failed unexpectedly", e);
+            circuitBreaker.onFailure();
+            return LLMResult.failure(LLMResult.Status.UPSTREAM_ERROR, String.valueOf(e.getMessage()));
+        }
+        switch (result.getStatus()) {
+            case TIMEOUT, RATE_LIMITED, UPSTREAM_ERROR -> circuitBreaker.onFailure();
+            default -> circuitBreaker.onSuccess(); // the upstream answered
+        }
+        return result;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private boolean acquireBulkhead() {
+        try {
+            return bulkhead.tryAcquire(properties.getBulkheadWait().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** Called holding a bulkhead permit; always gives it back. */
+    private LLMResult callWithRetries(Map<String, Object> body) {
+        int maxAttempts = Math.max(1, properties.getMaxAttempts());
+        boolean holdingPermit = true;
+        try {
+            for (int attempt = 1;; attempt++) {
+                Attempt outcome = attempt(body);
+                if (!outcome.retryable || attempt >= maxAttempts) {
+                    if (!outcome.result.isSuccess()) {
+                        log.warn("AI call failed after {} attempt(s): {}", attempt, outcome.result);
+                    }
+                    return outcome.result;
+                }
+                long delay = backoffMillis(attempt, outcome.retryAfterMillis);
+                log.debug("AI call attempt {} failed ({}), retrying in {} ms", attempt, outcome.result, delay);
+                bulkhead.release();
+                holdingPermit = false;
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return outcome.result;
+                }
+                if (!acquireBulkhead()) {
+                    log.warn("AI call gave up after {} attempt(s), bulkhead full: {}", attempt, outcome.result);
+                    return outcome.result;
+                }
+                holdingPermit = true;
+            }
+        } finally {
+            if (holdingPermit) {
+                bulkhead.release();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Attempt attempt(Map<String, Object> body) {
+        try {
+            Map<String, Object> response = restClient.post()
+                    .uri(apiUrl)
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(body)
+                    .retrieve()
+                    .body(Map.class);
+            return Attempt.done(extractContent(response));
+        } catch (RestClientResponseException e) {
+            int status = e.getStatusCode().value();
+            if (status == 429) {
+                return Attempt.retry(LLMResult.failure(LLMResult.Status.RATE_LIMITED, "HTTP 429"),
+                        retryAfterMillis(e.getResponseHeaders()));
+            }
+            if (status >= 500) {
+                return Attempt.retry(LLMResult.failure(LLMResult.Status.UPSTREAM_ERROR, "HTTP " + status), 0);
+            }
+            return Attempt.done(LLMResult.failure(LLMResult.Status.BAD_REQUEST, "HTTP " + status));
+        } catch (ResourceAccessException e) {
+            LLMResult.Status status = isTimeout(e) ? LLMResult.Status.TIMEOUT : LLMResult.Status.UPSTREAM_ERROR;
+            return Attempt.retry(LLMResult.failure(status, String.valueOf(e.getMessage())), 0);
+        } catch (RestClientException e) {
+            return Attempt.done(LLMResult.failure(LLMResult.Status.BAD_RESPONSE, String.valueOf(e.getMessage())));
+        }
+    }
+
+    private static LLMResult extractContent(Map<String, Object> response) {
+        if (response != null && response.get("choices") instanceof List<?> choices && !choices.isEmpty()
+                && choices.get(0) instanceof Map<?, ?> firstChoice
+                && firstChoice.get("message") instanceof Map<?, ?> message
+                && message.get("content") instanceof String content) {
+            return LLMResult.success(content);
+        }
+        return LLMResult.failure(LLMResult.Status.BAD_RESPONSE, "No response from AI.");
+    }
+
+    /** Full jitter: uniform in [0, min(max, initial * 2^(attempt-1))], at least Retry-After. */
+    private long backoffMillis(int attempt, long retryAfterMillis) {
+        long max = properties.getBackoffMax().toMillis();
+        long ceiling = Math.min(max, properties.getBackoffInitial().toMillis() << Math.min(attempt - 1, 20));
+        long jittered = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        return Math.max(jittered, Math.min(retryAfterMillis, max));
+    }
+
+    private static long retryAfterMillis(HttpHeaders headers) {
+        String value = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0; // HTTP-date form; fall back to our own backoff
+        }
+    }
+
+    private static boolean isTimeout(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedIOException) {
+                return true; // SocketTimeoutException and the client's ConnectTimeoutException
+            }
+        }
+        return false;
+    }
+
+    private static final class Attempt {
+        private final LLMResult result;
+        private final boolean retryable;
+        private final long retryAfterMillis;
+
+        private Attempt(LLMResult result, boolean retryable, long retryAfterMillis) {
+            this.result = result;
+            this.retryable = retryable;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        static Attempt done(LLMResult result) {
+            return new Attempt(result, false, 0);
+        }
+
+        static Attempt retry(LLMResult result, long retryAfterMillis) {
+            return new Attempt(result, true, retryAfterMillis);
+        }
+    }
+}
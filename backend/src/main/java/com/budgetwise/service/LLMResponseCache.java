@@ -0,0 +1,181 @@
+package com.budgetwise.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Response cache in front of {@link LLMService#getChatResponse} for prompts
+ * that are a pure function of the user's data, such as card suggestions.
+ * Entries are keyed by (model, system prompt hash, user message hash), so any
+ * change to the embedded financial context is a different key.
+ *
+ * Entries are fresh for ttl and kept up to stale-ttl so they can stand in
+ * when the upstream call fails. Concurrent identical misses share one
+ * upstream call. Metrics: llm.cache.requests{result=hit|coalesced|miss},
+ * llm.cache.stale.served, llm.cache.hit.ratio and llm.cache.saved.latency
+ * (upstream milliseconds avoided by hits).
+ */
+@Component
+public class LLMResponseCache {
+
+    private final LLMService llmService;
+    private final String model;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    private final Cache<String, Entry> entries;
+    private final Map<String, CompletableFuture<LLMResult>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter coalesced;
+    private final Counter misses;
+    private final Counter staleServed;
+    private final Counter savedLatencyMillis;
+
+    @Autowired
+    public LLMResponseCache(LLMService llmService, MeterRegistry meterRegistry,
+            @Value("${app.openai.model}") String model,
+            @Value("${app.openai.cache.max-size:1000}") long maxSize,
+            @Value("${app.openai.cache.ttl:30m}") Duration ttl,
+            @Value("${app.openai.cache.stale-ttl:24h}") Duration staleTtl) {
+        this(llmService, meterRegistry, model, maxSize, ttl, staleTtl, System::nanoTime);
+    }
+
+    LLMResponseCache(LLMService llmService, MeterRegistry meterRegistry, String model, long maxSize,
+            Duration ttl, Duration staleTtl, LongSupplier nanoTime) {
+        this.llmService = llmService;
+        this.model = model;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(staleTtl)
+                .ticker(nanoTime::getAsLong)
+                .build();
+        this.hits = requests(meterRegistry, "hit");
+        this.coalesced = requests(meterRegistry, "coalesced");
+        this.misses = requests(meterRegistry, "miss");
+        this.staleServed = Counter.builder("llm.cache.stale.served")
+                .description("Upstream failures answered from an expired entry")
+                .register(meterRegistry);
+        this.savedLatencyMillis = Counter.builder("llm.cache.saved.latency")
+                .description("Upstream latency avoided by cache hits")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("llm.cache.hit.ratio", this, LLMResponseCache::hitRatio).register(meterRegistry);
+    }
+
+    public LLMResult getChatResponse(String systemPrompt, String userMessage) {
+        String key = key(systemPrompt, userMessage);
+        Entry cached = entries.getIfPresent(key);
+        if (isFresh(cached)) {
+            return hit(cached);
+        }
+
+        CompletableFuture<LLMResult> call = new CompletableFuture<>();
+        CompletableFuture<LLMResult> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            coalesced.increment();
+            return join(existing);
+        }
+        try {
+            // Another caller may have finished between the lookup and the claim
+            Entry latest = entries.getIfPresent(key);
+            if (isFresh(latest)) {
+                LLMResult response = hit(latest);
+                call.complete(response);
+                return response;
+            }
+
+            misses.increment();
+            long started = nanoTime.getAsLong();
+            LLMResult response = llmService.getChatResponse(systemPrompt, userMessage);
+            long finished = nanoTime.getAsLong();
+            if (response.isSuccess()) {
+                entries.put(key, new Entry(response.getText(), finished, finished - started));
+            } else if (latest != null) {
+                staleServed.increment();
+                response = LLMResult.success(latest.text);
+            }
+            call.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private LLMResult hit(Entry entry) {
+        hits.increment();
+        savedLatencyMillis.increment(entry.upstreamNanos / 1_000_000.0);
+        return LLMResult.success(entry.text);
+    }
+
+    private boolean isFresh(Entry entry) {
+        return entry != null && nanoTime.getAsLong() - entry.storedAt < ttlNanos;
+    }
+
+    private static LLMResult join(CompletableFuture<LLMResult> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private double hitRatio() {
+        double served = hits.count() + coalesced.count();
+        double total = served + misses.count();
+        return total == 0 ? 0 : served / total;
+    }
+
+    private String key(String systemPrompt, String userMessage) {
+        return model + ':' + sha256(systemPrompt) + ':' + sha256(userMessage);
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("llm.cache.requests").tag("result", result).register(meterRegistry);
+    }
+
+    private static final class Entry {
+        private final String text;
+        private final long storedAt;
+        private final long upstreamNanos;
+
+        Entry(String text, long storedAt, long upstreamNanos) {
+            this.text = text;
+            this.storedAt = storedAt;
+            this.upstreamNanos = upstreamNanos;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.budgetwise.service;
+
+/**
+ * Outcome of an LLM call. Callers branch on {@link #isSuccess()} and the
+ * {@link Status} instead of inspecting the text for error prefixes.
+ */
+public final class LLMResult {
+
+    public enum Status {
+        OK,
+        /** No API key configured. */
+        NOT_CONFIGURED,
+        /** Connect or read timeout on every attempt. */
+        TIMEOUT,
+        /** HTTP 429 on every attempt. */
+        RATE_LIMITED,
+        /** HTTP 5xx or connection failure on every attempt. */
+        UPSTREAM_ERROR,
+        /** HTTP 4xx other than 429; the request itself was rejected. */
+        BAD_REQUEST,
+        /** 2xx without a usable completion in the body. */
+        BAD_RESPONSE,
+        /** Circuit breaker open; the upstream was not called. */
+        CIRCUIT_OPEN,
+        /** Concurrency limit reached; the upstream was not called. */
+        BULKHEAD_FULL
+    }
+
+    private final Status status;
+    private final String text;
+    private final String error;
+
+    private LLMResult(Status status, String text, String error) {
+        this.status = status;
+        this.text = text;
+        this.error = error;
+    }
+
+    public static LLMResult success(String text) {
+        return new LLMResult(Status.OK, text, null);
+    }
+
+    public static LLMResult failure(Status status, String error) {
+        if (status == Status.OK) {
+            throw new IllegalArgumentException("A failure needs a failure status");
+        }
+        return new LLMResult(status, null, error);
+    }
+
+    public boolean isSuccess() {
+        return status == Status.OK;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /** The completion text; null unless {@link #isSuccess()}. */
+    public String getText() {
+        return text;
+    }
+
+    /** Why the call failed; null on success. */
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? "LLMResult[OK]" : "LLMResult[" + status + ": " + error + "]";
+    }
+}
@@ -1,9 +1,6 @@
 package com.budgetwise.service;
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
 
 import java.util.List;
 import java.util.Map;
@@ -11,53 +8,31 @@ import java.util.Map;
 @Service
 public class LLMService {
 
-    @Value("${app.openai.api-key}")
-    private String apiKey;
+    private final LLMGateway gateway;
+    private final LLMCallMetrics callMetrics;
 
-    @Value("${app.openai.model}")
-    private String model;
-
-    @Value("${app.openai.api-url}")
-    private String apiUrl;
-
-    private final RestClient restClient;
-
-    public LLMService() {
-        this.restClient = RestClient.create();
+    public LLMService(LLMGateway gateway, LLMCallMetrics callMetrics) {
+        this.gateway = gateway;
+        this.callMetrics = callMetrics;
     }
 
-    public String getChatResponse(String systemPrompt, String userMessage) {
-        if (apiKey == null || apiKey.contains("REPLACE_WITH")) {
-            return "Configuration Error: API Key is missing. Please set 'app.openai.api-key' in application.properties.";
-        }
-
-        try {
-            Map<String, Object> requestBody = Map.of(
-                    "model", model,
-                    "messages", List.of(
-                            Map.of("role", "system", "content", systemPrompt),
-                            Map.of("role", "user", "content", userMessage)));
-
-            Map<String, Object> response = (Map<String, Object>) restClient.post()
-                    .uri(apiUrl)
-                    .header("Authorization", "Bearer " + apiKey)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(requestBody)
-                    .retrieve()
-                    .body(Map.class);
+    /**
+     * One-shot completion. Timeouts, retries, the circuit breaker and the
+     * concurrency limit are applied by {@link LLMGateway}; check
+     * {@link LLMResult#isSuccess()} before using the text.
+     */
+    public LLMResult getChatResponse(String systemPrompt, String userMessage) {
+        return getChatResponse(List.of(
+                Map.of("role", "system", "content", systemPrompt),
+                Map.of("role", "user", "content", userMessage)));
+    }
 
-            if (response != null && response.containsKey("choices")) {
-                List<Map<String, Object>> choices = (List<Map<String, Object>>) response.get("choices");
-                if (!choices.isEmpty()) {
-                    Map<String, Object> firstChoice = choices.get(0);
-                    Map<String, Object> message = (Map<String, Object>) firstChoice.get("message");
-                    return (String) message.get("content");
-                }
-            }
-            return "Error: No response from AI.";
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "Error calling AI Service: " + e.getMessage();
-        }
+    /** Completion over a full conversation: role/content maps, system prompt first, newest last. */
+    public LLMResult getChatResponse(List<Map<String, String>> messages) {
+        long started = System.nanoTime();
+        LLMResult result = gateway.chat(messages);
+        callMetrics.record("blocking", LLMCallMetrics.promptTokens(messages), System.nanoTime() - started,
+                result.getStatus().name());
+        return result;
     }
 }
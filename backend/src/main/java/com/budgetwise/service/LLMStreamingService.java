@@ -0,0 +1,259 @@
+package com.budgetwise.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Streams chat completions from the OpenAI-compatible endpoint
+ * ({@code stream: true}) without holding a thread while the model is
+ * generating. Each content delta is handed to the caller as it arrives.
+ *
+ * Timeouts: connect-timeout bounds the TCP/TLS handshake, read-timeout bounds
+ * both the wait for response headers and any silence between chunks. At most
+ * max-concurrent streams are open at once; further calls are rejected.
+ */
+@Service
+public class LLMStreamingService {
+
+    private static final String DATA_PREFIX = "data:";
+    private static final String DONE_MARKER = "[DONE]";
+
+    private final String apiKey;
+    private final String model;
+    private final URI apiUri;
+    private final Duration readTimeout;
+    private final Semaphore permits;
+    private final ObjectMapper objectMapper;
+    private final LLMCallMetrics callMetrics;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService idleTimer;
+
+    public LLMStreamingService(@Value("${app.openai.api-key}") String apiKey,
+            @Value("${app.openai.model}") String model,
+            @Value("${app.openai.api-url}") String apiUrl,
+            @Value("${app.openai.stream.connect-timeout:5s}") Duration connectTimeout,
+            @Value("${app.openai.stream.read-timeout:30s}") Duration readTimeout,
+            @Value("${app.openai.stream.max-concurrent:32}") int maxConcurrent,
+            ObjectMapper objectMapper, LLMCallMetrics callMetrics) {
+        this.apiKey = apiKey;
+        this.model = model;
+        this.apiUri = URI.create(apiUrl);
+        this.readTimeout = readTimeout;
+        this.permits = new Semaphore(maxConcurrent);
+        this.objectMapper = objectMapper;
+        this.callMetrics = callMetrics;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .build();
+        this.idleTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "llm-stream-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        idleTimer.shutdownNow();
+    }
+
+    /**
+     * Starts a streamed completion. The returned future completes when the
+     * model finishes, or exceptionally on HTTP errors and timeouts. Cancelling
+     * it aborts the upstream request.
+     *
+     * @throws RejectedExecutionException if max-concurrent streams are open
+     */
+    public CompletableFuture<Void> streamChatResponse(String systemPrompt, String userMessage,
+            Consumer<String> onToken) {
+        return streamChatResponse(List.of(
+                Map.of("role", "system", "content", systemPrompt),
+                Map.of("role", "user", "content", userMessage)), onToken);
+    }
+
+    /** Same as above over a full conversation, as passed to LLMService. */
+    public CompletableFuture<Void> streamChatResponse(List<Map<String, String>> messages,
+            Consumer<String> onToken) {
+        if (apiKey == null || apiKey.contains("REPLACE_WITH")) {
+            return CompletableFuture.failedFuture(new IllegalStateException("API Key is missing"));
+        }
+        if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("Too many concurrent AI streams");
+        }
+
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        done.whenComplete((v, error) -> permits.release());
+
+        long started = System.nanoTime();
+        done.whenComplete((v, error) -> callMetrics.record("stream", LLMCallMetrics.promptTokens(messages),
+                System.nanoTime() - started, outcome(error)));
+
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(Map.of(
+                    "model", model,
+                    "stream", true,
+                    "messages", messages));
+        } catch (JsonProcessingException e) {
+            done.completeExceptionally(e);
+            return done;
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(apiUri)
+                .timeout(readTimeout)
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .header("Accept", "text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        ChunkSubscriber subscriber = new ChunkSubscriber(done, onToken);
+        CompletableFuture<HttpResponse<Void>> exchange = httpClient.sendAsync(request,
+                info -> info.statusCode() == 200
+                        ? HttpResponse.BodySubscribers.fromLineSubscriber(subscriber)
+                        : HttpResponse.BodySubscribers.discarding());
+        exchange.whenComplete((response, error) -> {
+            if (error != null) {
+                done.completeExceptionally(error);
+            } else if (response.statusCode() != 200) {
+                done.completeExceptionally(
+                        new IllegalStateException("AI service returned HTTP " + response.statusCode()));
+            }
+        });
+
+        // Covers normal completion too: releases the idle timer and the connection
+        done.whenComplete((v, error) -> {
+            subscriber.cancel();
+            exchange.cancel(true);
+        });
+        return done;
+    }
+
+    private static String outcome(Throwable error) {
+        if (error == null) {
+            return "OK";
+        }
+        if (error instanceof CancellationException) {
+            return "CANCELLED";
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+        return cause instanceof TimeoutException || cause instanceof HttpTimeoutException
+                ? "TIMEOUT"
+                : "UPSTREAM_ERROR";
+    }
+
+    /** Parses the SSE lines of one completion and forwards content deltas. */
+    private final class ChunkSubscriber implements Flow.Subscriber<String> {
+
+        private final CompletableFuture<Void> done;
+        private final Consumer<String> onToken;
+        private volatile Flow.Subscription subscription;
+        private volatile ScheduledFuture<?> idleTimeout;
+
+        ChunkSubscriber(CompletableFuture<Void> done, Consumer<String> onToken) {
+            this.done = done;
+            this.onToken = onToken;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (done.isDone()) {
+                subscription.cancel();
+                return;
+            }
+            resetIdleTimeout();
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (done.isDone()) {
+                return;
+            }
+            resetIdleTimeout();
+            if (!line.startsWith(DATA_PREFIX)) {
+                return; // blank separators, comments and keep-alives
+            }
+            String data = line.substring(DATA_PREFIX.length()).trim();
+            if (DONE_MARKER.equals(data)) {
+                done.complete(null);
+                return;
+            }
+            try {
+                JsonNode chunk = objectMapper.readTree(data);
+                if (chunk.has("error")) {
+                    done.completeExceptionally(new IllegalStateException(
+                            "AI service error: " + chunk.path("error").path("message").asText()));
+                    return;
+                }
+                JsonNode content = chunk.path("choices").path(0).path("delta").path("content");
+                if (content.isTextual() && !content.asText().isEmpty()) {
+                    onToken.accept(content.asText());
+                }
+            } catch (Exception e) {
+                done.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            // Some providers close the stream without a [DONE] marker
+            done.complete(null);
+        }
+
+        void cancel() {
+            ScheduledFuture<?> timeout = idleTimeout;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        private void resetIdleTimeout() {
+            ScheduledFuture<?> previous = idleTimeout;
+            if (previous != null) {
+                previous.cancel(false);
+            }
+            idleTimeout = idleTimer.schedule(
+                    () -> done.completeExceptionally(
+                            new TimeoutException("No data from AI service for " + readTimeout)),
+                    readTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.budgetwise.service;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.stereotype.Component;
+
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * OTP email subjects and HTML bodies, one per purpose.
+ *
+ * Each body is rendered once at startup with a marker where the code goes
+ * and kept as the text before and after it, so composing a message is two
+ * concatenations. Messages are a single text/html part; there is nothing to
+ * attach, so the multipart wrapper MimeMessageHelper would add is skipped.
+ */
+@Component
+public class OtpEmailTemplates {
+
+    private static final String OTP_SLOT = "\u0000OTP\u0000";
+    private static final String CHARSET = "UTF-8";
+
+    private static final String BODY = """
+            <div style="font-family: Arial, sans-serif; max-width: 600px; margin: auto; padding: 20px; border-radius: 8px; background-color: #f9f9f9; text-align: center;">
+                <h2 style="color: #333;">%s</h2>
+                <p style="font-size: 16px; color: #555;">%s</p>
+                <div style="display: inline-block; margin: 20px 0; padding: 15px 30px; font-size: 24px; font-weight: bold; color: #fff; background-color: #007bff; border-radius: 5px; letter-spacing: 3px;">%s</div>
+                <p style="font-size: 14px; color: #777;">This code will expire in 5 minutes.</p>
+                <p style="font-size: 12px; color: #aaa;">This is an automated message. Please do not reply.</p>
+            </div>
+            """;
+
+    private final Map<String, Template> byPurpose = new HashMap<>();
+    private final Template fallback;
+    private final InternetAddress from;
+
+    public OtpEmailTemplates() {
+        Template signup = new Template("BudgetWise - Verify Your Email for Registration",
+                "Thank you for signing up with BudgetWise! Please use the verification code below to complete your registration.");
+        Template login = new Template("BudgetWise - Your Login OTP",
+                "Please use the verification code below to sign in to your BudgetWise account.");
+        Template reset = new Template("BudgetWise - Password Reset Request",
+                "Please use the verification code below to reset your BudgetWise account password.");
+        byPurpose.put("SIGNUP", signup);
+        byPurpose.put("LOGIN", login);
+        byPurpose.put("RESET", reset);
+        byPurpose.put("RESET_PASSWORD", reset);
+        fallback = new Template("BudgetWise - Verification Code",
+                "Please use the verification code below for your request.");
+        try {
+            from = new InternetAddress("noreply@budgetwise.com", "BudgetWise", CHARSET);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** The template for a purpose such as SIGNUP; case-insensitive, with a generic one for anything else. */
+    public Template forPurpose(String purpose) {
+        Template template = byPurpose.get(purpose);
+        if (template == null && purpose != null) {
+            template = byPurpose.get(purpose.toUpperCase(Locale.ROOT));
+        }
+        return template != null ? template : fallback;
+    }
+
+    /** Fills an empty message from the mail session with the OTP email for {@code to}. */
+    public MimeMessage compose(MimeMessage message, String to, String otp, String purpose)
+            throws MessagingException {
+        Template template = forPurpose(purpose);
+        message.setFrom(from);
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(to, true));
+        message.setSubject(template.subject(), CHARSET);
+        message.setText(template.body(otp), CHARSET, "html");
+        return message;
+    }
+
+    public static final class Template {
+        private final String subject;
+        private final String head;
+        private final String tail;
+
+        Template(String subject, String description) {
+            // The heading has always repeated the subject
+            String shell = String.format(BODY, subject, description, OTP_SLOT);
+            int slot = shell.indexOf(OTP_SLOT);
+            this.subject = subject;
+            this.head = shell.substring(0, slot);
+            this.tail = shell.substring(slot + OTP_SLOT.length());
+        }
+
+        public String subject() {
+            return subject;
+        }
+
+        public String body(String otp) {
+            return head + otp + tail;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.entity.OtpToken;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+
+/**
+ * Issued OTP codes, one live code per email and purpose.
+ *
+ * app.auth.otp.store selects the implementation: "jpa" (JpaOtpStore, the
+ * otp_tokens table, the default) or "memory" (InMemoryOtpStore, for a single
+ * instance). Both compare codes in constant time, discard a code after
+ * max-attempts wrong guesses, and keep a verified code for verified-ttl so
+ * the step it unlocks (a password reset) can check it.
+ */
+public interface OtpStore {
+
+    /** Stores a code, replacing any earlier one for the same email and purpose. */
+    void issue(String email, OtpToken.OtpPurpose purpose, String otp, LocalDateTime expiryTime);
+
+    /**
+     * Marks the code verified if it matches, has not expired and has not been
+     * used. A wrong guess counts against the code.
+     *
+     * @return true for the one request that verified the code
+     */
+    boolean verify(String email, OtpToken.OtpPurpose purpose, String otp);
+
+    /** Whether a code for this email and purpose was verified within verified-ttl. */
+    boolean isVerified(String email, OtpToken.OtpPurpose purpose);
+
+    void remove(String email, OtpToken.OtpPurpose purpose);
+
+    /** Compares codes without returning early on the first differing digit. */
+    static boolean matches(String expected, String given) {
+        return given != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                given.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,230 @@
+package com.budgetwise.service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Assembles prompt text under an estimated token budget. Sections are
+ * admitted by priority (0 first) and always printed in the order they were
+ * added. A section that does not fit whole keeps as many of its leading
+ * lines as fit, followed by a "(+N more)" marker, or is dropped if not even
+ * its header fits.
+ *
+ * Token counts are estimates for BPE tokenizers (roughly four letters or
+ * three digits per token, one per symbol or non-ASCII character); they are
+ * meant for budgeting and metrics, not billing.
+ */
+public class PromptBuilder {
+
+    private static final BigDecimal THOUSAND = BigDecimal.valueOf(1_000);
+    private static final BigDecimal MILLION = BigDecimal.valueOf(1_000_000);
+    private static final BigDecimal BILLION = BigDecimal.valueOf(1_000_000_000);
+    private static final MathContext THREE_DIGITS = new MathContext(3, RoundingMode.HALF_UP);
+
+    private final int maxTokens;
+    private final List<Section> sections = new ArrayList<>();
+
+    public PromptBuilder(int maxTokens) {
+        this.maxTokens = maxTokens;
+    }
+
+    /** Adds a section of whole lines; only its leading lines are kept when space runs out. */
+    public PromptBuilder section(int priority, String header, List<String> lines) {
+        sections.add(new Section(sections.size(), priority, header, lines));
+        return this;
+    }
+
+    public PromptBuilder section(int priority, String line) {
+        return section(priority, null, List.of(line));
+    }
+
+    public Prompt build() {
+        List<Section> byPriority = new ArrayList<>(sections);
+        byPriority.sort(Comparator.comparingInt((Section s) -> s.priority).thenComparingInt(s -> s.order));
+
+        String[] rendered = new String[sections.size()];
+        int used = 0;
+        int omittedLines = 0;
+        for (Section section : byPriority) {
+            StringBuilder text = new StringBuilder();
+            int cost = 0;
+            if (section.header != null) {
+                text.append(section.header).append('\n');
+                cost = estimateTokens(text);
+                if (used + cost > maxTokens) {
+                    omittedLines += section.lines.size();
+                    continue;
+                }
+            }
+            int headerEnd = text.length();
+            int[] lineEnds = new int[section.lines.size()];
+            int[] lineCosts = new int[section.lines.size()];
+            int kept = 0;
+            for (String line : section.lines) {
+                int lineCost = estimateTokens(line) + 1;
+                if (used + cost + lineCost > maxTokens) {
+                    break;
+                }
+                text.append(line).append('\n');
+                cost += lineCost;
+                lineEnds[kept] = text.length();
+                lineCosts[kept] = lineCost;
+                kept++;
+            }
+            if (kept < section.lines.size()) {
+                // Give back lines until the "(+N more)" marker fits too
+                String marker = moreMarker(section.lines.size() - kept);
+                while (kept > 0 && used + cost + estimateTokens(marker) > maxTokens) {
+                    kept--;
+                    cost -= lineCosts[kept];
+                    text.setLength(kept == 0 ? headerEnd : lineEnds[kept - 1]);
+                    marker = moreMarker(section.lines.size() - kept);
+                }
+                if (kept == 0 && (section.header == null || used + cost + estimateTokens(marker) > maxTokens)) {
+                    omittedLines += section.lines.size();
+                    continue;
+                }
+                text.append(marker);
+                cost += estimateTokens(marker);
+                omittedLines += section.lines.size() - kept;
+            }
+            rendered[section.order] = text.toString();
+            used += cost;
+        }
+
+        StringBuilder prompt = new StringBuilder();
+        for (String text : rendered) {
+            if (text != null) {
+                prompt.append(text);
+            }
+        }
+        return new Prompt(prompt.toString(), used, omittedLines);
+    }
+
+    private static String moreMarker(int omitted) {
+        return "(+" + omitted + " more)\n";
+    }
+
+    /** Estimated BPE token count of the text. */
+    public static int estimateTokens(CharSequence text) {
+        int tokens = 0;
+        int letters = 0;
+        int digits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 128 && Character.isLetter(c)) {
+                letters++;
+                continue;
+            }
+            if (c >= '0' && c <= '9') {
+                digits++;
+                continue;
+            }
+            tokens += (letters + 3) / 4 + (digits + 2) / 3;
+            letters = 0;
+            digits = 0;
+            if (Character.isHighSurrogate(c)) {
+                i++; // one code point
+                tokens++;
+            } else if (c != ' ') {
+                tokens++; // punctuation, newlines and non-ASCII; a space usually merges into the next word
+            }
+        }
+        return tokens + (letters + 3) / 4 + (digits + 2) / 3;
+    }
+
+    /**
+     * Short form of an amount: whole units below 10,000, otherwise three
+     * significant digits with a k/M/B suffix (52345.10 becomes "52.3k").
+     */
+    public static String compact(BigDecimal amount) {
+        if (amount == null) {
+            return "0";
+        }
+        BigDecimal abs = amount.abs();
+        String sign = amount.signum() < 0 ? "-" : "";
+        if (abs.compareTo(BigDecimal.valueOf(10_000)) < 0) {
+            return sign + abs.setScale(0, RoundingMode.HALF_UP).toPlainString();
+        }
+        BigDecimal divisor;
+        String suffix;
+        if (abs.compareTo(MILLION) < 0) {
+            divisor = THOUSAND;
+            suffix = "k";
+        } else if (abs.compareTo(BILLION) < 0) {
+            divisor = MILLION;
+            suffix = "M";
+        } else {
+            divisor = BILLION;
+            suffix = "B";
+        }
+        BigDecimal scaled = abs.divide(divisor, THREE_DIGITS);
+        if (scaled.compareTo(THOUSAND) >= 0 && divisor != BILLION) {
+            // Rounding carried into the next unit: 999,999.99 is 1M, not 1000k
+            divisor = divisor.multiply(THOUSAND);
+            suffix = divisor.equals(MILLION) ? "M" : "B";
+            scaled = abs.divide(divisor, THREE_DIGITS);
+        }
+        return sign + scaled.stripTrailingZeros().toPlainString() + suffix;
+    }
+
+    /** Collapses whitespace and cuts free text to at most maxChars characters. */
+    public static String clip(String text, int maxChars) {
+        if (text == null || maxChars <= 0) {
+            return "";
+        }
+        String collapsed = text.strip().replaceAll("\\s+", " ");
+        if (collapsed.length() <= maxChars) {
+            return collapsed;
+        }
+        int end = maxChars - 1;
+        if (end > 0 && Character.isHighSurrogate(collapsed.charAt(end - 1))) {
+            end--; // don't split a surrogate pair
+        }
+        return collapsed.substring(0, end).stripTrailing() + "…";
+    }
+
+    private static final class Section {
+        private final int order;
+        private final int priority;
+        private final String header;
+        private final List<String> lines;
+
+        Section(int order, int priority, String header, List<String> lines) {
+            this.order = order;
+            this.priority = priority;
+            this.header = header;
+            this.lines = lines;
+        }
+    }
+
+    /** Assembled prompt text with its estimated size. */
+    public static final class Prompt {
+        private final String text;
+        private final int estimatedTokens;
+        private final int omittedLines;
+
+        Prompt(String text, int estimatedTokens, int omittedLines) {
+            this.text = text;
+            this.estimatedTokens = estimatedTokens;
+            this.omittedLines = omittedLines;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public int getEstimatedTokens() {
+            return estimatedTokens;
+        }
+
+        /** Lines left out to stay within the budget. */
+        public int getOmittedLines() {
+            return omittedLines;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.dto.RollupDriftReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Backfills the rollup table on first start and periodically re-verifies it
+ * against raw transactions, one user per DB transaction.
+ */
+@Component
+public class RollupVerificationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(RollupVerificationJob.class);
+
+    private final TransactionRollupService rollupService;
+
+    @Value("${app.rollup.verify.repair:true}")
+    private boolean repair;
+
+    public RollupVerificationJob(TransactionRollupService rollupService) {
+        this.rollupService = rollupService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!rollupService.isEmpty()) {
+            return;
+        }
+        List<Long> userIds = rollupService.findUsersWithTransactions();
+        for (Long userId : userIds) {
+            rollupService.rebuildUser(userId);
+        }
+        if (!userIds.isEmpty()) {
+            log.info("Backfilled monthly rollups for {} users", userIds.size());
+        }
+    }
+
+    @Scheduled(cron = "${app.rollup.verify.cron:0 30 3 * * *}")
+    public void verifyAll() {
+        runVerification();
+    }
+
+    public List<RollupDriftReport> runVerification() {
+        List<RollupDriftReport> drifted = new ArrayList<>();
+        for (Long userId : rollupService.findUsersWithTransactions()) {
+            RollupDriftReport report = rollupService.verifyUser(userId, repair);
+            if (report.hasDrift()) {
+                drifted.add(report);
+                log.warn("Rollup drift for user {} ({} of {} buckets, repaired={}): {}", userId,
+                        report.getDrift().size(), report.getBucketsChecked(), report.isRepaired(), report.getDrift());
+            }
+        }
+        log.info("Rollup verification finished, {} users with drift", drifted.size());
+        return drifted;
+    }
+}
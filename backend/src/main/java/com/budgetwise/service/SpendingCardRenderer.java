@@ -0,0 +1,208 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.dto.SpendingCard;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Builds the chat spending card as a {@link SpendingCard} and renders it as
+ * the emoji-delimited text the chat window shows. Number formats are cached
+ * per locale and thread; the text is written into one buffer sized up front.
+ * Thread-safe.
+ */
+public class SpendingCardRenderer {
+
+    public static final Locale DEFAULT_LOCALE = new Locale("en", "IN");
+
+    private static final String RULE = "----------------------------------\n";
+    private static final BigDecimal FIFTY = BigDecimal.valueOf(50);
+    private static final BigDecimal TWENTY = BigDecimal.valueOf(20);
+    private static final BigDecimal FIVE = BigDecimal.valueOf(5);
+    private static final ConcurrentMap<Locale, ThreadLocal<NumberFormat>> FORMATS = new ConcurrentHashMap<>();
+
+    /** Whole-unit number format for the locale; the instance belongs to the calling thread. */
+    public static NumberFormat amountFormat(Locale locale) {
+        return FORMATS.computeIfAbsent(locale, l -> ThreadLocal.withInitial(() -> {
+            NumberFormat nf = NumberFormat.getNumberInstance(l);
+            nf.setMaximumFractionDigits(0);
+            return nf;
+        })).get();
+    }
+
+    /**
+     * @param sortedCategories expense per category, largest first
+     * @param budgets          rows from BudgetService.getBudgetStatus
+     */
+    public SpendingCard toCard(BigDecimal income, BigDecimal expenses,
+            List<Map.Entry<String, BigDecimal>> sortedCategories, List<Map<String, Object>> budgets,
+            List<String> suggestions) {
+        BigDecimal savings = income.subtract(expenses);
+        BigDecimal rate = percentOf(savings, income);
+        String health;
+        String healthLabel;
+        if (rate.compareTo(FIFTY) >= 0) {
+            health = "excellent";
+            healthLabel = "Excellent";
+        } else if (rate.compareTo(TWENTY) >= 0) {
+            health = "moderate";
+            healthLabel = "Moderate";
+        } else {
+            health = "at_risk";
+            healthLabel = "At Risk";
+        }
+
+        List<SpendingCard.CategoryShare> categories = new ArrayList<>(sortedCategories.size());
+        for (Map.Entry<String, BigDecimal> e : sortedCategories) {
+            BigDecimal pct = percentOf(e.getValue(), expenses);
+            int bars = Math.max(1, pct.divide(FIVE, 0, RoundingMode.HALF_UP).intValue()); // each █ = 5%
+            categories.add(new SpendingCard.CategoryShare(e.getKey(), e.getValue(), wholePercent(pct), bars));
+        }
+
+        List<String> alerts = new ArrayList<>();
+        for (Map<String, Object> b : budgets) {
+            if ("over".equalsIgnoreCase(String.valueOf(b.get("status")))) {
+                alerts.add(b.get("categoryName") + " budget exceeded");
+            }
+        }
+        return new SpendingCard(health, healthLabel, income, expenses, savings, wholePercent(rate), categories,
+                alerts, suggestions);
+    }
+
+    public String render(SpendingCard card) {
+        return render(card, DEFAULT_LOCALE);
+    }
+
+    public String render(SpendingCard card, Locale locale) {
+        NumberFormat nf = amountFormat(locale);
+        List<SpendingCard.CategoryShare> categories = card.getCategories();
+        int maxNameLen = 0;
+        for (SpendingCard.CategoryShare c : categories) {
+            maxNameLen = Math.max(maxNameLen, c.getName().length());
+        }
+        int capacity = 320 + categories.size() * (maxNameLen + 30);
+        for (String s : card.getSuggestions()) {
+            capacity += s.length() + 3;
+        }
+        for (String a : card.getAlerts()) {
+            capacity += a.length() + 3;
+        }
+
+        StringBuilder sb = new StringBuilder(capacity);
+        sb.append(RULE);
+        sb.append(healthEmoji(card.getHealth())).append(" Financial Health: ").append(card.getHealthLabel())
+                .append('\n');
+        sb.append(RULE);
+        sb.append('\n');
+        sb.append("💰 Income:   ₹").append(nf.format(card.getIncome())).append('\n');
+        sb.append("💸 Expenses: ₹").append(nf.format(card.getExpenses())).append('\n');
+        sb.append("💵 Savings:  ₹").append(nf.format(card.getSavings()))
+                .append("  (").append(card.getSavingsRate()).append("%)\n");
+
+        if (!categories.isEmpty()) {
+            sb.append('\n');
+            sb.append("📊 Spending Breakdown\n");
+            for (SpendingCard.CategoryShare c : categories) {
+                sb.append(c.getName());
+                for (int i = c.getName().length(); i < maxNameLen; i++) {
+                    sb.append(' ');
+                }
+                sb.append("  ");
+                for (int i = 0; i < c.getBars(); i++) {
+                    sb.append('█');
+                }
+                sb.append(' ').append(c.getPercent()).append("%\n");
+            }
+        }
+
+        sb.append('\n');
+        sb.append("⚠️ Alerts\n");
+        if (card.getAlerts().isEmpty()) {
+            sb.append("No budget alerts — you're on track!\n");
+        } else {
+            for (String alert : card.getAlerts()) {
+                sb.append("• ").append(alert).append('\n');
+            }
+        }
+
+        sb.append('\n');
+        sb.append("🎯 AI Suggestions\n");
+        appendBullets(sb, card.getSuggestions());
+        return sb.toString();
+    }
+
+    public static void appendBullets(StringBuilder sb, List<String> bullets) {
+        for (String bullet : bullets) {
+            sb.append("• ").append(bullet).append('\n');
+        }
+    }
+
+    /**
+     * Non-blank lines of model output with any leading bullet (•, - or *)
+     * and surrounding whitespace removed.
+     */
+    public static List<String> bulletLines(String text) {
+        List<String> lines = new ArrayList<>();
+        int length = text.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            int start = lineStart;
+            int end = lineEnd;
+            while (start < end && Character.isWhitespace(text.charAt(start))) {
+                start++;
+            }
+            if (start < end && isBullet(text.charAt(start))) {
+                start++;
+                while (start < end && Character.isWhitespace(text.charAt(start))) {
+                    start++;
+                }
+            }
+            while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+                end--;
+            }
+            if (start < end) {
+                lines.add(text.substring(start, end));
+            }
+            lineStart = lineEnd + 1;
+        }
+        return lines;
+    }
+
+    private static boolean isBullet(char c) {
+        return c == '•' || c == '-' || c == '*';
+    }
+
+    /** part / whole as a percentage with two decimals, zero when whole is not positive. */
+    private static BigDecimal percentOf(BigDecimal part, BigDecimal whole) {
+        if (whole.compareTo(BigDecimal.ZERO) <= 0) {
+            return BigDecimal.ZERO;
+        }
+        return part.divide(whole, 4, RoundingMode.HALF_UP).movePointRight(2);
+    }
+
+    private static int wholePercent(BigDecimal pct) {
+        return pct.setScale(0, RoundingMode.HALF_UP).intValue();
+    }
+
+    private static String healthEmoji(String health) {
+        switch (health) {
+            case "excellent":
+                return "🟢";
+            case "moderate":
+                return "🟡";
+            default:
+                return "🔴";
+        }
+    }
+}
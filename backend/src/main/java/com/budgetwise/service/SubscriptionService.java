@@ -3,6 +3,7 @@ package com.budgetwise.service;
 import com.budgetwise.dto.SubscriptionRequest;
 import com.budgetwise.model.entity.User;
 import com.budgetwise.repository.UserRepository;
+import com.budgetwise.security.PrincipalCache;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,9 +14,11 @@ import java.time.LocalDateTime;
 public class SubscriptionService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
-    public SubscriptionService(UserRepository userRepository) {
+    public SubscriptionService(UserRepository userRepository, PrincipalCache principalCache) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     public User upgradeSubscription(String email, SubscriptionRequest request) {
@@ -34,6 +37,8 @@ public class SubscriptionService {
         }
         user.setSubscriptionExpiry(expiry);
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        principalCache.invalidate(email);
+        return saved;
     }
 }
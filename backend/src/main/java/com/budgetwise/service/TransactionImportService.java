@@ -0,0 +1,489 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.dto.TransactionImportResult;
+import com.budgetwise.model.entity.Category;
+import com.budgetwise.model.entity.Transaction;
+import com.budgetwise.model.entity.UserMonthCategoryRollup;
+import com.budgetwise.repository.CategoryRepository;
+import com.budgetwise.repository.UserMonthCategoryRollupRepository;
+import com.budgetwise.util.CsvReader;
+import com.budgetwise.util.OfxReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk import of bank statements into the transactions table.
+ *
+ * The upload is parsed as it is read, one row at a time, and valid rows are
+ * written with JDBC batch inserts of batch-size rows. The insert bypasses the
+ * persistence context: Hibernate cannot batch inserts into the IDENTITY key
+ * of transactions, while the driver can send each batch as one statement
+ * (rewriteBatchedStatements on MySQL). Categories are resolved from a
+ * name map loaded once per import.
+ *
+ * Rows that fail validation are reported with their line number and skipped;
+ * the rest are imported in one DB transaction together with their rollup
+ * deltas, which are summed per bucket and applied once at the end.
+ */
+@Service
+public class TransactionImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionImportService.class);
+
+    public enum Format {
+        CSV, OFX;
+
+        /** From the explicit format parameter if given, else the file extension; CSV by default. */
+        public static Format detect(String format, String filename) {
+            if (format != null && !format.isBlank()) {
+                try {
+                    return valueOf(format.trim().toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new RuntimeException("Unsupported import format: " + format);
+                }
+            }
+            String name = filename != null ? filename.toLowerCase(Locale.ROOT) : "";
+            return name.endsWith(".ofx") || name.endsWith(".qfx") ? OFX : CSV;
+        }
+    }
+
+    private static final String INSERT_SQL = "INSERT INTO transactions "
+            + "(user_id, category_id, description, amount, type, transaction_date, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final BigDecimal MAX_AMOUNT = new BigDecimal("99999999.99"); // DECIMAL(10, 2)
+    private static final int DESCRIPTION_LENGTH = 255;
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+            DateTimeFormatter.ofPattern("dd-MM-yyyy"),
+            DateTimeFormatter.BASIC_ISO_DATE);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CategoryRepository categoryRepository;
+    private final UserMonthCategoryRollupRepository rollupRepository;
+    private final TransactionRollupService rollupService;
+    private final FinancialContextCache financialContextCache;
+    private final int batchSize;
+    private final int maxRows;
+    private final int maxErrors;
+
+    public TransactionImportService(JdbcTemplate jdbcTemplate, CategoryRepository categoryRepository,
+            UserMonthCategoryRollupRepository rollupRepository, TransactionRollupService rollupService,
+            FinancialContextCache financialContextCache,
+            @Value("${app.transactions.import.batch-size:500}") int batchSize,
+            @Value("${app.transactions.import.max-rows:100000}") int maxRows,
+            @Value("${app.transactions.import.max-errors:100}") int maxErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.categoryRepository = categoryRepository;
+        this.rollupRepository = rollupRepository;
+        this.rollupService = rollupService;
+        this.financialContextCache = financialContextCache;
+        this.batchSize = batchSize;
+        this.maxRows = maxRows;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * @param defaultCategoryId category for rows that name none; without it
+     *                          such rows go to "Other Expense" or "Other
+     *                          Income" by type, where those exist
+     */
+    @Transactional
+    public TransactionImportResult importTransactions(Long userId, InputStream input, Format format,
+            Long defaultCategoryId) {
+        long started = System.nanoTime();
+        rollupService.lockUser(userId);
+        Categories categories = loadCategories(defaultCategoryId);
+        TransactionImportResult result = new TransactionImportResult();
+        Map<String, RollupDelta> deltas = new HashMap<>();
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        LocalDate today = LocalDate.now();
+
+        Reader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        RowSource rows = format == Format.OFX ? new OfxRows(new OfxReader(reader)) : new CsvRows(new CsvReader(reader));
+        RawRow raw = new RawRow();
+        try {
+            while (rows.next(raw)) {
+                result.setRowsRead(result.getRowsRead() + 1);
+                if (result.getRowsRead() > maxRows) {
+                    throw new RuntimeException("Imports are limited to " + maxRows + " rows per file");
+                }
+                String error = addRow(userId, raw, categories, today, now, batch, deltas);
+                if (error != null) {
+                    reject(result, raw.line, error);
+                    continue;
+                }
+                result.setImported(result.getImported() + 1);
+                if (batch.size() == batchSize) {
+                    flush(batch);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read the uploaded file: " + e.getMessage());
+        }
+        flush(batch);
+
+        for (RollupDelta delta : deltas.values()) {
+            rollupRepository.applyDelta(userId, delta.monthKey, delta.categoryId, delta.type.name(),
+                    delta.amount, delta.count);
+        }
+        if (result.getImported() > 0) {
+            financialContextCache.invalidate(userId);
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        result.setRowsPerSecond(elapsedNanos > 0 ? result.getImported() * 1_000_000_000L / elapsedNanos : 0);
+        log.info("Imported {} of {} {} rows for user {} in {} ms ({} rows/s)", result.getImported(),
+                result.getRowsRead(), format, userId, result.getElapsedMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    /** Validates one row and queues its insert; returns why it was rejected, or null. */
+    private String addRow(Long userId, RawRow raw, Categories categories, LocalDate today, Timestamp now,
+            List<Object[]> batch, Map<String, RollupDelta> deltas) {
+        if (raw.error != null) {
+            return raw.error;
+        }
+        LocalDate date = parseDate(raw.date);
+        if (date == null) {
+            return raw.date == null || raw.date.isBlank() ? "Date is required"
+                    : "Unrecognised date '" + raw.date + "' (expected yyyy-MM-dd or dd/MM/yyyy)";
+        }
+        BigDecimal amount;
+        try {
+            amount = parseAmount(raw.amount);
+        } catch (NumberFormatException e) {
+            return "Unrecognised amount '" + raw.amount + "'";
+        }
+        if (amount == null || amount.signum() == 0) {
+            return "Amount is required and must not be zero";
+        }
+
+        Transaction.TransactionType type;
+        if (raw.type == null || raw.type.isBlank()) {
+            type = amount.signum() < 0 ? Transaction.TransactionType.EXPENSE : Transaction.TransactionType.INCOME;
+        } else {
+            type = parseType(raw.type);
+            if (type == null) {
+                return "Unrecognised type '" + raw.type + "' (expected INCOME or EXPENSE)";
+            }
+        }
+        amount = amount.abs().setScale(2, RoundingMode.HALF_UP);
+        if (amount.compareTo(MAX_AMOUNT) > 0) {
+            return "Amount is larger than " + MAX_AMOUNT;
+        }
+        if (type == Transaction.TransactionType.EXPENSE && date.isAfter(today)) {
+            return "Expenses cannot be added for future dates";
+        }
+
+        String description = raw.description != null ? raw.description.strip() : "";
+        if (description.isEmpty()) {
+            return "Description is required";
+        }
+        if (description.length() > DESCRIPTION_LENGTH) {
+            description = description.substring(0, DESCRIPTION_LENGTH);
+        }
+
+        Long categoryId;
+        if (raw.category != null && !raw.category.isBlank()) {
+            categoryId = categories.byName.get(raw.category.strip().toLowerCase(Locale.ROOT));
+            if (categoryId == null) {
+                return "Unknown category '" + raw.category.strip() + "'";
+            }
+        } else {
+            categoryId = categories.fallback(type);
+            if (categoryId == null) {
+                return "Category is required";
+            }
+        }
+
+        LocalDateTime transactionDate = date.atStartOfDay();
+        batch.add(new Object[] { userId, categoryId, description, amount, type.name(),
+                Timestamp.valueOf(transactionDate), now });
+        int monthKey = UserMonthCategoryRollup.monthKey(transactionDate);
+        deltas.computeIfAbsent(monthKey + ":" + categoryId + ":" + type,
+                k -> new RollupDelta(monthKey, categoryId, type)).add(amount);
+        return null;
+    }
+
+    private void flush(List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+            batch.clear();
+        }
+    }
+
+    private void reject(TransactionImportResult result, int line, String message) {
+        result.setRejected(result.getRejected() + 1);
+        if (result.getErrors().size() < maxErrors) {
+            result.getErrors().add(new TransactionImportResult.RowError(line, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private Categories loadCategories(Long defaultCategoryId) {
+        Map<String, Long> byName = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            byName.putIfAbsent(category.getName().strip().toLowerCase(Locale.ROOT), category.getId());
+        }
+        if (defaultCategoryId != null && !byName.containsValue(defaultCategoryId)) {
+            throw new RuntimeException("Category not found");
+        }
+        return new Categories(byName, defaultCategoryId);
+    }
+
+    private static LocalDate parseDate(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        String value = text.strip();
+        if (value.length() > 10 && value.chars().limit(9).allMatch(Character::isDigit)) {
+            value = value.substring(0, 8); // OFX yyyyMMddHHmmss[.SSS][[-5:EST]]
+        } else if (value.length() > 10 && value.charAt(10) == 'T') {
+            value = value.substring(0, 10);
+        }
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(value, format);
+            } catch (DateTimeParseException e) {
+                // try the next format
+            }
+        }
+        return null;
+    }
+
+    /** Signed amount with currency symbols, grouping commas and spaces removed; null if blank. */
+    private static BigDecimal parseAmount(String text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(text.length());
+        boolean negative = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if ((c >= '0' && c <= '9') || c == '.') {
+                digits.append(c);
+            } else if (c == '-' || c == '(') {
+                negative = true; // (12.50) is accounting notation for -12.50
+            } else if (c != ',' && c != '+' && c != ')' && c != '₹' && c != '$' && !Character.isWhitespace(c)) {
+                throw new NumberFormatException(text);
+            }
+        }
+        if (digits.length() == 0) {
+            return null;
+        }
+        BigDecimal amount = new BigDecimal(digits.toString());
+        return negative ? amount.negate() : amount;
+    }
+
+    private static Transaction.TransactionType parseType(String text) {
+        switch (text.strip().toUpperCase(Locale.ROOT)) {
+            case "INCOME":
+            case "CREDIT":
+            case "CR":
+                return Transaction.TransactionType.INCOME;
+            case "EXPENSE":
+            case "DEBIT":
+            case "DR":
+                return Transaction.TransactionType.EXPENSE;
+            default:
+                return null;
+        }
+    }
+
+    private static final class Categories {
+        private final Map<String, Long> byName;
+        private final Long defaultCategoryId;
+
+        Categories(Map<String, Long> byName, Long defaultCategoryId) {
+            this.byName = byName;
+            this.defaultCategoryId = defaultCategoryId;
+        }
+
+        Long fallback(Transaction.TransactionType type) {
+            if (defaultCategoryId != null) {
+                return defaultCategoryId;
+            }
+            return byName.get(type == Transaction.TransactionType.INCOME ? "other income" : "other expense");
+        }
+    }
+
+    private static final class RollupDelta {
+        private final int monthKey;
+        private final Long categoryId;
+        private final Transaction.TransactionType type;
+        private BigDecimal amount = BigDecimal.ZERO;
+        private long count;
+
+        RollupDelta(int monthKey, Long categoryId, Transaction.TransactionType type) {
+            this.monthKey = monthKey;
+            this.categoryId = categoryId;
+            this.type = type;
+        }
+
+        void add(BigDecimal value) {
+            amount = amount.add(value);
+            count++;
+        }
+    }
+
+    /** One row of the upload as text, before validation; reused from row to row. */
+    private static final class RawRow {
+        private int line;
+        private String date;
+        private String description;
+        private String amount;
+        private String type;
+        private String category;
+        private String error; // set by the source when the row cannot even be split into fields
+    }
+
+    private interface RowSource {
+        /** Fills row with the next record; false at end of input. */
+        boolean next(RawRow row) throws IOException;
+    }
+
+    /**
+     * CSV with a header row naming the columns, in any order and case. date,
+     * description and either amount (signed, or with a type column) or
+     * debit/credit columns are required; category is optional.
+     */
+    private static final class CsvRows implements RowSource {
+        private static final Map<String, String> ALIASES = new LinkedHashMap<>();
+
+        static {
+            for (String name : List.of("date", "transaction date", "transaction_date", "txn date", "value date")) {
+                ALIASES.put(name, "date");
+            }
+            for (String name : List.of("description", "narration", "details", "particulars", "name", "memo")) {
+                ALIASES.put(name, "description");
+            }
+            ALIASES.put("amount", "amount");
+            ALIASES.put("type", "type");
+            ALIASES.put("category", "category");
+            for (String name : List.of("debit", "withdrawal", "withdrawal amt.", "withdrawal amount")) {
+                ALIASES.put(name, "debit");
+            }
+            for (String name : List.of("credit", "deposit", "deposit amt.", "deposit amount")) {
+                ALIASES.put(name, "credit");
+            }
+        }
+
+        private final CsvReader csv;
+        private final Map<String, Integer> columns = new HashMap<>();
+
+        CsvRows(CsvReader csv) {
+            this.csv = csv;
+        }
+
+        @Override
+        public boolean next(RawRow row) throws IOException {
+            if (columns.isEmpty()) {
+                readHeader();
+            }
+            List<String> fields = csv.next();
+            if (fields == null) {
+                return false;
+            }
+            row.line = csv.getLineNumber();
+            row.error = null;
+            row.date = field(fields, "date");
+            row.description = field(fields, "description");
+            row.type = field(fields, "type");
+            row.category = field(fields, "category");
+            row.amount = field(fields, "amount");
+            if (!columns.containsKey("amount")) {
+                String debit = field(fields, "debit");
+                String credit = field(fields, "credit");
+                boolean hasDebit = debit != null && !debit.isBlank();
+                boolean hasCredit = credit != null && !credit.isBlank();
+                if (hasDebit == hasCredit) {
+                    row.error = "Exactly one of debit and credit must be filled in";
+                } else {
+                    row.amount = hasDebit ? debit : credit;
+                    row.type = hasDebit ? "EXPENSE" : "INCOME";
+                }
+            }
+            return true;
+        }
+
+        private void readHeader() throws IOException {
+            List<String> header = csv.next();
+            if (header == null) {
+                throw new RuntimeException("The file is empty");
+            }
+            for (int i = 0; i < header.size(); i++) {
+                String column = ALIASES.get(header.get(i).strip().toLowerCase(Locale.ROOT));
+                if (column != null) {
+                    columns.putIfAbsent(column, i);
+                }
+            }
+            if (!columns.containsKey("date") || !columns.containsKey("description")
+                    || !(columns.containsKey("amount")
+                            || (columns.containsKey("debit") && columns.containsKey("credit")))) {
+                throw new RuntimeException("The CSV header must name date, description and amount "
+                        + "(or debit and credit) columns");
+            }
+        }
+
+        private String field(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            return index != null && index < fields.size() ? fields.get(index) : null;
+        }
+    }
+
+    /** OFX/QFX statement transactions; the sign of TRNAMT gives the type. */
+    private static final class OfxRows implements RowSource {
+        private final OfxReader ofx;
+
+        OfxRows(OfxReader ofx) {
+            this.ofx = ofx;
+        }
+
+        @Override
+        public boolean next(RawRow row) throws IOException {
+            Map<String, String> entry = ofx.next();
+            if (entry == null) {
+                return false;
+            }
+            row.line = ofx.getLineNumber();
+            row.error = null;
+            row.date = entry.get("DTPOSTED");
+            row.amount = entry.get("TRNAMT");
+            row.type = null;
+            row.category = null;
+            String name = entry.get("NAME");
+            String memo = entry.get("MEMO");
+            row.description = name != null ? name : memo;
+            return true;
+        }
+    }
+}
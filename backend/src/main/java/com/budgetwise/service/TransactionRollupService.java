@@ -0,0 +1,160 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.dto.MonthCategoryTotal;
+import com.budgetwise.model.dto.RollupDriftReport;
+import com.budgetwise.model.entity.Transaction;
+import com.budgetwise.model.entity.User;
+import com.budgetwise.model.entity.UserMonthCategoryRollup;
+import com.budgetwise.repository.TransactionRepository;
+import com.budgetwise.repository.UserMonthCategoryRollupRepository;
+import com.budgetwise.repository.UserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Keeps user_month_category_rollup in step with the transactions table.
+ * The add/remove methods join the caller's transaction, so a rollup delta is
+ * committed or rolled back together with the row it describes.
+ *
+ * Writers and rebuilds of a user's rollup serialize on the user's row (see
+ * {@link #lockUser}): a rebuild replaces the rows with totals read from
+ * transactions, and a delta committed between that read and the replace
+ * would otherwise be lost.
+ */
+@Service
+@Transactional
+public class TransactionRollupService {
+
+    private final UserMonthCategoryRollupRepository rollupRepository;
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+
+    public TransactionRollupService(UserMonthCategoryRollupRepository rollupRepository,
+            TransactionRepository transactionRepository, UserRepository userRepository) {
+        this.rollupRepository = rollupRepository;
+        this.transactionRepository = transactionRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Locks the user's row until the caller's transaction ends. Anything that
+     * writes the user's transactions takes it before its first write, so a
+     * foreign-key check on the same row cannot deadlock two writers.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public User lockUser(Long userId) {
+        return userRepository.findByIdForUpdate(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(Transaction transaction) {
+        rollupRepository.applyDelta(transaction.getUser().getId(),
+                UserMonthCategoryRollup.monthKey(transaction.getTransactionDate()),
+                transaction.getCategory().getId(), transaction.getType().name(),
+                transaction.getAmount(), 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(Transaction transaction) {
+        remove(transaction.getUser().getId(), transaction.getTransactionDate(),
+                transaction.getCategory().getId(), transaction.getType(), transaction.getAmount());
+    }
+
+    /**
+     * Removes a previously recorded transaction by its old values, for updates
+     * where the entity has already been mutated.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(Long userId, LocalDateTime transactionDate, Long categoryId,
+            Transaction.TransactionType type, BigDecimal amount) {
+        int monthKey = UserMonthCategoryRollup.monthKey(transactionDate);
+        rollupRepository.applyDelta(userId, monthKey, categoryId, type.name(), amount.negate(), -1);
+        rollupRepository.deleteIfEmpty(userId, monthKey, categoryId, type);
+    }
+
+    /**
+     * Recomputes the user's rollup from raw transactions and reports every
+     * bucket that differed. With {@code repair} the stored rows are replaced.
+     */
+    public RollupDriftReport verifyUser(Long userId, boolean repair) {
+        if (repair) {
+            // Before reading, so the totals include every delta committed ahead of us
+            lockUser(userId);
+        }
+        Map<String, MonthCategoryTotal> expected = new HashMap<>();
+        for (MonthCategoryTotal row : transactionRepository.sumByMonthAndCategory(userId)) {
+            expected.put(key(row.getYear() * 100 + row.getMonth(), row.getCategoryId(), row.getType()), row);
+        }
+        Map<String, UserMonthCategoryRollup> actual = new HashMap<>();
+        for (UserMonthCategoryRollup row : rollupRepository.findByUserId(userId)) {
+            actual.put(key(row.getMonthKey(), row.getCategoryId(), row.getType()), row);
+        }
+
+        RollupDriftReport report = new RollupDriftReport(userId);
+        Set<String> keys = new HashSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+        report.setBucketsChecked(keys.size());
+        for (String key : keys) {
+            MonthCategoryTotal want = expected.get(key);
+            UserMonthCategoryRollup have = actual.get(key);
+            if (want == null) {
+                report.getDrift().add(key + ": stale rollup row " + have.getTotalAmount() + "/" + have.getTxCount());
+            } else if (have == null) {
+                report.getDrift().add(key + ": missing rollup row, expected " + want.getTotal() + "/" + want.getCount());
+            } else if (want.getTotal().compareTo(have.getTotalAmount()) != 0
+                    || !Objects.equals(want.getCount(), have.getTxCount())) {
+                report.getDrift().add(key + ": expected " + want.getTotal() + "/" + want.getCount()
+                        + " but found " + have.getTotalAmount() + "/" + have.getTxCount());
+            }
+        }
+
+        if (repair && report.hasDrift()) {
+            rebuildFrom(userId, expected.values());
+            report.setRepaired(true);
+        }
+        return report;
+    }
+
+    public void rebuildUser(Long userId) {
+        lockUser(userId);
+        rebuildFrom(userId, transactionRepository.sumByMonthAndCategory(userId));
+    }
+
+    private void rebuildFrom(Long userId, Iterable<MonthCategoryTotal> totals) {
+        rollupRepository.deleteByUserId(userId);
+        rollupRepository.flush();
+        for (MonthCategoryTotal row : totals) {
+            UserMonthCategoryRollup rollup = new UserMonthCategoryRollup();
+            rollup.setUserId(userId);
+            rollup.setMonthKey(row.getYear() * 100 + row.getMonth());
+            rollup.setCategoryId(row.getCategoryId());
+            rollup.setType(row.getType());
+            rollup.setTotalAmount(row.getTotal());
+            rollup.setTxCount(row.getCount());
+            rollupRepository.save(rollup);
+        }
+    }
+
+    private static String key(int monthKey, Long categoryId, Transaction.TransactionType type) {
+        return monthKey + "/" + categoryId + "/" + type;
+    }
+
+    public List<Long> findUsersWithTransactions() {
+        return transactionRepository.findDistinctUserIds();
+    }
+
+    public boolean isEmpty() {
+        return rollupRepository.count() == 0;
+    }
+}
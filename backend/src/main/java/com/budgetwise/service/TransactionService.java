@@ -1,12 +1,21 @@
 package com.budgetwise.service;
 
 import com.budgetwise.dto.TransactionRequest;
+import com.budgetwise.model.dto.DayTypeTotal;
+import com.budgetwise.model.dto.MonthTypeTotal;
+import com.budgetwise.model.dto.TransactionListItemDTO;
+import com.budgetwise.model.dto.TransactionPageDTO;
+import com.budgetwise.model.dto.TransactionTypeTotal;
 import com.budgetwise.model.entity.Category;
 import com.budgetwise.model.entity.Transaction;
 import com.budgetwise.model.entity.User;
 import com.budgetwise.repository.CategoryRepository;
 import com.budgetwise.repository.TransactionRepository;
+import com.budgetwise.repository.UserMonthCategoryRollupRepository;
 import com.budgetwise.repository.UserRepository;
+import com.budgetwise.util.TransactionCursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,12 +32,25 @@ public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
+    private final UserMonthCategoryRollupRepository rollupRepository;
+    private final TransactionRollupService rollupService;
+    private final FinancialContextCache financialContextCache;
+
+    @Value("${app.transactions.page-size.default:50}")
+    private int defaultPageSize;
+
+    @Value("${app.transactions.page-size.max:200}")
+    private int maxPageSize;
 
     public TransactionService(TransactionRepository transactionRepository, UserRepository userRepository,
-            CategoryRepository categoryRepository) {
+            CategoryRepository categoryRepository, UserMonthCategoryRollupRepository rollupRepository,
+            TransactionRollupService rollupService, FinancialContextCache financialContextCache) {
         this.transactionRepository = transactionRepository;
         this.userRepository = userRepository;
         this.categoryRepository = categoryRepository;
+        this.rollupRepository = rollupRepository;
+        this.rollupService = rollupService;
+        this.financialContextCache = financialContextCache;
     }
 
     public List<Transaction> getUserTransactions(Long userId) {
@@ -53,9 +75,55 @@ public class TransactionService {
         return transactionRepository.findByUserIdAndType(userId, type);
     }
 
+    /** The newest {@code limit} transactions, list-view columns only. */
+    public List<TransactionListItemDTO> getRecentTransactions(Long userId, int limit) {
+        return transactionRepository.findRecentByUserId(userId, PageRequest.of(0, limit));
+    }
+
+    public TransactionPageDTO getUserTransactionsPage(Long userId, String cursor, Integer size) {
+        TransactionCursor after = TransactionCursor.decode(cursor);
+        int pageSize = resolvePageSize(size);
+        return toPage(transactionRepository.findPageByUserId(userId, after.getTransactionDate(), after.getId(),
+                PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+
+    public TransactionPageDTO getUserTransactionsPageByDateRange(Long userId, LocalDateTime startDate,
+            LocalDateTime endDate, String cursor, Integer size) {
+        TransactionCursor after = TransactionCursor.decode(cursor);
+        int pageSize = resolvePageSize(size);
+        return toPage(transactionRepository.findPageByUserIdAndDateRange(userId, startDate, endDate,
+                after.getTransactionDate(), after.getId(), PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+
+    public TransactionPageDTO getUserTransactionsPageByType(Long userId, Transaction.TransactionType type,
+            String cursor, Integer size) {
+        TransactionCursor after = TransactionCursor.decode(cursor);
+        int pageSize = resolvePageSize(size);
+        return toPage(transactionRepository.findPageByUserIdAndType(userId, type, after.getTransactionDate(),
+                after.getId(), PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    // One extra row is fetched to learn whether another page exists.
+    private TransactionPageDTO toPage(List<TransactionListItemDTO> rows, int pageSize) {
+        boolean hasMore = rows.size() > pageSize;
+        List<TransactionListItemDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            TransactionListItemDTO last = items.get(items.size() - 1);
+            nextCursor = new TransactionCursor(last.getTransactionDate(), last.getId()).encode();
+        }
+        return new TransactionPageDTO(items, nextCursor, hasMore, pageSize);
+    }
+
     public Transaction createTransaction(Long userId, TransactionRequest request) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User user = rollupService.lockUser(userId);
 
         Category category = categoryRepository.findById(request.getCategoryId())
                 .orElseThrow(() -> new RuntimeException("Category not found"));
@@ -85,10 +153,14 @@ public class TransactionService {
         transaction.setType(request.getType());
         transaction.setTransactionDate(transactionDate);
 
-        return transactionRepository.save(transaction);
+        Transaction saved = transactionRepository.save(transaction);
+        rollupService.add(saved);
+        financialContextCache.invalidate(userId);
+        return saved;
     }
 
     public Transaction updateTransaction(Long transactionId, TransactionRequest request, Long userId) {
+        rollupService.lockUser(userId);
         Transaction transaction = transactionRepository.findById(transactionId)
                 .orElseThrow(() -> new RuntimeException("Transaction not found"));
 
@@ -117,16 +189,24 @@ public class TransactionService {
             throw new RuntimeException("Expenses cannot be added for future dates");
         }
 
+        // Back out the old values from the rollup before the entity is mutated
+        rollupService.remove(userId, transaction.getTransactionDate(), transaction.getCategory().getId(),
+                transaction.getType(), transaction.getAmount());
+
         transaction.setDescription(request.getDescription());
         transaction.setAmount(request.getAmount());
         transaction.setType(request.getType());
         transaction.setCategory(category);
         transaction.setTransactionDate(transactionDate);
 
-        return transactionRepository.save(transaction);
+        Transaction saved = transactionRepository.save(transaction);
+        rollupService.add(saved);
+        financialContextCache.invalidate(userId);
+        return saved;
     }
 
     public void deleteTransaction(Long transactionId, Long userId) {
+        rollupService.lockUser(userId);
         Transaction transaction = transactionRepository.findById(transactionId)
                 .orElseThrow(() -> new RuntimeException("Transaction not found"));
 
@@ -135,41 +215,55 @@ public class TransactionService {
             throw new RuntimeException("Unauthorized access to transaction");
         }
 
+        rollupService.remove(transaction);
         transactionRepository.delete(transaction);
+        financialContextCache.invalidate(userId);
+    }
+
+    /**
+     * Sums the user's transactions per type with a single grouped query. Types
+     * with no rows are reported as zero.
+     */
+    public java.util.Map<Transaction.TransactionType, BigDecimal> getTotalsByType(Long userId) {
+        java.util.Map<Transaction.TransactionType, BigDecimal> totals = new java.util.EnumMap<>(
+                Transaction.TransactionType.class);
+        for (Transaction.TransactionType type : Transaction.TransactionType.values()) {
+            totals.put(type, BigDecimal.ZERO);
+        }
+        for (TransactionTypeTotal row : transactionRepository.sumAmountByType(userId)) {
+            if (row.getTotal() != null) {
+                totals.put(row.getType(), row.getTotal());
+            }
+        }
+        return totals;
     }
 
     public BigDecimal getTotalExpenses(Long userId) {
-        List<Transaction> expenses = getUserTransactionsByType(userId, Transaction.TransactionType.EXPENSE);
-        return expenses.stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return getTotalsByType(userId).get(Transaction.TransactionType.EXPENSE);
     }
 
     public BigDecimal getTotalIncome(Long userId) {
-        List<Transaction> incomes = getUserTransactionsByType(userId, Transaction.TransactionType.INCOME);
-        return incomes.stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return getTotalsByType(userId).get(Transaction.TransactionType.INCOME);
     }
 
     public List<java.util.Map<String, Object>> getMonthlyTransactionSummary(Long userId) {
-        LocalDateTime sixMonthsAgo = LocalDateTime.now().minusMonths(6);
-        List<Transaction> transactions = transactionRepository.findByUserIdAndDateRange(userId, sixMonthsAgo,
-                LocalDateTime.now());
-
-        java.util.Map<java.time.YearMonth, java.util.Map<String, BigDecimal>> summary = transactions.stream()
-                .collect(java.util.stream.Collectors.groupingBy(
-                        t -> java.time.YearMonth.from(t.getTransactionDate()),
-                        java.util.stream.Collectors.toMap(
-                                t -> t.getType().toString().toLowerCase(),
-                                Transaction::getAmount,
-                                BigDecimal::add)));
+        // Up to the current month: future-dated transactions would add unlabelled months to the chart
+        java.time.YearMonth to = java.time.YearMonth.now();
+        java.time.YearMonth from = to.minusMonths(6);
+        List<MonthTypeTotal> rows = rollupRepository.sumByMonthAndType(userId,
+                from.getYear() * 100 + from.getMonthValue(), to.getYear() * 100 + to.getMonthValue());
+
+        java.util.Map<Integer, java.util.Map<String, BigDecimal>> summary = new java.util.TreeMap<>();
+        for (MonthTypeTotal row : rows) {
+            summary.computeIfAbsent(row.getMonthKey(), k -> new java.util.HashMap<>())
+                    .put(row.getType().toString().toLowerCase(), row.getTotal());
+        }
 
         return summary.entrySet().stream()
-                .sorted(java.util.Map.Entry.comparingByKey())
                 .map(entry -> {
+                    java.time.Month month = java.time.Month.of(entry.getKey() % 100);
                     java.util.Map<String, Object> map = new java.util.HashMap<>();
-                    map.put("name", entry.getKey().getMonth().name().substring(0, 3));
+                    map.put("name", month.name().substring(0, 3));
                     map.put("income", entry.getValue().getOrDefault("income", BigDecimal.ZERO));
                     map.put("expense", entry.getValue().getOrDefault("expense", BigDecimal.ZERO));
                     return map;
@@ -178,37 +272,31 @@ public class TransactionService {
     }
 
     public List<java.util.Map<String, Object>> getCategoryExpenseSummary(Long userId) {
-        List<Transaction> expenses = getUserTransactionsByType(userId, Transaction.TransactionType.EXPENSE);
-
-        java.util.Map<String, BigDecimal> summary = expenses.stream()
-                .collect(java.util.stream.Collectors.groupingBy(
-                        t -> t.getCategory().getName(),
-                        java.util.stream.Collectors.reducing(BigDecimal.ZERO, Transaction::getAmount,
-                                BigDecimal::add)));
-
-        return summary.entrySet().stream()
-                .map(entry -> {
+        return rollupRepository.sumByCategory(userId, Transaction.TransactionType.EXPENSE).stream()
+                .map(row -> {
                     java.util.Map<String, Object> map = new java.util.HashMap<>();
-                    map.put("name", entry.getKey());
-                    map.put("value", entry.getValue());
+                    map.put("name", row.getName());
+                    map.put("value", row.getTotal());
                     return map;
                 })
                 .collect(java.util.stream.Collectors.toList());
     }
 
+    /**
+     * Weeks are finer than the monthly rollup, so this reads a per-day
+     * aggregate over the four-week window instead of raw rows.
+     */
     public List<java.util.Map<String, Object>> getWeeklySavings(Long userId) {
         LocalDateTime fourWeeksAgo = LocalDateTime.now().minusWeeks(4);
-        List<Transaction> transactions = transactionRepository.findByUserIdAndDateRange(userId, fourWeeksAgo,
-                LocalDateTime.now());
+        List<DayTypeTotal> days = transactionRepository.sumByDayAndType(userId, fourWeeksAgo, LocalDateTime.now());
 
         // Group by Week of Year
-        java.util.Map<Integer, java.util.Map<String, BigDecimal>> weeklyData = transactions.stream()
-                .collect(java.util.stream.Collectors.groupingBy(
-                        t -> t.getTransactionDate().get(java.time.temporal.ChronoField.ALIGNED_WEEK_OF_YEAR),
-                        java.util.stream.Collectors.toMap(
-                                t -> t.getType().toString().toLowerCase(),
-                                Transaction::getAmount,
-                                BigDecimal::add)));
+        java.util.Map<Integer, java.util.Map<String, BigDecimal>> weeklyData = new java.util.TreeMap<>();
+        for (DayTypeTotal day : days) {
+            weeklyData.computeIfAbsent(day.getDay().get(java.time.temporal.ChronoField.ALIGNED_WEEK_OF_YEAR),
+                    k -> new java.util.HashMap<>())
+                    .merge(day.getType().toString().toLowerCase(), day.getTotal(), BigDecimal::add);
+        }
 
         // Convert to list and calculate savings
         List<java.util.Map<String, Object>> result = new java.util.ArrayList<>();
@@ -0,0 +1,215 @@
+package com.budgetwise.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho–Corasick automaton over a fixed keyword set. {@link #scan} reports
+ * every keyword occurrence in one left-to-right pass, ignoring case, with
+ * no allocation per character. ASCII transitions are a dense table; other
+ * characters (₹ and friends) go through per-state maps and failure links.
+ *
+ * Immutable and thread-safe once built.
+ */
+public final class KeywordAutomaton<T> {
+
+    @FunctionalInterface
+    public interface MatchHandler<T> {
+        /** @param start index of the first matched char; end is exclusive */
+        void onMatch(T value, int start, int end);
+    }
+
+    private static final int ASCII = 128;
+
+    private final int[] asciiNext;
+    private final Map<Character, Integer>[] otherNext;
+    private final int[] fail;
+    private final Object[][] outputValues;
+    private final int[][] outputLengths;
+
+    private KeywordAutomaton(int[] asciiNext, Map<Character, Integer>[] otherNext, int[] fail,
+            Object[][] outputValues, int[][] outputLengths) {
+        this.asciiNext = asciiNext;
+        this.otherNext = otherNext;
+        this.fail = fail;
+        this.outputValues = outputValues;
+        this.outputLengths = outputLengths;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    @SuppressWarnings("unchecked")
+    public void scan(CharSequence text, MatchHandler<T> handler) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (c < ASCII) {
+                state = asciiNext[state * ASCII + c];
+            } else {
+                state = followOther(state, c);
+            }
+            Object[] values = outputValues[state];
+            if (values != null) {
+                int[] lengths = outputLengths[state];
+                for (int k = 0; k < values.length; k++) {
+                    handler.onMatch((T) values[k], i + 1 - lengths[k], i + 1);
+                }
+            }
+        }
+    }
+
+    private int followOther(int state, char c) {
+        while (true) {
+            Map<Character, Integer> edges = otherNext[state];
+            Integer next = edges != null ? edges.get(c) : null;
+            if (next != null) {
+                return next;
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = fail[state];
+        }
+    }
+
+    public static final class Builder<T> {
+
+        private final List<int[]> ascii = new ArrayList<>();
+        private final List<Map<Character, Integer>> other = new ArrayList<>();
+        private final List<List<Object>> values = new ArrayList<>();
+        private final List<List<Integer>> lengths = new ArrayList<>();
+
+        private Builder() {
+            newState();
+        }
+
+        /** Adds a keyword; matching ignores case. A keyword may be added for several values. */
+        public Builder<T> add(String keyword, T value) {
+            if (keyword == null || keyword.isEmpty()) {
+                throw new IllegalArgumentException("Keyword must not be empty");
+            }
+            String normalized = keyword.toLowerCase(Locale.ROOT);
+            int state = 0;
+            for (int i = 0; i < normalized.length(); i++) {
+                char c = normalized.charAt(i);
+                int next;
+                if (c < ASCII) {
+                    next = ascii.get(state)[c];
+                    if (next < 0) {
+                        next = newState();
+                        ascii.get(state)[c] = next;
+                    }
+                } else {
+                    Map<Character, Integer> edges = other.get(state);
+                    if (edges == null) {
+                        edges = new HashMap<>();
+                        other.set(state, edges);
+                    }
+                    Integer existing = edges.get(c);
+                    if (existing == null) {
+                        existing = newState();
+                        edges.put(c, existing);
+                    }
+                    next = existing;
+                }
+                state = next;
+            }
+            values.get(state).add(value);
+            lengths.get(state).add(normalized.length());
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public KeywordAutomaton<T> build() {
+            int states = ascii.size();
+            int[] fail = new int[states];
+            int[] asciiNext = new int[states * ASCII];
+            Map<Character, Integer>[] otherNext = new Map[states];
+
+            // Breadth-first, so a state's failure target is complete before the state itself
+            Queue<Integer> queue = new ArrayDeque<>();
+            int[] rootEdges = ascii.get(0);
+            for (int c = 0; c < ASCII; c++) {
+                int child = rootEdges[c];
+                asciiNext[c] = child < 0 ? 0 : child;
+                if (child > 0) {
+                    queue.add(child);
+                }
+            }
+            Map<Character, Integer> rootOther = other.get(0);
+            if (rootOther != null) {
+                queue.addAll(rootOther.values());
+            }
+            otherNext[0] = rootOther;
+
+            while (!queue.isEmpty()) {
+                int state = queue.remove();
+                int failState = fail[state];
+                values.get(state).addAll(values.get(failState));
+                lengths.get(state).addAll(lengths.get(failState));
+
+                int[] edges = ascii.get(state);
+                for (int c = 0; c < ASCII; c++) {
+                    int child = edges[c];
+                    if (child < 0) {
+                        asciiNext[state * ASCII + c] = asciiNext[failState * ASCII + c];
+                    } else {
+                        asciiNext[state * ASCII + c] = child;
+                        fail[child] = asciiNext[failState * ASCII + c];
+                        queue.add(child);
+                    }
+                }
+                Map<Character, Integer> others = other.get(state);
+                otherNext[state] = others;
+                if (others != null) {
+                    for (Map.Entry<Character, Integer> edge : others.entrySet()) {
+                        fail[edge.getValue()] = followOther(otherNext, fail, failState, edge.getKey());
+                        queue.add(edge.getValue());
+                    }
+                }
+            }
+
+            Object[][] outputValues = new Object[states][];
+            int[][] outputLengths = new int[states][];
+            for (int s = 0; s < states; s++) {
+                if (!values.get(s).isEmpty()) {
+                    outputValues[s] = values.get(s).toArray();
+                    outputLengths[s] = lengths.get(s).stream().mapToInt(Integer::intValue).toArray();
+                }
+            }
+            return new KeywordAutomaton<>(asciiNext, otherNext, fail, outputValues, outputLengths);
+        }
+
+        private static int followOther(Map<Character, Integer>[] otherNext, int[] fail, int state, char c) {
+            while (true) {
+                Map<Character, Integer> edges = otherNext[state];
+                Integer next = edges != null ? edges.get(c) : null;
+                if (next != null) {
+                    return next;
+                }
+                if (state == 0) {
+                    return 0;
+                }
+                state = fail[state];
+            }
+        }
+
+        private int newState() {
+            int[] edges = new int[ASCII];
+            Arrays.fill(edges, -1);
+            ascii.add(edges);
+            other.add(null);
+            values.add(new ArrayList<>());
+            lengths.add(new ArrayList<>());
+            return ascii.size() - 1;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.budgetwise.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming reader for the statement transactions (STMTTRN aggregates) of an
+ * OFX or QFX file. Handles both the SGML form of OFX 1.x, where leaf
+ * elements have no closing tag, and the XML form of OFX 2.x. Everything
+ * outside STMTTRN, including the header block, is skipped; only one
+ * transaction is held at a time.
+ */
+public final class OfxReader {
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private int line = 1;
+    private int entryLine;
+    private final StringBuilder token = new StringBuilder();
+
+    public OfxReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Leaf elements of the next STMTTRN keyed by tag name (TRNTYPE, DTPOSTED,
+     * TRNAMT, NAME, MEMO, ...), with values trimmed and entities decoded; or
+     * null at end of input.
+     */
+    public Map<String, String> next() throws IOException {
+        Map<String, String> entry = null;
+        String openTag = null;
+        int c = read();
+        while (c >= 0) {
+            if (c != '<') {
+                // Element text: only kept for a leaf opened inside a transaction
+                token.setLength(0);
+                while (c >= 0 && c != '<') {
+                    token.append((char) c);
+                    c = read();
+                }
+                if (entry != null && openTag != null) {
+                    String value = decode(token.toString().trim());
+                    if (!value.isEmpty()) {
+                        entry.put(openTag, value);
+                    }
+                }
+                openTag = null;
+                continue;
+            }
+            token.setLength(0);
+            c = read();
+            while (c >= 0 && c != '>') {
+                token.append((char) c);
+                c = read();
+            }
+            String tag = token.toString().trim().toUpperCase(Locale.ROOT);
+            if (tag.equals("STMTTRN")) {
+                entry = new HashMap<>();
+                entryLine = line;
+                openTag = null;
+            } else if (tag.equals("/STMTTRN")) {
+                if (entry != null) {
+                    return entry;
+                }
+            } else if (tag.startsWith("/") || tag.startsWith("?") || tag.startsWith("!")) {
+                openTag = null;
+            } else {
+                openTag = tag;
+            }
+            c = read();
+        }
+        if (entry != null) {
+            throw new IOException("Unterminated STMTTRN starting on line " + entryLine);
+        }
+        return null;
+    }
+
+    /** Line on which the transaction last returned by {@link #next()} starts, from 1. */
+    public int getLineNumber() {
+        return entryLine;
+    }
+
+    private static String decode(String text) {
+        if (text.indexOf('&') < 0) {
+            return text;
+        }
+        return text.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                .replace("&apos;", "'").replace("&nbsp;", " ").replace("&amp;", "&");
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        char c = buffer[position++];
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+}
@@ -0,0 +1,68 @@
+package com.budgetwise.util;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket: {@code permits} per {@code period}, with up to {@code burst}
+ * saved up while idle. A caller that has to wait reserves its permit before
+ * sleeping, so waiters are served in arrival order without holding the lock.
+ */
+public class RateLimiter {
+
+    private final double permitsPerNano;
+    private final double burst;
+    private final LongSupplier nanoTime;
+
+    private double available;
+    private long refilledAt;
+
+    public RateLimiter(int permits, Duration period, int burst) {
+        this(permits, period, burst, System::nanoTime);
+    }
+
+    public RateLimiter(int permits, Duration period, int burst, LongSupplier nanoTime) {
+        if (permits < 1 || burst < 1 || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        this.permitsPerNano = (double) permits / period.toNanos();
+        this.burst = burst;
+        this.nanoTime = nanoTime;
+        this.available = burst;
+        this.refilledAt = nanoTime.getAsLong();
+    }
+
+    /**
+     * Takes a permit, sleeping until it is due if need be.
+     *
+     * @return false without taking anything if the permit would not be due within maxWait
+     */
+    public boolean acquire(Duration maxWait) throws InterruptedException {
+        long waitNanos = reserve(maxWait.toNanos());
+        if (waitNanos < 0) {
+            return false;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return true;
+    }
+
+    /** Nanoseconds until the reserved permit is due, or -1 if none was reserved. */
+    synchronized long reserve(long maxWaitNanos) {
+        long now = nanoTime.getAsLong();
+        available = Math.min(burst, available + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+        if (available >= 1) {
+            available -= 1;
+            return 0;
+        }
+        long waitNanos = (long) Math.ceil((1 - available) / permitsPerNano);
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        available -= 1; // may go negative: later callers queue behind this reservation
+        return waitNanos;
+    }
+}
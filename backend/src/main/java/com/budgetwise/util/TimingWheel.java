@@ -0,0 +1,129 @@
+package com.budgetwise.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: keys scheduled to fire at a deadline, with
+ * constant-time scheduling and expiry work proportional to the keys that
+ * actually come due.
+ *
+ * Level 0 has one slot per tick; each higher level has slots spanning a
+ * whole rotation of the level below. A key goes into the lowest level whose
+ * range covers its deadline and is moved down a level each time the wheel
+ * below completes a rotation, until it fires from level 0. Deadlines beyond
+ * the top level are parked in its furthest slot and re-placed on the way
+ * down.
+ *
+ * There is no cancel. A key is fired once per schedule call, so owners that
+ * reschedule check their own deadline when it fires and ignore stale ones.
+ * Not thread-safe.
+ */
+public final class TimingWheel<K> {
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final List<List<Timer<K>>[]> levels = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param slotsPerLevel a power of two
+     * @param levelCount    at least two; the wheel spans slotsPerLevel^levelCount ticks
+     */
+    public TimingWheel(long tickMillis, int slotsPerLevel, int levelCount, long startMillis) {
+        if (Integer.bitCount(slotsPerLevel) != 1 || levelCount < 2 || levelCount * Integer.numberOfTrailingZeros(
+                slotsPerLevel) > 62) {
+            throw new IllegalArgumentException("Wheel needs power-of-two slots, two or more levels and a span "
+                    + "that fits in a long");
+        }
+        this.tickMillis = tickMillis;
+        this.bits = Integer.numberOfTrailingZeros(slotsPerLevel);
+        this.mask = slotsPerLevel - 1;
+        for (int level = 0; level < levelCount; level++) {
+            @SuppressWarnings("unchecked")
+            List<Timer<K>>[] slots = new List[slotsPerLevel];
+            levels.add(slots);
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /** Fires {@code key} on the first advance at or after {@code deadlineMillis} (rounded up to a tick). */
+    public void schedule(K key, long deadlineMillis) {
+        Timer<K> timer = new Timer<>(key, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        if (timer.deadlineTick <= currentTick) {
+            // The current tick has been processed already
+            add(0, (int) (currentTick + 1) & mask, timer);
+        } else {
+            place(timer);
+        }
+        size++;
+    }
+
+    /** Moves the wheel to {@code nowMillis}, passing every key that has come due to {@code expired}. */
+    public void advance(long nowMillis, Consumer<K> expired) {
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+            // Refill lower levels from each level whose lower rotation just completed
+            for (int level = 1; level < levels.size()
+                    && ((currentTick >>> (bits * level)) << (bits * level)) == currentTick; level++) {
+                int index = (int) (currentTick >>> (bits * level)) & mask;
+                List<Timer<K>> cascading = take(level, index);
+                if (cascading != null) {
+                    cascading.forEach(this::place);
+                }
+            }
+            List<Timer<K>> due = take(0, (int) currentTick & mask);
+            if (due != null) {
+                size -= due.size();
+                for (Timer<K> timer : due) {
+                    expired.accept(timer.key);
+                }
+            }
+        }
+    }
+
+    /** Scheduled keys that have not fired yet, stale ones included. */
+    public int size() {
+        return size;
+    }
+
+    private void place(Timer<K> timer) {
+        long delta = timer.deadlineTick - currentTick;
+        if (delta <= 0) {
+            // Cascaded down on its own tick, whose level 0 slot is fired next
+            add(0, (int) currentTick & mask, timer);
+            return;
+        }
+        int top = levels.size() - 1;
+        for (int level = 0; level < top; level++) {
+            if (delta < 1L << (bits * (level + 1))) {
+                add(level, (int) (timer.deadlineTick >>> (bits * level)) & mask, timer);
+                return;
+            }
+        }
+        long tick = Math.min(timer.deadlineTick, currentTick + (1L << (bits * (top + 1))) - 1);
+        add(top, (int) (tick >>> (bits * top)) & mask, timer);
+    }
+
+    private void add(int level, int index, Timer<K> timer) {
+        List<Timer<K>>[] slots = levels.get(level);
+        if (slots[index] == null) {
+            slots[index] = new ArrayList<>();
+        }
+        slots[index].add(timer);
+    }
+
+    private List<Timer<K>> take(int level, int index) {
+        List<Timer<K>>[] slots = levels.get(level);
+        List<Timer<K>> taken = slots[index];
+        slots[index] = null;
+        return taken;
+    }
+
+    private record Timer<K>(K key, long deadlineTick) {
+    }
+}
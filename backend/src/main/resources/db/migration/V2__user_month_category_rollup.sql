@@ -0,0 +1,15 @@
+-- Monthly per-category totals maintained by TransactionRollupService.
+-- IF NOT EXISTS: databases upgraded under ddl-auto=update may already have it.
+
+CREATE TABLE IF NOT EXISTS user_month_category_rollup (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    month_key INTEGER NOT NULL,
+    category_id BIGINT NOT NULL,
+    type VARCHAR(32) NOT NULL,
+    total_amount DECIMAL(15, 2) NOT NULL,
+    tx_count BIGINT NOT NULL,
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_rollup_user_month_category_type UNIQUE (user_id, month_key, category_id, type)
+);
@@ -0,0 +1,11 @@
+-- Composite indexes for the per-user access paths. InnoDB appends the primary
+-- key to secondary indexes, so (user_id, transaction_date) also serves the
+-- (transaction_date, id) keyset order.
+
+CREATE INDEX idx_transactions_user_date ON transactions (user_id, transaction_date);
+
+CREATE INDEX idx_transactions_user_type_date ON transactions (user_id, type, transaction_date);
+
+CREATE INDEX idx_budgets_user_month_year ON budgets (user_id, month, year);
+
+CREATE INDEX idx_otp_tokens_email_purpose ON otp_tokens (email, purpose);
@@ -0,0 +1,15 @@
+-- Recent chat turns per user, written by ConversationMemory when
+-- app.chat.memory.persist is on so conversations survive restarts.
+
+CREATE TABLE IF NOT EXISTS chat_turn (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    user_message VARCHAR(2000) NOT NULL,
+    reply VARCHAR(4000) NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_chat_turn_user_id ON chat_turn (user_id, id);
+
+CREATE INDEX idx_chat_turn_created_at ON chat_turn (created_at);
@@ -0,0 +1,14 @@
+-- Precomputed AI insights per user, refreshed by InsightsService. context_hash
+-- identifies the financial data the insights were generated from;
+-- last_requested_at selects the users the background job keeps warm.
+
+CREATE TABLE IF NOT EXISTS user_insights (
+    user_id BIGINT NOT NULL,
+    insights VARCHAR(8000),
+    context_hash VARCHAR(64),
+    generated_at DATETIME(6),
+    last_requested_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (user_id)
+);
+
+CREATE INDEX idx_user_insights_last_requested ON user_insights (last_requested_at);
@@ -0,0 +1,18 @@
+-- OTP emails waiting to be sent. AuthService writes a row in the same
+-- transaction as the OTP token; EmailOutboxDispatcher sends due rows in
+-- batches, deletes them once delivered and reschedules failures with backoff.
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    recipient VARCHAR(255) NOT NULL,
+    purpose VARCHAR(32) NOT NULL,
+    otp VARCHAR(6) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    attempts INTEGER NOT NULL,
+    next_attempt_at DATETIME(6) NOT NULL,
+    last_error VARCHAR(500),
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_email_outbox_status_next ON email_outbox (status, next_attempt_at);
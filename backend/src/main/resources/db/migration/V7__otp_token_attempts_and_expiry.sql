@@ -0,0 +1,6 @@
+-- Wrong guesses against an OTP are counted so the code can be discarded after
+-- app.auth.otp.max-attempts, and expired rows are purged in bulk by expiry.
+
+ALTER TABLE otp_tokens ADD COLUMN attempts INTEGER NOT NULL DEFAULT 0;
+
+CREATE INDEX idx_otp_tokens_expiry ON otp_tokens (expiry_time);
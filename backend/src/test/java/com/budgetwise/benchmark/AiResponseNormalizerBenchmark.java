@@ -0,0 +1,78 @@
+package com.budgetwise.benchmark;
+
+import com.budgetwise.service.AiResponseNormalizer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalization time for flat model replies of about 1 KB, 8 KB and 64 KB.
+ * legacy is the previous ChatService.normalizeAiResponse: one
+ * String.replace pass per marker plus three more passes, two of them
+ * regexes compiled on every call. current is the single-pass scanner.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.budgetwise.benchmark.AiResponseNormalizerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AiResponseNormalizerBenchmark {
+
+    private static final String SECTION = "📊 Overview: you spent ₹12,400 this month, mostly on food. "
+            + "💡 Tips: • cook at home twice a week • cancel the unused gym plan \t• set a ₹3,000 dining cap   \n\n\n"
+            + "⚠️ Alert: the shopping budget is 92% used. ✅ Rent and utilities are on track. \n";
+
+    @Param({ "1024", "8192", "65536" })
+    private int size;
+
+    private String response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder sb = new StringBuilder(size + SECTION.length());
+        while (sb.length() < size) {
+            sb.append(SECTION);
+        }
+        response = sb.toString();
+    }
+
+    @Benchmark
+    public String current() {
+        return AiResponseNormalizer.normalize(response);
+    }
+
+    @Benchmark
+    public String legacy() {
+        String[] breakBefore = {
+                "🟢", "🟡", "🔴",
+                "🧠", "📊", "⚠️", "🎯", "💡",
+                "📌", "🔍", "✅", "💰", "💸",
+                "💳", "💼", "💹", "📈", "📉",
+        };
+        String result = response;
+        for (String sym : breakBefore) {
+            result = result.replace(sym, "\n" + sym);
+        }
+        result = result.replace(" •", "\n•");
+        result = result.replace("\t•", "\n•");
+        result = result.replaceAll("[ \t]+\n", "\n");
+        result = result.replaceAll("\n{3,}", "\n\n");
+        return result.trim();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AiResponseNormalizerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
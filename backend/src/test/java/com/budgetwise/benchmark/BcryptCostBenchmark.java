@@ -0,0 +1,62 @@
+package com.budgetwise.benchmark;
+
+import com.budgetwise.security.PooledPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Milliseconds per password check at each BCrypt cost, through
+ * PooledPasswordEncoder. This is the table behind app.security.bcrypt
+ * target-time: each cost step doubles the time, and a login costs one
+ * matches (plus one encode when the stored hash is re-hashed).
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.budgetwise.benchmark.BcryptCostBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BcryptCostBenchmark {
+
+    private static final String PASSWORD = "correct-Horse-battery-9";
+
+    @Param({ "8", "10", "12", "14" })
+    public int cost;
+
+    private PooledPasswordEncoder encoder;
+    private String hash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoder = new PooledPasswordEncoder(new SimpleMeterRegistry(), cost, Duration.ZERO, cost, cost, 0, 64);
+        hash = encoder.encode(PASSWORD);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(PASSWORD, hash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BcryptCostBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,78 @@
+package com.budgetwise.benchmark;
+
+import com.budgetwise.BudgetWiseApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application against an in-memory H2 database (MySQL mode),
+ * migrated by Flyway, so benchmarks exercise the real repositories, services
+ * and indexes without a MySQL server.
+ */
+public final class BenchmarkContext {
+
+    private static final int INSERT_BATCH_SIZE = 5_000;
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String dbName) {
+        return new SpringApplicationBuilder(BudgetWiseApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:" + dbName + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;NON_KEYWORDS=MONTH,YEAR,VALUE",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.show-sql=false",
+                        "--app.mail.enabled=false",
+                        "--app.google.client-id=benchmark",
+                        "--logging.level.root=WARN");
+    }
+
+    /**
+     * Inserts a user with {@code rows} transactions spread over the last few
+     * years, alternating income and expense, and returns the user's id.
+     */
+    public static long seedUser(JdbcTemplate jdbc, String email, int rows) {
+        jdbc.update("INSERT INTO users (email, password, enabled, preferred_currency, subscription_plan) "
+                + "VALUES (?, 'x', TRUE, 'INR', 'FREE')", email);
+        long userId = jdbc.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+        List<Long> categoryIds = jdbc.queryForList("SELECT id FROM categories ORDER BY id", Long.class);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            String type = i % 4 == 0 ? "INCOME" : "EXPENSE";
+            batch.add(new Object[] {
+                    userId,
+                    categoryIds.get(i % categoryIds.size()),
+                    "Benchmark row " + i,
+                    BigDecimal.valueOf(100 + (i % 900), 2),
+                    type,
+                    Timestamp.valueOf(now.minusMinutes(i * 7L)) });
+            if (batch.size() == INSERT_BATCH_SIZE) {
+                insertTransactions(jdbc, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertTransactions(jdbc, batch);
+        }
+        return userId;
+    }
+
+    private static void insertTransactions(JdbcTemplate jdbc, List<Object[]> batch) {
+        jdbc.batchUpdate("INSERT INTO transactions (user_id, category_id, description, amount, type, transaction_date) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", batch);
+    }
+}
@@ -0,0 +1,75 @@
+package com.budgetwise.benchmark;
+
+import com.budgetwise.security.GoogleJwksStub;
+import com.budgetwise.security.GoogleTokenVerifier;
+import com.budgetwise.security.JwksKeySource;
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Google sign-in token verification latency, with percentiles, against a
+ * local JWKS stub. The current method uses one shared GoogleTokenVerifier
+ * with cached keys. The legacy method reproduces the old per-call verifier:
+ * a new HTTP transport and a key fetch on every sign-in (here over loopback,
+ * so real Google round trips only add to it).
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.budgetwise.benchmark.GoogleTokenVerifierBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GoogleTokenVerifierBenchmark {
+
+    private static final String CLIENT_ID = "bench-client-id";
+
+    private GoogleJwksStub stub;
+    private GoogleTokenVerifier verifier;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stub = new GoogleJwksStub();
+        verifier = newVerifier();
+        token = stub.token("key-1", CLIENT_ID);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stub.close();
+    }
+
+    private GoogleTokenVerifier newVerifier() {
+        return new GoogleTokenVerifier(new JwksKeySource(stub.url()), new SimpleMeterRegistry(), CLIENT_ID,
+                Duration.ofMinutes(5), Duration.ofSeconds(30));
+    }
+
+    @Benchmark
+    public GoogleIdToken.Payload current() throws Exception {
+        return verifier.verify(token);
+    }
+
+    @Benchmark
+    public GoogleIdToken.Payload legacy() throws Exception {
+        return newVerifier().verify(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(GoogleTokenVerifierBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,93 @@
+package com.budgetwise.benchmark;
+
+import com.budgetwise.service.ChatIntent;
+import com.budgetwise.service.IntentRouter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messages routed per second over the labeled corpus in chat-intents.tsv.
+ * The legacy method reproduces the old isFinancialQuery: a lowercase copy
+ * and ~25 contains scans, yielding only financial/casual. The current method
+ * is the one-pass keyword automaton choosing among all intents.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.budgetwise.benchmark.IntentRouterBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntentRouterBenchmark {
+
+    private IntentRouter router;
+    private String[] messages;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        router = new IntentRouter();
+        List<String> loaded = new ArrayList<>();
+        try (InputStream in = IntentRouterBenchmark.class.getResourceAsStream("/chat-intents.tsv");
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    loaded.add(line.split("\t", 2)[1]);
+                }
+            }
+        }
+        messages = loaded.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public ChatIntent current() {
+        return router.classify(nextMessage());
+    }
+
+    @Benchmark
+    public boolean legacy() {
+        return legacyIsFinancialQuery(nextMessage());
+    }
+
+    // Cycles through the corpus so both methods see the same mix of messages
+    private String nextMessage() {
+        String message = messages[next];
+        next = next + 1 == messages.length ? 0 : next + 1;
+        return message;
+    }
+
+    private static boolean legacyIsFinancialQuery(String msg) {
+        String m = msg.toLowerCase();
+        return m.contains("spend") || m.contains("budget") || m.contains("income")
+                || m.contains("expense") || m.contains("saving") || m.contains("analys")
+                || m.contains("financ") || m.contains("money") || m.contains("balance")
+                || m.contains("transaction") || m.contains("invest") || m.contains("summary")
+                || m.contains("breakdown") || m.contains("report") || m.contains("how much")
+                || m.contains("overview") || m.contains("spend") || m.contains("tip")
+                || m.contains("suggestion") || m.contains("advice") || m.contains("₹")
+                || m.contains("rs.") || m.contains("rupee");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(IntentRouterBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,102 @@
+package com.budgetwise.benchmark;
+
+import com.budgetwise.service.OtpEmailTemplates;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OTP messages prepared per second, up to the point Transport would write
+ * them (saveChanges computes the MIME headers and structure). The legacy
+ * method reproduces the old EmailService: three switch lookups on an
+ * upper-cased purpose, String.format over the whole body and a multipart
+ * MimeMessageHelper. The current method fills a pre-rendered template into
+ * a single-part message.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.budgetwise.benchmark.OtpEmailBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OtpEmailBenchmark {
+
+    private static final String TO = "bench@budgetwise.com";
+    private static final String OTP = "482913";
+
+    @Param({ "SIGNUP", "RESET_PASSWORD" })
+    public String purpose;
+
+    private Session session;
+    private OtpEmailTemplates templates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        session = Session.getInstance(new Properties());
+        templates = new OtpEmailTemplates();
+    }
+
+    @Benchmark
+    public MimeMessage current() throws MessagingException {
+        MimeMessage message = templates.compose(new MimeMessage(session), TO, OTP, purpose);
+        message.saveChanges();
+        return message;
+    }
+
+    @Benchmark
+    public MimeMessage legacy() throws MessagingException {
+        String subject = legacyText(purpose, 0);
+        String html = String.format("""
+            <div style="font-family: Arial, sans-serif; max-width: 600px; margin: auto; padding: 20px; border-radius: 8px; background-color: #f9f9f9; text-align: center;">
+                <h2 style="color: #333;">%s</h2>
+                <p style="font-size: 16px; color: #555;">%s</p>
+                <div style="display: inline-block; margin: 20px 0; padding: 15px 30px; font-size: 24px; font-weight: bold; color: #fff; background-color: #007bff; border-radius: 5px; letter-spacing: 3px;">%s</div>
+                <p style="font-size: 14px; color: #777;">This code will expire in 5 minutes.</p>
+                <p style="font-size: 12px; color: #aaa;">This is an automated message. Please do not reply.</p>
+            </div>
+            """, legacyText(purpose, 0), legacyText(purpose, 1), OTP);
+        // The old code also printed five System.out lines per message; left out so the run stays readable
+        MimeMessage message = new MimeMessage(session);
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setTo(TO);
+        helper.setSubject(subject);
+        helper.setText(html, true);
+        helper.setFrom("BudgetWise <noreply@budgetwise.com>");
+        message.saveChanges();
+        return message;
+    }
+
+    private static String legacyText(String purpose, int field) {
+        switch (purpose.toUpperCase()) {
+            case "SIGNUP":
+                return field == 0 ? "BudgetWise - Verify Your Email for Registration"
+                        : "Thank you for signing up with BudgetWise! Please use the verification code below to complete your registration.";
+            case "LOGIN":
+                return field == 0 ? "BudgetWise - Your Login OTP"
+                        : "Please use the verification code below to sign in to your BudgetWise account.";
+            default:
+                return field == 0 ? "BudgetWise - Verification Code"
+                        : "Please use the verification code below for your request.";
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OtpEmailBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
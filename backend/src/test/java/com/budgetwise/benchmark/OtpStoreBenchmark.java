@@ -0,0 +1,119 @@
+package com.budgetwise.benchmark;
+
+import com.budgetwise.model.entity.OtpToken.OtpPurpose;
+import com.budgetwise.service.InMemoryOtpStore;
+import com.budgetwise.service.OtpStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OTP store operations per second for the otp_tokens table (on H2, through
+ * the application's JpaOtpStore) and for InMemoryOtpStore.
+ *
+ * verifyUsedCode runs on eight threads at once, each submitting codes that
+ * have already been verified, the path repeated or replayed submissions
+ * take. issueAndVerify is a full request/verify round trip for a fresh code;
+ * it runs on one thread because H2 2.2 hands out duplicate identity values
+ * under concurrent inserts, which MySQL does not.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.budgetwise.benchmark.OtpStoreBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OtpStoreBenchmark {
+
+    private static final int THREADS = 8;
+    private static final int EMAILS_PER_THREAD = 1_000;
+    private static final String OTP = "482913";
+
+    @Param({ "jpa", "memory" })
+    public String store;
+
+    private ConfigurableApplicationContext context;
+    private OtpStore otpStore;
+    private final AtomicInteger threadIds = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Caller {
+        private String[] emails;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(OtpStoreBenchmark benchmark) {
+            emails = emails(benchmark.threadIds.getAndIncrement() % THREADS);
+        }
+
+        String nextEmail() {
+            next = next + 1 == emails.length ? 0 : next + 1;
+            return emails[next];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("jpa".equals(store)) {
+            context = BenchmarkContext.start("otp");
+            otpStore = context.getBean(OtpStore.class);
+        } else {
+            otpStore = new InMemoryOtpStore(new SimpleMeterRegistry(), 5, Duration.ofMinutes(15));
+        }
+        for (int thread = 0; thread < THREADS; thread++) {
+            for (String email : emails(thread)) {
+                otpStore.issue(email, OtpPurpose.RESET_PASSWORD, OTP, LocalDateTime.now().plusHours(1));
+                otpStore.verify(email, OtpPurpose.RESET_PASSWORD, OTP);
+            }
+        }
+    }
+
+    private static String[] emails(int thread) {
+        String[] emails = new String[EMAILS_PER_THREAD];
+        for (int i = 0; i < emails.length; i++) {
+            emails[i] = "user" + thread + "-" + i + "@budgetwise.com";
+        }
+        return emails;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean issueAndVerify(Caller caller) {
+        String email = caller.nextEmail();
+        otpStore.issue(email, OtpPurpose.LOGIN, OTP, LocalDateTime.now().plusMinutes(15));
+        return otpStore.verify(email, OtpPurpose.LOGIN, OTP);
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public boolean verifyUsedCode(Caller caller) {
+        return otpStore.verify(caller.nextEmail(), OtpPurpose.RESET_PASSWORD, OTP);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OtpStoreBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,168 @@
+package com.budgetwise.benchmark;
+
+import com.budgetwise.model.dto.SpendingCard;
+import com.budgetwise.service.SpendingCardRenderer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.NumberFormat;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to render the chat spending card for 5, 50 and 500 categories. The
+ * legacy method reproduces the old inline rendering in ChatService: a new
+ * NumberFormat per card, String.format per category line, repeat() for bars
+ * and a regex pass over the suggestions. current builds the SpendingCard
+ * and renders its text; json serializes the same card.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.budgetwise.benchmark.SpendingCardBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpendingCardBenchmark {
+
+    private static final String SUGGESTIONS = "- Cook at home more often\n"
+            + "- Cancel subscriptions you no longer use\n"
+            + "- Move 10% of income to savings on payday\n";
+
+    @Param({ "5", "50", "500" })
+    private int categories;
+
+    private final SpendingCardRenderer renderer = new SpendingCardRenderer();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private BigDecimal income;
+    private BigDecimal expenses;
+    private List<Map.Entry<String, BigDecimal>> sorted;
+    private List<Map<String, Object>> budgets;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        sorted = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < categories; i++) {
+            BigDecimal amount = BigDecimal.valueOf(100 + random.nextInt(50_000), 2).movePointRight(2);
+            sorted.add(new AbstractMap.SimpleEntry<>("Category " + i, amount));
+            total = total.add(amount);
+        }
+        sorted.sort(Map.Entry.<String, BigDecimal>comparingByValue().reversed());
+        expenses = total;
+        income = total.multiply(BigDecimal.valueOf(13, 1));
+        budgets = new ArrayList<>();
+        for (int i = 0; i < Math.min(categories, 20); i++) {
+            Map<String, Object> budget = new HashMap<>();
+            budget.put("categoryName", "Category " + i);
+            budget.put("status", i % 4 == 0 ? "over" : "under");
+            budgets.add(budget);
+        }
+    }
+
+    @Benchmark
+    public String current() {
+        SpendingCard card = renderer.toCard(income, expenses, sorted, budgets,
+                SpendingCardRenderer.bulletLines(SUGGESTIONS));
+        return renderer.render(card);
+    }
+
+    @Benchmark
+    public String json() throws JsonProcessingException {
+        SpendingCard card = renderer.toCard(income, expenses, sorted, budgets,
+                SpendingCardRenderer.bulletLines(SUGGESTIONS));
+        return objectMapper.writeValueAsString(card);
+    }
+
+    @Benchmark
+    public String legacy() {
+        BigDecimal savings = income.subtract(expenses);
+        double savingsRate = income.compareTo(BigDecimal.ZERO) > 0
+                ? savings.divide(income, 4, RoundingMode.HALF_UP).doubleValue() * 100
+                : 0;
+        NumberFormat nf = NumberFormat.getNumberInstance(new Locale("en", "IN"));
+        nf.setMaximumFractionDigits(0);
+        String suggestions = SUGGESTIONS.replaceAll("(?m)^[-*]\\s", "• ").trim() + "\n";
+
+        String healthEmoji, healthLabel;
+        if (savingsRate >= 50) {
+            healthEmoji = "🟢";
+            healthLabel = "Excellent";
+        } else if (savingsRate >= 20) {
+            healthEmoji = "🟡";
+            healthLabel = "Moderate";
+        } else {
+            healthEmoji = "🔴";
+            healthLabel = "At Risk";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("----------------------------------\n");
+        sb.append(healthEmoji).append(" Financial Health: ").append(healthLabel).append("\n");
+        sb.append("----------------------------------\n");
+        sb.append("\n");
+        sb.append("💰 Income:   ₹").append(nf.format(income)).append("\n");
+        sb.append("💸 Expenses: ₹").append(nf.format(expenses)).append("\n");
+        sb.append("💵 Savings:  ₹").append(nf.format(savings))
+                .append("  (").append(String.format("%.0f", savingsRate)).append("%)\n");
+
+        if (!sorted.isEmpty()) {
+            sb.append("\n");
+            sb.append("📊 Spending Breakdown\n");
+            int maxNameLen = sorted.stream().mapToInt(e -> e.getKey().length()).max().orElse(10);
+            for (Map.Entry<String, BigDecimal> e : sorted) {
+                double pct = expenses.compareTo(BigDecimal.ZERO) > 0
+                        ? e.getValue().divide(expenses, 4, RoundingMode.HALF_UP).doubleValue() * 100
+                        : 0;
+                int bars = (int) Math.round(pct / 5.0);
+                String bar = "█".repeat(Math.max(1, bars));
+                String name = String.format("%-" + maxNameLen + "s", e.getKey());
+                sb.append(name).append("  ").append(bar)
+                        .append(" ").append(String.format("%.0f", pct)).append("%\n");
+            }
+        }
+
+        List<String> alerts = new ArrayList<>();
+        for (Map<String, Object> b : budgets) {
+            if ("over".equalsIgnoreCase(String.valueOf(b.get("status")))) {
+                alerts.add(b.get("categoryName") + " budget exceeded");
+            }
+        }
+        sb.append("\n");
+        sb.append("⚠️ Alerts\n");
+        if (alerts.isEmpty()) {
+            sb.append("No budget alerts — you're on track!\n");
+        } else {
+            alerts.forEach(a -> sb.append("• ").append(a).append("\n"));
+        }
+
+        sb.append("\n");
+        sb.append("🎯 AI Suggestions\n");
+        sb.append(suggestions);
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SpendingCardBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
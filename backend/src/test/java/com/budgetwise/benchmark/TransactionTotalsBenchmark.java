@@ -0,0 +1,85 @@
+package com.budgetwise.benchmark;
+
+import com.budgetwise.model.entity.Transaction;
+import com.budgetwise.repository.TransactionRepository;
+import com.budgetwise.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regression benchmark for the /api/transactions/summary totals. Compares the
+ * grouped SUM aggregate against the old path that loaded every entity of a
+ * type and reduced the amounts in Java, as the history grows.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.budgetwise.benchmark.TransactionTotalsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx2g" })
+public class TransactionTotalsBenchmark {
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private TransactionRepository transactionRepository;
+    private TransactionTemplate readOnlyTx;
+    private long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("totals" + rows);
+        transactionService = context.getBean(TransactionService.class);
+        transactionRepository = context.getBean(TransactionRepository.class);
+        readOnlyTx = new TransactionTemplate(context.getBean(
+                org.springframework.transaction.PlatformTransactionManager.class));
+        readOnlyTx.setReadOnly(true);
+        userId = BenchmarkContext.seedUser(context.getBean(JdbcTemplate.class), "bench@budgetwise.com", rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<Transaction.TransactionType, BigDecimal> aggregateTotals() {
+        return transactionService.getTotalsByType(userId);
+    }
+
+    @Benchmark
+    public BigDecimal[] entityStreamTotals() {
+        return readOnlyTx.execute(status -> new BigDecimal[] {
+                sumOf(Transaction.TransactionType.INCOME),
+                sumOf(Transaction.TransactionType.EXPENSE) });
+    }
+
+    private BigDecimal sumOf(Transaction.TransactionType type) {
+        return transactionRepository.findByUserIdAndType(userId, type).stream()
+                .map(Transaction::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TransactionTotalsBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,211 @@
+package com.budgetwise.repository;
+
+import com.budgetwise.model.dto.MonthTypeTotal;
+import com.budgetwise.model.entity.EmailOutbox;
+import com.budgetwise.model.entity.OtpToken;
+import com.budgetwise.model.entity.Transaction;
+import com.budgetwise.model.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs the Flyway migrations on H2 (MySQL mode), captures the SQL each
+ * per-user repository query emits and fails if its EXPLAIN plan falls back to
+ * a full scan of an indexed table.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class RepositoryQueryPlanTest {
+
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\* [\\w.]*?\\.(\\w+)\\.tableScan \\*/");
+    private static final List<String> GUARDED_TABLES = List.of(
+            "transactions", "budgets", "user_month_category_rollup", "otp_tokens", "chat_turn",
+            "user_insights", "email_outbox");
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private UserMonthCategoryRollupRepository rollupRepository;
+
+    @Autowired
+    private OtpTokenRepository otpTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ChatTurnRepository chatTurnRepository;
+
+    @Autowired
+    private UserInsightsRepository userInsightsRepository;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO categories (name, color) VALUES ('Food', '#FF6B6B'), ('Rent', '#96CEB4')");
+        Long categoryId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM categories", Long.class);
+        List<Object[]> users = new ArrayList<>();
+        for (int u = 0; u < 50; u++) {
+            users.add(new Object[] { "user" + u + "@example.com" });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (email, password, enabled) VALUES (?, 'x', TRUE)", users);
+        userId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Long.class);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            rows.add(new Object[] { userId + (i % 50), categoryId, "row " + i, 10 + i % 90,
+                    i % 3 == 0 ? "INCOME" : "EXPENSE", Timestamp.valueOf(now.minusHours(i)) });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO transactions (user_id, category_id, description, amount, type, "
+                + "transaction_date) VALUES (?, ?, ?, ?, ?, ?)", rows);
+        jdbcTemplate.update("INSERT INTO budgets (user_id, category_id, limit_amount, month, year) "
+                + "SELECT id, NULL, 100, 1, 2024 FROM users");
+        jdbcTemplate.update("INSERT INTO otp_tokens (email, otp, expiry_time, purpose, verified) "
+                + "SELECT email, '123456', ?, 'LOGIN', FALSE FROM users", Timestamp.valueOf(now.plusMinutes(5)));
+        jdbcTemplate.update("INSERT INTO chat_turn (user_id, user_message, reply, created_at) "
+                + "SELECT id, 'hi', 'hello', ? FROM users", Timestamp.valueOf(now));
+        jdbcTemplate.update("INSERT INTO user_insights (user_id, last_requested_at) "
+                + "SELECT id, ? FROM users", Timestamp.valueOf(now.minusDays(30)));
+        jdbcTemplate.update("INSERT INTO email_outbox (recipient, purpose, otp, status, attempts, next_attempt_at, "
+                + "created_at) SELECT email, 'LOGIN', '123456', 'PENDING', 0, ?, ? FROM users",
+                Timestamp.valueOf(now.plusMinutes(1)), Timestamp.valueOf(now));
+    }
+
+    @Test
+    void transactionListQueriesUseIndexes() {
+        assertIndexed(() -> transactionRepository.findByUserIdOrderByTransactionDateDesc(userId));
+        assertIndexed(() -> transactionRepository.findByUserIdAndDateRange(userId, now.minusDays(7), now));
+        assertIndexed(() -> transactionRepository.findByUserIdAndType(userId, Transaction.TransactionType.EXPENSE));
+        assertIndexed(() -> transactionRepository.findRecentByUserId(userId, PageRequest.of(0, 5)));
+    }
+
+    @Test
+    void keysetPagesUseIndexes() {
+        PageRequest limit = PageRequest.of(0, 21);
+        assertIndexed(() -> transactionRepository.findPageByUserId(userId, now, Long.MAX_VALUE, limit));
+        assertIndexed(() -> transactionRepository.findPageByUserIdAndDateRange(userId, now.minusDays(7), now,
+                now, Long.MAX_VALUE, limit));
+        assertIndexed(() -> transactionRepository.findPageByUserIdAndType(userId,
+                Transaction.TransactionType.INCOME, now, Long.MAX_VALUE, limit));
+    }
+
+    @Test
+    void aggregateQueriesUseIndexes() {
+        assertIndexed(() -> transactionRepository.sumAmountByType(userId));
+        assertIndexed(() -> transactionRepository.sumByMonthAndCategory(userId));
+        assertIndexed(() -> transactionRepository.sumByDayAndType(userId, now.minusWeeks(4), now));
+        assertIndexed(() -> transactionRepository.sumByCategoryInRange(userId, Transaction.TransactionType.EXPENSE,
+                now.withDayOfMonth(1), now.plusMonths(1).withDayOfMonth(1)));
+        assertIndexed(() -> rollupRepository.sumByMonthAndType(userId, 202401, 202406));
+        assertIndexed(() -> rollupRepository.sumByCategory(userId, Transaction.TransactionType.EXPENSE));
+    }
+
+    @Test
+    void monthlyTotalsStayWithinTheRequestedMonths() {
+        Long categoryId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM categories", Long.class);
+        for (int monthKey : new int[] { 202312, 202401, 202406, 202407 }) {
+            jdbcTemplate.update("INSERT INTO user_month_category_rollup (user_id, month_key, category_id, type, "
+                    + "total_amount, tx_count) VALUES (?, ?, ?, 'INCOME', 100, 1)", userId, monthKey, categoryId);
+        }
+
+        List<Integer> months = rollupRepository.sumByMonthAndType(userId, 202401, 202406).stream()
+                .map(MonthTypeTotal::getMonthKey).toList();
+
+        assertEquals(List.of(202401, 202406), months);
+    }
+
+    @Test
+    void budgetQueriesUseIndexes() {
+        User user = userRepository.getReferenceById(userId);
+        assertIndexed(() -> budgetRepository.findWithCategoryByUserIdAndMonthAndYear(userId, 1, 2024));
+        assertIndexed(() -> budgetRepository.findByUserAndMonthAndYear(user, 1, 2024));
+    }
+
+    @Test
+    void otpQueriesUseIndexes() {
+        assertIndexed(() -> otpTokenRepository.findFirstByEmailAndPurposeAndVerifiedFalseOrderByIdDesc(
+                "user1@example.com", OtpToken.OtpPurpose.LOGIN));
+        assertIndexed(() -> otpTokenRepository.existsByEmailAndPurposeAndVerifiedTrueAndExpiryTimeAfter(
+                "user1@example.com", OtpToken.OtpPurpose.RESET_PASSWORD, now));
+    }
+
+    @Test
+    void chatHistoryQueryUsesIndex() {
+        assertIndexed(() -> chatTurnRepository.findRecentByUserId(userId, PageRequest.of(0, 16)));
+    }
+
+    @Test
+    void activeInsightsUsersQueryUsesIndex() {
+        assertIndexed(() -> userInsightsRepository.findRequestedSince(now.minusDays(7)));
+    }
+
+    @Test
+    void outboxPollUsesIndex() {
+        assertIndexed(() -> emailOutboxRepository.findByStatusDueBy(EmailOutbox.Status.PENDING, now,
+                PageRequest.of(0, 50)));
+    }
+
+    private void assertIndexed(Runnable query) {
+        SqlCapture.clear();
+        query.run();
+        List<String> selects = SqlCapture.statements().stream()
+                .filter(sql -> sql.trim().toLowerCase(Locale.ROOT).startsWith("select"))
+                .toList();
+        assertFalse(selects.isEmpty(), "No SELECT was captured");
+        for (String sql : selects) {
+            String plan = explain(sql);
+            Matcher scan = TABLE_SCAN.matcher(plan);
+            while (scan.find()) {
+                String table = scan.group(1).toLowerCase(Locale.ROOT);
+                if (GUARDED_TABLES.contains(table)) {
+                    fail("Full scan of " + table + " for:\n" + sql + "\nPlan:\n" + plan);
+                }
+            }
+        }
+    }
+
+    private String explain(String sql) {
+        // H2 plans parameterised statements without needing bound values
+        return jdbcTemplate.execute((java.sql.Connection connection) -> {
+            try (var statement = connection.prepareStatement("EXPLAIN " + sql);
+                    var rs = statement.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        });
+    }
+}
@@ -0,0 +1,149 @@
+package com.budgetwise.security;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.json.webtoken.JsonWebSignature;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for Google's JWKS endpoint, and a signer for ID tokens made
+ * with its keys. Keys can be added (rotation) or kept unpublished, and the
+ * endpoint can be told to fail.
+ */
+public class GoogleJwksStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final Map<String, KeyPair> published = new ConcurrentHashMap<>();
+    private final Map<String, KeyPair> all = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile String cacheControl = "public, max-age=3600";
+    private volatile boolean failing;
+
+    public GoogleJwksStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/oauth2/v3/certs", this::handle);
+        server.start();
+        publishKey("key-1");
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/oauth2/v3/certs";
+    }
+
+    public int hits() {
+        return hits.get();
+    }
+
+    public void publishKey(String keyId) {
+        KeyPair keyPair = generate();
+        all.put(keyId, keyPair);
+        published.put(keyId, keyPair);
+    }
+
+    /** A key that signs tokens but is never served. */
+    public void unpublishedKey(String keyId) {
+        all.put(keyId, generate());
+    }
+
+    public void setCacheControl(String cacheControl) {
+        this.cacheControl = cacheControl;
+    }
+
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    /** A token for {@code audience}, issued now and valid for an hour, signed by {@code keyId}. */
+    public String token(String keyId, String audience) {
+        long now = System.currentTimeMillis() / 1000;
+        return token(keyId, keyId, audience, now, now + 3600);
+    }
+
+    /** A token whose header names {@code headerKeyId} but is signed by {@code signingKeyId}. */
+    public String token(String headerKeyId, String signingKeyId, String audience, long issuedAt, long expiresAt) {
+        JsonWebSignature.Header header = new JsonWebSignature.Header()
+                .setAlgorithm("RS256")
+                .setType("JWT")
+                .setKeyId(headerKeyId);
+        GoogleIdToken.Payload payload = new GoogleIdToken.Payload()
+                .setEmail("jane@example.com")
+                .setEmailVerified(true);
+        payload.setIssuer("https://accounts.google.com")
+                .setAudience(audience)
+                .setSubject("110248495921238986420")
+                .setIssuedAtTimeSeconds(issuedAt)
+                .setExpirationTimeSeconds(expiresAt);
+        payload.set("given_name", "Jane");
+        payload.set("family_name", "Doe");
+        try {
+            return JsonWebSignature.signUsingRsaSha256(all.get(signingKeyId).getPrivate(),
+                    GsonFactory.getDefaultInstance(), header, payload);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        hits.incrementAndGet();
+        if (failing) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+        StringJoiner keys = new StringJoiner(",", "{\"keys\":[", "]}");
+        published.forEach((keyId, keyPair) -> {
+            RSAPublicKey key = (RSAPublicKey) keyPair.getPublic();
+            keys.add("{\"kid\":\"" + keyId + "\",\"kty\":\"RSA\",\"alg\":\"RS256\",\"use\":\"sig\",\"n\":\""
+                    + base64Url(key.getModulus()) + "\",\"e\":\"" + base64Url(key.getPublicExponent()) + "\"}");
+        });
+        byte[] body = keys.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Cache-Control", cacheControl);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static KeyPair generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
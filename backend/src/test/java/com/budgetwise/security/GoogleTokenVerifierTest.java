@@ -0,0 +1,121 @@
+package com.budgetwise.security;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Runs against GoogleJwksStub through the real JwksKeySource, so the JWKS
+ * parsing and Cache-Control handling are covered too.
+ */
+public class GoogleTokenVerifierTest {
+
+    private static final String CLIENT_ID = "test-client-id";
+
+    private final GoogleJwksStub stub;
+    private final MutableClock clock = new MutableClock(Instant.now());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GoogleTokenVerifier verifier;
+
+    public GoogleTokenVerifierTest() throws Exception {
+        stub = new GoogleJwksStub();
+        verifier = new GoogleTokenVerifier(new JwksKeySource(stub.url()), meterRegistry, CLIENT_ID,
+                Duration.ofMinutes(5), Duration.ofSeconds(30), clock);
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void verifiesValidTokensWithOneKeyFetch() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            GoogleIdToken.Payload payload = verifier.verify(stub.token("key-1", CLIENT_ID));
+            assertNotNull(payload);
+            assertEquals("jane@example.com", payload.getEmail());
+            assertEquals("Jane", payload.get("given_name"));
+        }
+        assertEquals(1, stub.hits());
+        assertEquals(5, meterRegistry.get("auth.google.verify").tag("outcome", "valid").timer().count());
+    }
+
+    @Test
+    void rejectsTokensThatAreNotOurs() throws Exception {
+        long now = clock.millis() / 1000;
+        stub.publishKey("key-2");
+        stub.unpublishedKey("forged");
+
+        assertNull(verifier.verify(stub.token("key-1", "another-client")));
+        assertNull(verifier.verify(stub.token("key-1", "key-1", CLIENT_ID, now - 7200, now - 3600)));
+        assertNull(verifier.verify(stub.token("key-1", "key-2", CLIENT_ID, now, now + 3600)));
+        assertNull(verifier.verify(stub.token("forged", CLIENT_ID)));
+        // The unknown key id does not refetch within min-refresh-interval of the first fetch
+        assertEquals(1, stub.hits());
+        assertEquals(4, meterRegistry.get("auth.google.verify").tag("outcome", "invalid").timer().count());
+    }
+
+    @Test
+    void followsKeyRotationAndCacheControl() throws Exception {
+        stub.setCacheControl("public, max-age=600, must-revalidate");
+        verifier.verify(stub.token("key-1", CLIENT_ID));
+        stub.publishKey("key-2");
+
+        // Rotated key: picked up once min-refresh-interval has passed
+        assertNull(verifier.verify(stub.token("key-2", CLIENT_ID)));
+        clock.advance(Duration.ofSeconds(31));
+        assertNotNull(verifier.verify(stub.token("key-2", CLIENT_ID)));
+        assertEquals(2, stub.hits());
+
+        // Background refresh only within refresh-ahead of the 600s max-age
+        verifier.refreshAhead();
+        assertEquals(2, stub.hits());
+        clock.advance(Duration.ofSeconds(301));
+        verifier.refreshAhead();
+        assertEquals(3, stub.hits());
+
+        // An outage past expiry keeps the last keys
+        stub.setFailing(true);
+        clock.advance(Duration.ofSeconds(601));
+        assertNotNull(verifier.verify(stub.token("key-1", CLIENT_ID)));
+        assertEquals(1, meterRegistry.get("auth.google.keys.refresh").tag("outcome", "failed").counter().count());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
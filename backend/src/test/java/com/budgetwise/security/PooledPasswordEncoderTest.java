@@ -0,0 +1,99 @@
+package com.budgetwise.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PooledPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PooledPasswordEncoder encoder = new PooledPasswordEncoder(meterRegistry, 5, Duration.ZERO, 4, 4,
+            1, 1);
+
+    @AfterEach
+    void shutDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    void refusesHashesOnceTheQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode(held(release)));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode(held(release)));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (meterRegistry.get("auth.password.queue").gauge().value() < 1) {
+            assertTrue(System.currentTimeMillis() < deadline, "second hash never queued");
+            Thread.sleep(5);
+        }
+
+        assertThrows(RejectedExecutionException.class, () -> encoder.encode("secret"));
+        assertEquals(1, meterRegistry.get("auth.password.rejected").counter().count());
+
+        release.countDown();
+        String first = running.get(5, TimeUnit.SECONDS);
+        String second = queued.get(5, TimeUnit.SECONDS);
+        assertTrue(encoder.matches("secret", first));
+        assertTrue(encoder.matches("secret", second));
+    }
+
+    @Test
+    void calibrationStaysWithinTheConfiguredCosts() {
+        assertEquals(4, PooledPasswordEncoder.calibrate(Duration.ZERO, 4, 8));
+        assertEquals(6, PooledPasswordEncoder.calibrate(Duration.ofHours(1), 4, 6));
+    }
+
+    @Test
+    void hashesWithALowerCostNeedUpgrading() {
+        String legacy = new BCryptPasswordEncoder(4).encode("secret");
+        String current = encoder.encode("secret");
+
+        assertEquals(5, encoder.getStrength());
+        assertTrue(encoder.matches("secret", legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+        assertFalse(encoder.upgradeEncoding(current));
+        assertFalse(encoder.upgradeEncoding("not-a-bcrypt-hash"));
+        assertFalse(encoder.matches("secret", ""));
+    }
+
+    /** A password whose hashing blocks until {@code release} opens. */
+    private static CharSequence held(CountDownLatch release) {
+        return new CharSequence() {
+            @Override
+            public String toString() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "secret";
+            }
+
+            @Override
+            public int length() {
+                return toString().length();
+            }
+
+            @Override
+            public char charAt(int index) {
+                return toString().charAt(index);
+            }
+
+            @Override
+            public CharSequence subSequence(int start, int end) {
+                return toString().subSequence(start, end);
+            }
+        };
+    }
+}
@@ -0,0 +1,206 @@
+package com.budgetwise.security;
+
+import com.budgetwise.controller.UserController;
+import com.budgetwise.dto.PasswordReset;
+import com.budgetwise.dto.SubscriptionRequest;
+import com.budgetwise.model.dto.UserPreferencesDTO;
+import com.budgetwise.model.entity.OtpToken.OtpPurpose;
+import com.budgetwise.model.entity.User;
+import com.budgetwise.service.AuthService;
+import com.budgetwise.service.EmailService;
+import com.budgetwise.service.InMemoryOtpStore;
+import com.budgetwise.service.OtpStore;
+import com.budgetwise.service.SubscriptionService;
+import com.budgetwise.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Each mutation that calls PrincipalCache.invalidate, followed by the next
+ * authenticated request through JwtAuthenticationFilter, on the Flyway
+ * schema on H2 with real commits.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ PrincipalCache.class, JwtAuthenticationFilter.class, JwtUtil.class, CustomUserDetailsService.class,
+        SubscriptionService.class, UserController.class, AuthService.class, PrincipalCacheTest.Config.class })
+public class PrincipalCacheTest {
+
+    private static final String EMAIL = "cached@example.com";
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private JwtAuthenticationFilter filter;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private UserController userController;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private OtpStore otpStore;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private EmailService emailService;
+
+    @MockBean
+    private GoogleTokenVerifier googleTokenVerifier;
+
+    private String token;
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        OtpStore otpStore(MeterRegistry meterRegistry) {
+            return new InMemoryOtpStore(meterRegistry, 3, Duration.ofMinutes(15));
+        }
+
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return new BCryptPasswordEncoder(4);
+        }
+    }
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO roles (name) VALUES ('USER')");
+        jdbcTemplate.update("INSERT INTO users (email, password, enabled) VALUES (?, ?, TRUE)", EMAIL,
+                passwordEncoder.encode("Old-pass-1"));
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) SELECT u.id, r.id FROM users u, roles r "
+                + "WHERE u.email = ? AND r.name = 'USER'", EMAIL);
+        token = jwtUtil.generateToken(EMAIL);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM user_roles");
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("DELETE FROM roles");
+        principalCache.invalidate(EMAIL);
+    }
+
+    @Test
+    void theNextRequestSeesEachMutation() throws Exception {
+        assertNull(authenticate().getSubscriptionPlan());
+
+        subscriptionService.upgradeSubscription(EMAIL, subscription("premium"));
+        assertEquals("PREMIUM", authenticate().getSubscriptionPlan());
+
+        User principal = authenticate();
+        Authentication authentication = new UsernamePasswordAuthenticationToken(principal, null, List.of());
+        userController.updatePreferences(new UserPreferencesDTO("EUR"), authentication);
+        assertEquals("EUR", authenticate().getPreferredCurrency());
+
+        otpStore.issue(EMAIL, OtpPurpose.RESET_PASSWORD, "123456", LocalDateTime.now().plusMinutes(5));
+        assertTrue(otpStore.verify(EMAIL, OtpPurpose.RESET_PASSWORD, "123456"));
+        PasswordReset reset = new PasswordReset();
+        reset.setEmail(EMAIL);
+        reset.setNewPassword("New-pass-2");
+        authService.resetPassword(reset);
+        assertTrue(passwordEncoder.matches("New-pass-2", authenticate().getPassword()));
+    }
+
+    @Test
+    void aRequestDuringTheWriteCannotLeaveTheOldRowCached() throws Exception {
+        assertNull(authenticate().getSubscriptionPlan());
+        ExecutorService otherRequest = Executors.newSingleThreadExecutor();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                subscriptionService.upgradeSubscription(EMAIL, subscription("premium"));
+                // Evicted already, but this request still reads the committed, old row and caches it
+                try {
+                    User racing = otherRequest.submit(this::authenticate).get(5, TimeUnit.SECONDS);
+                    assertNull(racing.getSubscriptionPlan());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } finally {
+            otherRequest.shutdown();
+        }
+
+        // The after-commit eviction drops what the racing request cached
+        assertEquals("PREMIUM", authenticate().getSubscriptionPlan());
+    }
+
+    /** Runs a request with the bearer token through the filter and returns its principal. */
+    private User authenticate() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/preferences");
+        request.addHeader("Authorization", "Bearer " + token);
+        SecurityContextHolder.clearContext();
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static SubscriptionRequest subscription(String plan) {
+        SubscriptionRequest request = new SubscriptionRequest();
+        request.setPlan(plan);
+        request.setPeriod("monthly");
+        return request;
+    }
+}
@@ -0,0 +1,111 @@
+package com.budgetwise.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AiResponseNormalizerTest {
+
+    // Fragments the generator strings together: every marker, near-misses
+    // (⚠ without its variation selector, a lone surrogate) and all the
+    // whitespace the rules care about
+    private static final String[] FRAGMENTS = {
+            "🟢", "🟡", "🔴", "🧠", "📊", "⚠️",
+            "🎯", "💡", "📌", "🔍", "✅", "💰",
+            "💸", "💳", "💼", "💹", "📈", "📉",
+            "⚠", "️", "\uD83D", "\uDFE2", "💵", "•", " •", "\t•", " ", "  ", "\t", "\n",
+            "\n\n\n", "\r", "\r\n", "\u000B", "a", "Save", "₹1,200", "-", "*", ".", "Income: "
+    };
+
+    @Test
+    void matchesTheReplaceChainOnRandomInputs() {
+        Random random = new Random(20240517L);
+        for (int run = 0; run < 20_000; run++) {
+            StringBuilder input = new StringBuilder();
+            int fragments = random.nextInt(40);
+            for (int i = 0; i < fragments; i++) {
+                input.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            String text = input.toString();
+            assertEquals(legacyNormalize(text), AiResponseNormalizer.normalize(text), () -> escape(text));
+        }
+    }
+
+    @Test
+    void streamedChunksAddUpToTheWholeReply() {
+        Random random = new Random(20241017L);
+        for (int run = 0; run < 5_000; run++) {
+            StringBuilder input = new StringBuilder();
+            int fragments = random.nextInt(40);
+            for (int i = 0; i < fragments; i++) {
+                input.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            String text = input.toString();
+            // Split anywhere, including inside surrogate pairs and markers
+            AiResponseNormalizer.Stream stream = new AiResponseNormalizer.Stream();
+            StringBuilder streamed = new StringBuilder();
+            int at = 0;
+            while (at < text.length()) {
+                int end = Math.min(text.length(), at + random.nextInt(6));
+                streamed.append(stream.accept(text.substring(at, end)));
+                at = end;
+            }
+            streamed.append(stream.finish());
+            assertEquals(AiResponseNormalizer.normalize(text), streamed.toString(), () -> escape(text));
+        }
+    }
+
+    @Test
+    void reflowsAFlatModelReply() {
+        String flat = "  📊 Overview: spending is up. 💡 Tips: • cook at home \t• cancel gym   \n\n\n\n"
+                + "✅ Done  ";
+        assertEquals("📊 Overview: spending is up.\n💡 Tips:\n• cook at home\n• cancel gym\n\n"
+                + "✅ Done", AiResponseNormalizer.normalize(flat));
+        assertEquals("", AiResponseNormalizer.normalize(null));
+    }
+
+    /** The previous implementation, kept as the reference. */
+    static String legacyNormalize(String response) {
+        if (response == null)
+            return "";
+
+        String[] breakBefore = {
+                "🟢", "🟡", "🔴",
+                "🧠",
+                "📊",
+                "⚠️",
+                "🎯",
+                "💡",
+                "📌",
+                "🔍",
+                "✅",
+                "💰",
+                "💸",
+                "💳",
+                "💼",
+                "💹",
+                "📈",
+                "📉",
+        };
+
+        String result = response;
+        for (String sym : breakBefore) {
+            result = result.replace(sym, "\n" + sym);
+        }
+        result = result.replace(" •", "\n•");
+        result = result.replace("\t•", "\n•");
+        result = result.replaceAll("[ \t]+\n", "\n");
+        result = result.replaceAll("\n{3,}", "\n\n");
+        return result.trim();
+    }
+
+    private static String escape(String text) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            sb.append(c < 0x20 || c > 0x7E ? String.format("\\u%04X", (int) c) : String.valueOf(c));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,175 @@
+package com.budgetwise.service;
+
+import com.budgetwise.dto.OtpVerification;
+import com.budgetwise.dto.SignupRequest;
+import com.budgetwise.model.entity.OtpToken.OtpPurpose;
+import com.budgetwise.repository.UserRepository;
+import com.budgetwise.security.GoogleTokenVerifier;
+import com.budgetwise.security.PrincipalCache;
+import com.budgetwise.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sign-in against the Flyway schema on H2, with real commits, using an
+ * encoder that records whether a transaction was open while it hashed.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ AuthService.class, PrincipalCache.class, JwtUtil.class, AuthServiceTest.Config.class })
+public class AuthServiceTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OtpStore otpStore;
+
+    @Autowired
+    private RecordingEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private EmailService emailService;
+
+    @MockBean
+    private GoogleTokenVerifier googleTokenVerifier;
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        OtpStore otpStore(MeterRegistry meterRegistry) {
+            return new InMemoryOtpStore(meterRegistry, 3, Duration.ofMinutes(15), Clock.systemUTC());
+        }
+
+        @Bean
+        RecordingEncoder passwordEncoder() {
+            return new RecordingEncoder();
+        }
+    }
+
+    /** BCrypt at cost 5, so cost-4 hashes need upgrading; can be told to refuse like a full queue. */
+    static class RecordingEncoder implements PasswordEncoder {
+
+        private final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(5);
+        final List<Boolean> transactionOpen = new CopyOnWriteArrayList<>();
+        volatile boolean rejecting;
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            record();
+            return bcrypt.encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            record();
+            return bcrypt.matches(rawPassword, encodedPassword);
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            return bcrypt.upgradeEncoding(encodedPassword);
+        }
+
+        private void record() {
+            transactionOpen.add(TransactionSynchronizationManager.isActualTransactionActive());
+            if (rejecting) {
+                throw new RejectedExecutionException("Too many sign-in requests right now, please try again shortly");
+            }
+        }
+    }
+
+    @BeforeEach
+    void seedRole() {
+        jdbcTemplate.update("INSERT INTO roles (name) VALUES ('USER')");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM user_roles");
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("DELETE FROM roles");
+        passwordEncoder.rejecting = false;
+    }
+
+    @Test
+    void loginHashesWithNoTransactionOpenAndUpgradesAnOldCost() {
+        String oldHash = new BCryptPasswordEncoder(4).encode("Secret-123");
+        jdbcTemplate.update("INSERT INTO users (email, password, enabled) VALUES ('a@example.com', ?, TRUE)",
+                oldHash);
+
+        assertNotNull(authService.loginUser("a@example.com", "Secret-123"));
+
+        // matches, then encode for the upgrade, both outside any transaction
+        assertEquals(List.of(false, false), passwordEncoder.transactionOpen);
+        String stored = userRepository.findByEmail("a@example.com").orElseThrow().getPassword();
+        assertFalse(oldHash.equals(stored));
+        assertFalse(passwordEncoder.upgradeEncoding(stored));
+        assertNotNull(authService.loginUser("a@example.com", "Secret-123"));
+    }
+
+    @Test
+    void aRefusedHashDoesNotUseUpTheSignupOtp() {
+        otpStore.issue("new@example.com", OtpPurpose.SIGNUP, "123456", LocalDateTime.now().plusMinutes(5));
+        OtpVerification verification = new OtpVerification();
+        verification.setEmail("new@example.com");
+        verification.setOtp("123456");
+        SignupRequest signup = new SignupRequest();
+        signup.setEmail("new@example.com");
+        signup.setPassword("Secret-123");
+
+        passwordEncoder.rejecting = true;
+        assertThrows(RejectedExecutionException.class, () -> authService.verifySignupOtp(verification, signup));
+        assertFalse(userRepository.existsByEmail("new@example.com"));
+
+        // The retry succeeds with the same code
+        passwordEncoder.rejecting = false;
+        assertNotNull(authService.verifySignupOtp(verification, signup));
+        assertTrue(userRepository.existsByEmail("new@example.com"));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_roles", Integer.class));
+    }
+}
@@ -0,0 +1,125 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.entity.Transaction.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Budget status over the Flyway schema on H2: spending is the month's
+ * expenses only, from its first instant up to (not including) the next
+ * month's.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(BudgetService.class)
+public class BudgetStatusTest {
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private FinancialContextCache financialContextCache;
+
+    private Long userId;
+    private Long food;
+    private Long travel;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO categories (name, color) VALUES ('Food', '#FF6B6B'), ('Travel', '#45B7D1')");
+        food = jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = 'Food'", Long.class);
+        travel = jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = 'Travel'", Long.class);
+        jdbcTemplate.update("INSERT INTO users (email, password, enabled) VALUES ('budget@example.com', 'x', TRUE)");
+        userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'budget@example.com'", Long.class);
+    }
+
+    @Test
+    void currentMonthCountsOnlyItsOwnExpenses() {
+        YearMonth current = YearMonth.now();
+        LocalDateTime start = current.atDay(1).atStartOfDay();
+        LocalDateTime next = current.plusMonths(1).atDay(1).atStartOfDay();
+        budget(food, "100.00", current);
+        budget(null, "400.00", current);
+
+        transaction(food, "11.00", TransactionType.EXPENSE, start.minusSeconds(1)); // previous month
+        transaction(food, "20.00", TransactionType.EXPENSE, start);
+        transaction(food, "30.00", TransactionType.EXPENSE, start.plusDays(1));
+        transaction(travel, "50.00", TransactionType.EXPENSE, start.plusHours(5));
+        transaction(food, "500.00", TransactionType.INCOME, start.plusDays(1)); // income in the budget's category
+        transaction(food, "13.00", TransactionType.EXPENSE, next); // first instant of next month
+
+        Map<String, Map<String, Object>> status = byCategory(budgetService.getBudgetStatus("budget@example.com"));
+
+        assertSpent("50.00", "50.00", status.get("Food"));
+        assertSpent("100.00", "300.00", status.get("Total"));
+        assertEquals(status, byCategory(budgetService.getBudgetStatus("budget@example.com",
+                current.getMonthValue(), current.getYear())));
+    }
+
+    @Test
+    void explicitPastMonthUsesThatMonthsRange() {
+        YearMonth february = YearMonth.of(2024, 2);
+        budget(food, "80.00", february);
+        budget(food, "80.00", february.plusMonths(1));
+
+        transaction(food, "7.00", TransactionType.EXPENSE, LocalDateTime.of(2024, 1, 31, 23, 59, 59));
+        transaction(food, "25.00", TransactionType.EXPENSE, LocalDateTime.of(2024, 2, 1, 0, 0));
+        transaction(food, "15.00", TransactionType.EXPENSE, LocalDateTime.of(2024, 2, 29, 23, 59, 59));
+        transaction(food, "9.00", TransactionType.EXPENSE, LocalDateTime.of(2024, 3, 1, 0, 0));
+        transaction(food, "60.00", TransactionType.INCOME, LocalDateTime.of(2024, 2, 10, 12, 0));
+
+        List<Map<String, Object>> status = budgetService.getBudgetStatus("budget@example.com", 2, 2024);
+
+        assertEquals(1, status.size());
+        assertEquals(2, status.get(0).get("month"));
+        assertEquals(2024, status.get(0).get("year"));
+        assertSpent("40.00", "40.00", status.get(0));
+
+        List<Map<String, Object>> march = budgetService.getBudgetStatus("budget@example.com", 3, 2024);
+        assertSpent("9.00", "71.00", march.get(0));
+    }
+
+    private static void assertSpent(String spent, String remaining, Map<String, Object> status) {
+        assertEquals(0, new BigDecimal(spent).compareTo((BigDecimal) status.get("spent")), () -> "spent " + status);
+        assertEquals(0, new BigDecimal(remaining).compareTo((BigDecimal) status.get("remaining")),
+                () -> "remaining " + status);
+    }
+
+    private static Map<String, Map<String, Object>> byCategory(List<Map<String, Object>> status) {
+        return status.stream().collect(Collectors.toMap(
+                row -> (String) row.get("categoryName"), row -> row));
+    }
+
+    private void budget(Long categoryId, String limit, YearMonth period) {
+        jdbcTemplate.update("INSERT INTO budgets (user_id, category_id, limit_amount, month, year) "
+                + "VALUES (?, ?, ?, ?, ?)", userId, categoryId, new BigDecimal(limit), period.getMonthValue(),
+                period.getYear());
+    }
+
+    private void transaction(Long categoryId, String amount, TransactionType type, LocalDateTime at) {
+        jdbcTemplate.update("INSERT INTO transactions (user_id, category_id, description, amount, type, "
+                + "transaction_date, created_at) VALUES (?, ?, 'test', ?, ?, ?, CURRENT_TIMESTAMP)", userId, categoryId,
+                new BigDecimal(amount), type.name(), Timestamp.valueOf(at));
+    }
+}
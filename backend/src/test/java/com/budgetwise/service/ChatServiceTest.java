@@ -1,22 +1,38 @@
 package com.budgetwise.service;
 
+import com.budgetwise.model.dto.ChatReply;
+import com.budgetwise.model.dto.TransactionListItemDTO;
+import com.budgetwise.model.entity.Transaction;
 import com.budgetwise.model.entity.User;
 import com.budgetwise.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
@@ -36,12 +52,15 @@ public class ChatServiceTest {
     @Mock
     private LLMService llmService; // Added Mock
 
+    @Mock
+    private LLMStreamingService llmStreamingService;
+
     private ChatService chatService;
 
     @BeforeEach
     void setUp() {
-        chatService = new ChatService(transactionService, budgetService, userRepository, llmService); // Updated
-                                                                                                      // Constructor
+        chatService = new ChatService(transactionService, budgetService, userRepository, llmService,
+                newResponseCache(), llmStreamingService, Runnable::run, Runnable::run, newContextCache(), newConversationMemory(), 400);
     }
 
     @Test
@@ -60,7 +79,7 @@ public class ChatServiceTest {
 
         // Mock LLM to fail so it uses fallback logic for this specific test case (or we
         // can test LLM path separately)
-        when(llmService.getChatResponse(anyString(), anyString())).thenReturn("Error: API Key missing");
+        when(llmService.getChatResponse(anyString(), anyString())).thenReturn(LLMResult.failure(LLMResult.Status.NOT_CONFIGURED, "API Key missing"));
 
         String response = chatService.processMessage("What is my balance?", "test@example.com");
 
@@ -74,13 +93,187 @@ public class ChatServiceTest {
         User user = new User();
         user.setId(1L);
         when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
-        when(transactionService.getTotalIncome(1L)).thenReturn(BigDecimal.ZERO);
-        when(transactionService.getTotalExpenses(1L)).thenReturn(BigDecimal.ZERO);
+        when(transactionService.getTotalsByType(1L)).thenReturn(Map.of(
+                Transaction.TransactionType.INCOME, BigDecimal.ZERO,
+                Transaction.TransactionType.EXPENSE, BigDecimal.ZERO));
 
-        when(llmService.getChatResponse(anyString(), anyString())).thenReturn("This is an AI response.");
+        when(llmService.getChatResponse(anyList())).thenReturn(LLMResult.success("This is an AI response."));
 
         String response = chatService.processMessage("Hello AI", "test@example.com");
 
         assertTrue(response.equals("This is an AI response."));
     }
+
+    @Test
+    void testVisualizationOverlapsSuggestionsWithBudgetRead() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(transactionService.getTotalsByType(1L)).thenReturn(Map.of(
+                Transaction.TransactionType.INCOME, new BigDecimal("5000"),
+                Transaction.TransactionType.EXPENSE, new BigDecimal("2000")));
+        Map<String, Object> food = new HashMap<>();
+        food.put("name", "Food");
+        food.put("value", new BigDecimal("2000"));
+        when(transactionService.getCategoryExpenseSummary(1L)).thenReturn(List.of(food));
+
+        // The budget read only finishes once the suggestion call has started,
+        // so this completes only if the two overlap
+        CountDownLatch suggestionsStarted = new CountDownLatch(1);
+        when(llmService.getChatResponse(anyString(), anyString())).thenAnswer(invocation -> {
+            suggestionsStarted.countDown();
+            return LLMResult.success("- Cook at home");
+        });
+        when(budgetService.getBudgetStatus("test@example.com")).thenAnswer(invocation -> {
+            assertTrue(suggestionsStarted.await(5, TimeUnit.SECONDS));
+            return new ArrayList<Map<String, Object>>();
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            ChatService concurrent = new ChatService(transactionService, budgetService, userRepository, llmService,
+                    newResponseCache(), llmStreamingService, Runnable::run, pool, newContextCache(),
+                    newConversationMemory(), 400);
+            ChatReply reply = concurrent.reply("Show my spending breakdown", "test@example.com");
+
+            assertTrue(reply.getResponse().contains("Food"));
+            assertTrue(reply.getResponse().contains("• Cook at home"));
+            assertEquals(List.of("totals", "categories", "budgets", "suggestions", "render", "total"),
+                    new ArrayList<>(reply.getTimings().keySet()));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testChatPromptStaysWithinContextBudget() {
+        User user = new User();
+        user.setId(1L);
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(transactionService.getTotalsByType(1L)).thenReturn(Map.of(
+                Transaction.TransactionType.INCOME, new BigDecimal("1250000.00"),
+                Transaction.TransactionType.EXPENSE, new BigDecimal("52345.10")));
+        List<Map<String, Object>> budgets = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Map<String, Object> budget = new HashMap<>();
+            budget.put("categoryName", "Category " + i);
+            budget.put("spent", new BigDecimal("4200.00"));
+            budget.put("limitAmount", new BigDecimal("5000.00"));
+            budget.put("status", i == 59 ? "over" : "safe");
+            budgets.add(budget);
+        }
+        when(budgetService.getBudgetStatus("test@example.com")).thenReturn(budgets);
+        List<TransactionListItemDTO> recent = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            recent.add(new TransactionListItemDTO((long) i, "Very long free-form description ".repeat(10),
+                    new BigDecimal("129.99"), Transaction.TransactionType.EXPENSE,
+                    LocalDateTime.of(2024, 5, 1 + i, 12, 0), 1L, "Food", "#fff"));
+        }
+        when(transactionService.getRecentTransactions(1L, 5)).thenReturn(recent);
+        ArgumentCaptor<List<Map<String, String>>> messages = messagesCaptor();
+        when(llmService.getChatResponse(messages.capture())).thenReturn(LLMResult.success("Hi!"));
+
+        chatService.processMessage("Hello AI", "test@example.com");
+
+        String prompt = messages.getValue().get(0).get("content");
+        String context = prompt.substring(prompt.indexOf("User Financial Data:\n") + "User Financial Data:\n".length());
+        assertTrue(PromptBuilder.estimateTokens(context) <= 400, context);
+        assertTrue(context.contains("- Total Income: 1.25M"));
+        assertTrue(context.contains("- Total Expenses: 52.3k"));
+        // Over-limit budgets are admitted first; the rest are summarised
+        assertTrue(context.contains("  * Category 59: 4200/5000 over"));
+        assertTrue(context.contains("more)"));
+        assertFalse(context.contains("1250000.00"));
+    }
+
+    @Test
+    void testFollowUpQuestionIncludesEarlierTurns() {
+        User user = new User();
+        user.setId(1L);
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(transactionService.getTotalsByType(1L)).thenReturn(Map.of(
+                Transaction.TransactionType.INCOME, BigDecimal.ZERO,
+                Transaction.TransactionType.EXPENSE, BigDecimal.ZERO));
+        ArgumentCaptor<List<Map<String, String>>> messages = messagesCaptor();
+        when(llmService.getChatResponse(messages.capture()))
+                .thenReturn(LLMResult.success("An emergency fund covers 3-6 months of expenses."),
+                        LLMResult.success("It is money set aside for surprises."));
+
+        chatService.processMessage("What is an emergency fund?", "test@example.com");
+        chatService.processMessage("Can you explain that more simply?", "test@example.com");
+
+        List<Map<String, String>> followUp = messages.getAllValues().get(1);
+        assertEquals(List.of("system", "user", "assistant", "user"),
+                followUp.stream().map(m -> m.get("role")).toList());
+        assertEquals("What is an emergency fund?", followUp.get(1).get("content"));
+        assertEquals("An emergency fund covers 3-6 months of expenses.", followUp.get(2).get("content"));
+        assertEquals("Can you explain that more simply?", followUp.get(3).get("content"));
+    }
+
+    @Test
+    void streamedReplyIsReflowedLikeAWholeReply() {
+        User user = new User();
+        user.setId(1L);
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(transactionService.getTotalsByType(1L)).thenReturn(Map.of(
+                Transaction.TransactionType.INCOME, BigDecimal.ZERO,
+                Transaction.TransactionType.EXPENSE, BigDecimal.ZERO));
+        List<String> tokens = List.of("  📊 Over", "view: up. \uD83D", "\uDCA1 Tips:", " • cook ", "\t• gym  ");
+        when(llmStreamingService.streamChatResponse(anyList(), any())).thenAnswer(invocation -> {
+            Consumer<String> onToken = invocation.getArgument(1);
+            tokens.forEach(onToken);
+            return CompletableFuture.completedFuture(null);
+        });
+
+        List<String> chunks = new ArrayList<>();
+        chatService.streamMessage("Hello AI", "test@example.com", chunks::add).join();
+
+        assertEquals(AiResponseNormalizer.normalize(String.join("", tokens)), String.join("", chunks));
+        assertEquals("📊 Overview: up.\n💡 Tips:\n• cook\n• gym", String.join("", chunks));
+    }
+
+    @Test
+    void streamFallbackRunsOnTheTaskExecutor() {
+        User user = new User();
+        user.setId(1L);
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(transactionService.getTotalsByType(1L)).thenReturn(Map.of(
+                Transaction.TransactionType.INCOME, BigDecimal.ZERO,
+                Transaction.TransactionType.EXPENSE, BigDecimal.ZERO));
+        when(llmStreamingService.streamChatResponse(anyList(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("API Key is missing")));
+        List<Thread> ranOn = new ArrayList<>();
+        ChatService service = new ChatService(transactionService, budgetService, userRepository, llmService,
+                newResponseCache(), llmStreamingService, task -> {
+                    Thread worker = new Thread(task);
+                    ranOn.add(worker);
+                    worker.start();
+                }, Runnable::run, newContextCache(), newConversationMemory(), 400);
+
+        List<String> chunks = new ArrayList<>();
+        service.streamMessage("Hello AI", "test@example.com", chunks::add).join();
+
+        assertEquals(1, ranOn.size());
+        assertEquals(List.of("I'm having trouble connecting to my brain right now. Please check your API key."),
+                chunks);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<Map<String, String>>> messagesCaptor() {
+        return ArgumentCaptor.forClass((Class<List<Map<String, String>>>) (Class<?>) List.class);
+    }
+
+    private static ConversationMemory newConversationMemory() {
+        return new ConversationMemory(null, new SimpleMeterRegistry(), 8, 100, 1000, 600, 150, false,
+                Duration.ofDays(30));
+    }
+
+    private LLMResponseCache newResponseCache() {
+        return new LLMResponseCache(llmService, new SimpleMeterRegistry(), "test-model", 100,
+                Duration.ofMinutes(30), Duration.ofHours(24));
+    }
+
+    private static FinancialContextCache newContextCache() {
+        return new FinancialContextCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+    }
 }
@@ -0,0 +1,115 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.entity.ChatTurn;
+import com.budgetwise.repository.ChatTurnRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConversationMemoryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void replaysRecentTurnsOldestFirst() {
+        ConversationMemory memory = memory(8, 100, 600, 150);
+        memory.record(1L, "q1", "a1");
+        memory.record(1L, "q2", "a2");
+
+        List<Map<String, String>> messages = memory.messages(1L, "system", "q3");
+
+        assertEquals(List.of("system", "q1", "a1", "q2", "a2", "q3"), contents(messages));
+        assertEquals(List.of("system", "user", "assistant", "user", "assistant", "user"),
+                messages.stream().map(m -> m.get("role")).toList());
+    }
+
+    @Test
+    void summarisesTurnsPushedOutOfTheRing() {
+        ConversationMemory memory = memory(2, 100, 600, 150);
+        for (int i = 1; i <= 4; i++) {
+            memory.record(1L, "question " + i, "answer " + i);
+        }
+
+        List<Map<String, String>> messages = memory.messages(1L, "system", "next");
+
+        assertEquals("system\n\nEarlier in this conversation:\n"
+                + "- Q: question 1 A: answer 1\n"
+                + "- Q: question 2 A: answer 2", messages.get(0).get("content"));
+        assertEquals(List.of("question 3", "answer 3", "question 4", "answer 4", "next"),
+                contents(messages).subList(1, 6));
+    }
+
+    @Test
+    void historyAndSummaryStayWithinTheirBudgets() {
+        ConversationMemory memory = memory(8, 100, 200, 120);
+        for (int i = 0; i < 20; i++) {
+            memory.record(1L, "Question number " + i + " about my grocery spending this month",
+                    "Answer " + i + ": ".concat("you could save by planning meals and buying in bulk. ".repeat(3)));
+        }
+
+        List<Map<String, String>> messages = memory.messages(1L, "system", "next");
+
+        List<Map<String, String>> history = messages.subList(1, messages.size() - 1);
+        assertFalse(history.isEmpty());
+        assertTrue(LLMCallMetrics.promptTokens(history) <= 200, history.toString());
+        String system = messages.get(0).get("content");
+        String summary = system.substring(system.indexOf("Earlier in this conversation:\n")
+                + "Earlier in this conversation:\n".length());
+        assertTrue(PromptBuilder.estimateTokens(summary) <= 120, summary);
+        assertTrue(summary.contains("- Q: Question number"), summary);
+        // The newest turn is always the last one replayed
+        assertTrue(history.get(history.size() - 1).get("content").startsWith("Answer 19:"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedConversation() {
+        ConversationMemory memory = memory(8, 2, 600, 150);
+        memory.record(1L, "from user 1", "ok");
+        memory.record(2L, "from user 2", "ok");
+        memory.messages(1L, "system", "touch"); // user 2 is now least recently used
+        memory.record(3L, "from user 3", "ok");
+
+        assertEquals(2, memory.activeUsers());
+        assertEquals(1.0, meterRegistry.get("chat.memory.evictions").counter().count());
+        assertEquals(List.of("system", "from user 1", "ok", "again"),
+                contents(memory.messages(1L, "system", "again")));
+        assertEquals(2, memory.messages(2L, "system", "again").size());
+    }
+
+    @Test
+    void reloadsAndPersistsTurnsWhenEnabled() {
+        ChatTurnRepository repository = mock(ChatTurnRepository.class);
+        when(repository.findRecentByUserId(eq(1L), any())).thenReturn(List.of(
+                new ChatTurn(1L, "second", "reply 2"),
+                new ChatTurn(1L, "first", "reply 1")));
+        ConversationMemory memory = new ConversationMemory(repository, meterRegistry, 8, 100, 1000, 600, 150,
+                true, Duration.ofDays(30));
+
+        assertEquals(List.of("system", "first", "reply 1", "second", "reply 2", "third"),
+                contents(memory.messages(1L, "system", "third")));
+
+        memory.record(1L, "third", "reply 3");
+        verify(repository).save(any(ChatTurn.class));
+    }
+
+    private ConversationMemory memory(int maxTurns, int maxUsers, int historyTokens, int summaryTokens) {
+        return new ConversationMemory(null, meterRegistry, maxTurns, maxUsers, 1000, historyTokens,
+                summaryTokens, false, Duration.ofDays(30));
+    }
+
+    private static List<String> contents(List<Map<String, String>> messages) {
+        return messages.stream().map(m -> m.get("content")).toList();
+    }
+}
@@ -0,0 +1,214 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.entity.EmailOutbox;
+import com.budgetwise.repository.EmailOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Queues OTP emails through EmailService in real transactions and delivers
+ * them to a GreenMail SMTP server.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ EmailService.class, OtpEmailTemplates.class, EmailOutboxDispatcher.class,
+        EmailOutboxDispatcherTest.MailConfig.class })
+public class EmailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private EmailOutboxDispatcher dispatcher;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @TestConfiguration
+    static class MailConfig {
+
+        @Bean
+        JavaMailSenderImpl mailSender() {
+            JavaMailSenderImpl sender = new JavaMailSenderImpl();
+            sender.setHost("localhost");
+            sender.setPort(ServerSetupTest.SMTP.getPort());
+            return sender;
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        /**
+         * Drains on a thread of its own, as in production (an AFTER_COMMIT
+         * listener's thread still has the finished transaction bound), but
+         * waits for it so tests can check the result right away.
+         */
+        @Bean
+        Executor mailExecutor() {
+            return command -> {
+                Thread drain = new Thread(command, "Mail-Dispatcher-test");
+                drain.start();
+                try {
+                    drain.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        outboxRepository.deleteAll();
+        dispatcher.closeTransport();
+    }
+
+    @Test
+    void messageIsSentOnlyAfterTheQueueingTransactionCommits() throws Exception {
+        long deliveredBefore = meterRegistry.get("mail.outbox.delivery").timer().count();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            emailService.queueOtpEmail("new.user@example.com", "482913", "LOGIN");
+            assertEquals(0, greenMail.getReceivedMessages().length);
+        });
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(1, received.length);
+        assertEquals("BudgetWise - Your Login OTP", received[0].getSubject());
+        assertTrue(received[0].isMimeType("text/html"));
+        assertTrue(GreenMailUtil.getBody(received[0]).contains("482913"));
+        assertEquals(0, outboxRepository.count());
+        assertEquals(deliveredBefore + 1, meterRegistry.get("mail.outbox.delivery").timer().count());
+    }
+
+    @Test
+    void rolledBackTransactionSendsNothing() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            emailService.queueOtpEmail("new.user@example.com", "482913", "SIGNUP");
+            status.setRollbackOnly();
+        });
+
+        dispatcher.drain();
+        assertEquals(0, greenMail.getReceivedMessages().length);
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void burstIsSentInBatchesOverOneConnection() {
+        double connectionsBefore = meterRegistry.get("mail.outbox.connections").counter().count();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < 120; i++) {
+                emailService.queueOtpEmail("user" + i + "@example.com", String.format("%06d", i), "SIGNUP");
+            }
+        });
+
+        assertEquals(120, greenMail.getReceivedMessages().length);
+        assertEquals(0, outboxRepository.count());
+        assertEquals(connectionsBefore + 1, meterRegistry.get("mail.outbox.connections").counter().count());
+    }
+
+    @Test
+    void failedSendIsRetriedWithBackoffAndEventuallyGivenUp() throws Exception {
+        JavaMailSenderImpl unreachable = new JavaMailSenderImpl();
+        unreachable.setHost("localhost");
+        try (ServerSocket socket = new ServerSocket(0)) {
+            unreachable.setPort(socket.getLocalPort()); // nothing listens once the socket is closed
+        }
+        EmailOutboxDispatcher failing = new EmailOutboxDispatcher(outboxRepository, emailService, unreachable,
+                new SimpleMeterRegistry(), Runnable::run, 50, 3, Duration.ofSeconds(5), Duration.ofMinutes(5),
+                Duration.ofMinutes(15), Duration.ofSeconds(60), Duration.ofDays(7), false);
+        EmailOutbox message = outboxRepository.save(new EmailOutbox("late@example.com", "111111", "RESET_PASSWORD"));
+
+        LocalDateTime before = LocalDateTime.now();
+        assertEquals(0, failing.drain());
+        EmailOutbox retried = outboxRepository.findById(message.getId()).orElseThrow();
+        assertEquals(EmailOutbox.Status.PENDING, retried.getStatus());
+        assertEquals(1, retried.getAttempts());
+        assertFalse(retried.getNextAttemptAt().isBefore(before.plusSeconds(5)));
+        assertNotNull(retried.getLastError());
+        // Not due yet, so nothing is attempted
+        assertEquals(0, failing.drain());
+        assertEquals(1, outboxRepository.findById(message.getId()).orElseThrow().getAttempts());
+
+        for (int attempt = 2; attempt <= 3; attempt++) {
+            makeDue(message.getId());
+            failing.drain();
+        }
+        EmailOutbox failed = outboxRepository.findById(message.getId()).orElseThrow();
+        assertEquals(EmailOutbox.Status.FAILED, failed.getStatus());
+        assertEquals(3, failed.getAttempts());
+
+        // A failed message is not picked up again, even by a working dispatcher
+        assertEquals(0, dispatcher.drain());
+        assertEquals(0, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    void retryReachesTheServerOnceItIsBack() {
+        EmailOutbox message = new EmailOutbox("later@example.com", "222222", "LOGIN");
+        message.setAttempts(2);
+        message.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outboxRepository.save(message);
+
+        assertEquals(1, dispatcher.drain());
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void backoffDoublesUpToTheCap() {
+        assertEquals(List.of(Duration.ofSeconds(5), Duration.ofSeconds(10), Duration.ofSeconds(20),
+                Duration.ofMinutes(5)), List.of(dispatcher.backoff(1), dispatcher.backoff(2), dispatcher.backoff(3),
+                        dispatcher.backoff(12)));
+    }
+
+    private void makeDue(Long id) {
+        EmailOutbox message = outboxRepository.findById(id).orElseThrow();
+        message.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outboxRepository.save(message);
+    }
+}
@@ -0,0 +1,127 @@
+package com.budgetwise.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local OpenAI-compatible chat completions endpoint for gateway tests.
+ * Responses are scripted in order; once the script runs out every request
+ * gets the default (a 200 completion of "ok").
+ */
+class FakeOpenAiServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final Queue<Reply> script = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final List<String> requestBodies = new CopyOnWriteArrayList<>();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+
+    FakeOpenAiServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/v1/chat/completions", this::handle);
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions";
+    }
+
+    FakeOpenAiServer enqueue(Reply reply) {
+        script.add(reply);
+        return this;
+    }
+
+    int hits() {
+        return hits.get();
+    }
+
+    List<String> requestBodies() {
+        return requestBodies;
+    }
+
+    List<String> authorizations() {
+        return authorizations;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        hits.incrementAndGet();
+        try (InputStream in = exchange.getRequestBody()) {
+            requestBodies.add(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+
+        Reply reply = script.poll();
+        if (reply == null) {
+            reply = Reply.completion("ok");
+        }
+        if (!reply.delay.isZero()) {
+            try {
+                Thread.sleep(reply.delay.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (reply.retryAfterSeconds != null) {
+            exchange.getResponseHeaders().add("Retry-After", reply.retryAfterSeconds);
+        }
+        byte[] body = reply.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        try {
+            exchange.sendResponseHeaders(reply.status, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (IOException e) {
+            // The client gave up (read timeout) before the delayed reply was written
+        } finally {
+            exchange.close();
+        }
+    }
+
+    static final class Reply {
+        private final int status;
+        private final String body;
+        private final Duration delay;
+        private final String retryAfterSeconds;
+
+        private Reply(int status, String body, Duration delay, String retryAfterSeconds) {
+            this.status = status;
+            this.body = body;
+            this.delay = delay;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        static Reply completion(String content) {
+            return new Reply(200, "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\""
+                    + content + "\"}}]}", Duration.ZERO, null);
+        }
+
+        static Reply status(int status) {
+            return new Reply(status, "{\"error\":{\"message\":\"HTTP " + status + "\"}}", Duration.ZERO, null);
+        }
+
+        Reply after(Duration delay) {
+            return new Reply(status, body, delay, retryAfterSeconds);
+        }
+
+        Reply retryAfter(int seconds) {
+            return new Reply(status, body, delay, String.valueOf(seconds));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.budgetwise.service;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FinancialContextCacheTest {
+
+    private SimpleMeterRegistry registry;
+    private FinancialContextCache cache;
+    private final AtomicInteger builds = new AtomicInteger();
+    private final AtomicLong nanos = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        Ticker ticker = nanos::get;
+        cache = new FinancialContextCache(registry, 100, Duration.ofMinutes(10), ticker);
+    }
+
+    @Test
+    void servesSnapshotUntilUserIsInvalidated() {
+        assertEquals("context-1", cache.get(1L, this::build));
+        double firstBuildMillis = registry.get("chat.context.build").timer().totalTime(TimeUnit.MILLISECONDS);
+        assertEquals("context-1", cache.get(1L, this::build));
+        assertEquals(1, builds.get());
+        // The hit saved exactly the time the snapshot took to build
+        assertEquals(firstBuildMillis, registry.get("chat.context.db.saved").counter().count(), 1e-9);
+
+        cache.invalidate(1L);
+        assertEquals("context-2", cache.get(1L, this::build));
+        assertEquals(2, builds.get());
+
+        assertEquals(1.0, registry.get("chat.context.lookups").tag("result", "hit").counter().count());
+        assertEquals(2.0, registry.get("chat.context.lookups").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void invalidationIsPerUserUnlessShared() {
+        cache.get(1L, this::build);
+        cache.get(2L, this::build);
+
+        cache.invalidate(1L);
+        cache.get(1L, this::build);
+        cache.get(2L, this::build);
+        assertEquals(3, builds.get());
+
+        cache.invalidateAll();
+        cache.get(2L, this::build);
+        assertEquals(4, builds.get());
+    }
+
+    @Test
+    void rebuildThatRacedAWriteIsNotServedAfterwards() {
+        // The write lands while the snapshot is being built from pre-write data
+        cache.get(1L, () -> {
+            cache.invalidate(1L);
+            return "stale";
+        });
+
+        assertEquals("context-1", cache.get(1L, this::build));
+    }
+
+    @Test
+    void versionsOfIdleUsersAreDropped() {
+        for (long userId = 1; userId <= 500; userId++) {
+            cache.invalidate(userId);
+        }
+        cache.get(7L, this::build);
+        assertEquals(500, cache.trackedUsers());
+
+        // Past the snapshot ttl the guarded snapshots are gone; versions follow at twice the ttl
+        nanos.addAndGet(Duration.ofMinutes(15).toNanos());
+        assertEquals(500, cache.trackedUsers());
+        nanos.addAndGet(Duration.ofMinutes(6).toNanos());
+        assertEquals(0, cache.trackedUsers());
+        assertEquals("context-2", cache.get(7L, this::build));
+    }
+
+    private String build() {
+        return "context-" + builds.incrementAndGet();
+    }
+}
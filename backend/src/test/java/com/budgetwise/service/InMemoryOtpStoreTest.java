@@ -0,0 +1,151 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.entity.OtpToken.OtpPurpose;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InMemoryOtpStoreTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-03-01T10:00:00Z"));
+    private final InMemoryOtpStore store = new InMemoryOtpStore(new SimpleMeterRegistry(), 3, Duration.ofMinutes(15),
+            clock);
+
+    @Test
+    void verifiesTheCodeOnceAndKeepsItVerifiedForTheTtl() {
+        store.issue("a@example.com", OtpPurpose.RESET_PASSWORD, "123456", in(Duration.ofMinutes(15)));
+
+        assertFalse(store.verify("a@example.com", OtpPurpose.LOGIN, "123456"));
+        assertFalse(store.isVerified("a@example.com", OtpPurpose.RESET_PASSWORD));
+        clock.advance(Duration.ofMinutes(14));
+        assertTrue(store.verify("a@example.com", OtpPurpose.RESET_PASSWORD, "123456"));
+        assertFalse(store.verify("a@example.com", OtpPurpose.RESET_PASSWORD, "123456"));
+        assertTrue(store.isVerified("a@example.com", OtpPurpose.RESET_PASSWORD));
+
+        // Verified 14 minutes into the code's life, so it stays verified past the code's own expiry
+        clock.advance(Duration.ofMinutes(2));
+        assertTrue(store.isVerified("a@example.com", OtpPurpose.RESET_PASSWORD));
+        clock.advance(Duration.ofMinutes(13));
+        assertFalse(store.isVerified("a@example.com", OtpPurpose.RESET_PASSWORD));
+
+        store.issue("a@example.com", OtpPurpose.RESET_PASSWORD, "654321", in(Duration.ofMinutes(15)));
+        store.remove("a@example.com", OtpPurpose.RESET_PASSWORD);
+        assertFalse(store.verify("a@example.com", OtpPurpose.RESET_PASSWORD, "654321"));
+    }
+
+    @Test
+    void rejectsExpiredAndReplacedCodes() {
+        store.issue("a@example.com", OtpPurpose.LOGIN, "111111", in(Duration.ofMinutes(5)));
+        store.issue("a@example.com", OtpPurpose.LOGIN, "222222", in(Duration.ofMinutes(5)));
+
+        assertFalse(store.verify("a@example.com", OtpPurpose.LOGIN, "111111"));
+        clock.advance(Duration.ofMinutes(5));
+        assertFalse(store.verify("a@example.com", OtpPurpose.LOGIN, "222222"));
+    }
+
+    @Test
+    void discardsTheCodeAfterMaxWrongAttempts() {
+        store.issue("a@example.com", OtpPurpose.LOGIN, "123456", in(Duration.ofMinutes(5)));
+
+        assertFalse(store.verify("a@example.com", OtpPurpose.LOGIN, "000000"));
+        assertFalse(store.verify("a@example.com", OtpPurpose.LOGIN, null));
+        assertTrue(store.verify("a@example.com", OtpPurpose.LOGIN, "123456"));
+
+        store.issue("b@example.com", OtpPurpose.LOGIN, "123456", in(Duration.ofMinutes(5)));
+        for (int i = 0; i < 3; i++) {
+            assertFalse(store.verify("b@example.com", OtpPurpose.LOGIN, "99999" + i));
+        }
+        assertFalse(store.verify("b@example.com", OtpPurpose.LOGIN, "123456"));
+        assertEquals(1, store.size());
+    }
+
+    /**
+     * Codes with expiries spread over hours (so across all three wheel
+     * levels), a tenth of them reissued part-way; after every tick exactly the
+     * codes whose expiry has passed are gone.
+     */
+    @Test
+    void timingWheelRemovesEachCodeWhenItExpires() {
+        Random random = new Random(42);
+        int codes = 5_000;
+        long[] expiresAt = new long[codes];
+        long start = clock.millis();
+        for (int i = 0; i < codes; i++) {
+            long ttl = 1_000 + random.nextInt(3 * 3600) * 1_000L + random.nextInt(1_000);
+            expiresAt[i] = start + ttl;
+            store.issue("user" + i + "@example.com", OtpPurpose.SIGNUP, "123456", at(expiresAt[i]));
+        }
+        for (long now = start; now <= start + 4 * 3600_000L; now += 7_000) {
+            clock.set(now);
+            if (now == start + 600_000) {
+                // Reissue every tenth code for two more hours
+                for (int i = 0; i < codes; i += 10) {
+                    if (expiresAt[i] > now) {
+                        expiresAt[i] = now + 7_200_000;
+                        store.issue("user" + i + "@example.com", OtpPurpose.SIGNUP, "123456", at(expiresAt[i]));
+                    }
+                }
+            }
+            store.expire();
+
+            long live = 0;
+            for (long expiry : expiresAt) {
+                if (expiry > now) {
+                    live++;
+                }
+            }
+            assertEquals(live, store.size(), "at +" + (now - start) / 1000 + "s");
+        }
+        assertEquals(0, store.size());
+    }
+
+    private LocalDateTime in(Duration ttl) {
+        return LocalDateTime.now(clock).plus(ttl);
+    }
+
+    private LocalDateTime at(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), clock.getZone());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        void set(long epochMillis) {
+            now = Instant.ofEpochMilli(epochMillis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.dto.ActiveUser;
+import com.budgetwise.model.dto.InsightsSnapshot;
+import com.budgetwise.model.entity.User;
+import com.budgetwise.model.entity.UserInsights;
+import com.budgetwise.repository.UserInsightsRepository;
+import com.budgetwise.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class InsightsServiceTest {
+
+    private static final String INSIGHTS = "[{\"type\":\"Positive Trend\",\"title\":\"Saving well\"}]";
+
+    @Mock
+    private ChatService chatService;
+
+    @Mock
+    private LLMService llmService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserInsightsRepository insightsRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Map<Long, UserInsights> table = new HashMap<>();
+    private final Map<Long, String> contexts = new HashMap<>();
+    private final Queue<Runnable> queued = new ArrayDeque<>();
+
+    @BeforeEach
+    void setUp() {
+        when(insightsRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<Long>getArgument(0))));
+        when(insightsRepository.save(any(UserInsights.class))).thenAnswer(invocation -> {
+            UserInsights row = invocation.getArgument(0);
+            table.put(row.getUserId(), row);
+            return row;
+        });
+        when(chatService.financialContext(anyLong(), anyString()))
+                .thenAnswer(invocation -> contexts.get(invocation.<Long>getArgument(0)));
+        for (long id = 1; id <= 3; id++) {
+            User user = new User();
+            user.setId(id);
+            user.setEmail("user" + id + "@example.com");
+            when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+            contexts.put(id, "- Total Income: 5000");
+        }
+    }
+
+    @Test
+    void firstReadWaitsForTheModelAndStoresTheResult() {
+        InsightsService service = service(Runnable::run, 30);
+        when(llmService.getChatResponse(anyString(), anyString()))
+                .thenReturn(LLMResult.success("Here you go: " + INSIGHTS));
+
+        InsightsSnapshot first = service.getInsights("user1@example.com");
+        InsightsSnapshot second = service.getInsights("user1@example.com");
+
+        assertEquals(INSIGHTS, first.getInsights());
+        assertNotNull(first.getGeneratedAt());
+        assertFalse(second.isStale());
+        assertEquals(first.getGeneratedAt(), second.getGeneratedAt());
+        verify(llmService, times(1)).getChatResponse(anyString(), anyString());
+    }
+
+    @Test
+    void changedDataIsServedStaleWhileARefreshRuns() {
+        InsightsService service = service(queued::add, 30);
+        store(1L, "old insights", "- Total Income: 5000");
+        contexts.put(1L, "- Total Income: 9000");
+        when(llmService.getChatResponse(anyString(), anyString())).thenReturn(LLMResult.success(INSIGHTS));
+
+        InsightsSnapshot stale = service.getInsights("user1@example.com");
+
+        assertEquals("old insights", stale.getInsights());
+        assertTrue(stale.isStale());
+        verify(llmService, never()).getChatResponse(anyString(), anyString());
+        assertEquals(1, queued.size());
+
+        queued.remove().run();
+        InsightsSnapshot fresh = service.getInsights("user1@example.com");
+        assertEquals(INSIGHTS, fresh.getInsights());
+        assertFalse(fresh.isStale());
+    }
+
+    @Test
+    void concurrentRefreshesShareOneModelCall() {
+        InsightsService service = service(queued::add, 30);
+        when(llmService.getChatResponse(anyString(), anyString())).thenReturn(LLMResult.success(INSIGHTS));
+
+        CompletableFuture<?> first = service.refresh(1L, "user1@example.com", true, false);
+        CompletableFuture<?> second = service.refresh(1L, "user1@example.com", true, false);
+        assertSame(first, second);
+        assertEquals(1, queued.size());
+
+        queued.remove().run();
+        assertTrue(first.isDone());
+        verify(llmService, times(1)).getChatResponse(anyString(), anyString());
+        // Once finished, the next refresh starts a new call
+        assertFalse(service.refresh(1L, "user1@example.com", true, false).isDone());
+    }
+
+    @Test
+    void firstReadAndManualRefreshDoNotQueueBehindBackgroundWork() {
+        InsightsService service = service(queued::add, 30);
+        when(llmService.getChatResponse(anyString(), anyString())).thenReturn(LLMResult.success(INSIGHTS));
+        service.refresh(2L, "user2@example.com", false, true);
+
+        assertEquals(INSIGHTS, service.getInsights("user1@example.com").getInsights());
+        assertEquals(INSIGHTS, service.refreshNow("user3@example.com").getInsights());
+        assertEquals(1, queued.size());
+    }
+
+    @Test
+    void manualRefreshRegeneratesAfterARunningUnforcedRefresh() throws Exception {
+        InsightsService service = service(queued::add, 30);
+        store(1L, "old insights", "- Total Income: 5000");
+        when(llmService.getChatResponse(anyString(), anyString())).thenReturn(LLMResult.success(INSIGHTS));
+        service.refresh(1L, "user1@example.com", false, true);
+
+        CompletableFuture<InsightsSnapshot> manual = new CompletableFuture<>();
+        Thread request = new Thread(() -> manual.complete(service.refreshNow("user1@example.com")));
+        request.start();
+        while (request.getState() != Thread.State.WAITING) {
+            Thread.sleep(5);
+        }
+        // The running refresh finds the data unchanged and skips the model
+        queued.remove().run();
+        request.join(5_000);
+
+        assertEquals(INSIGHTS, manual.getNow(null).getInsights());
+        assertEquals(1.0, meterRegistry.get("insights.refresh").tag("result", "unchanged").counter().count());
+        verify(llmService, times(1)).getChatResponse(anyString(), anyString());
+    }
+
+    @Test
+    void failedRefreshKeepsStoredInsights() {
+        InsightsService service = service(Runnable::run, 30);
+        store(1L, "old insights", "- Total Income: 5000");
+        when(llmService.getChatResponse(anyString(), anyString()))
+                .thenReturn(LLMResult.failure(LLMResult.Status.TIMEOUT, "timed out"));
+
+        InsightsSnapshot snapshot = service.refreshNow("user1@example.com");
+
+        assertEquals("old insights", snapshot.getInsights());
+        assertEquals(sha256("- Total Income: 5000"), table.get(1L).getContextHash());
+    }
+
+    @Test
+    void firstReadFallsBackWhenTheModelFails() {
+        InsightsService service = service(Runnable::run, 30);
+        when(llmService.getChatResponse(anyString(), anyString())).thenReturn(LLMResult.success("no json here"));
+
+        InsightsSnapshot snapshot = service.getInsights("user1@example.com");
+
+        assertEquals(InsightsService.FORMAT_ERROR, snapshot.getInsights());
+        assertNull(snapshot.getGeneratedAt());
+        assertNull(table.get(1L).getInsights());
+    }
+
+    @Test
+    void precomputeSkipsUnchangedUsersAndRespectsTheRateLimit() {
+        InsightsService service = service(Runnable::run, 1);
+        when(llmService.getChatResponse(anyString(), anyString())).thenReturn(LLMResult.success(INSIGHTS));
+        // User 1 is current; users 2 and 3 changed since their insights were generated
+        service.refresh(1L, "user1@example.com", true, false).join();
+        store(2L, "old", "stale hash");
+        store(3L, "old", "stale hash");
+        List<ActiveUser> active = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            active.add(activeUser(id));
+        }
+        when(insightsRepository.findRequestedSince(any())).thenReturn(active);
+
+        service.precomputeActive();
+
+        // One call per minute with no waiting: one of the two changed users is left for the next run
+        assertEquals(1.0, meterRegistry.get("insights.refresh").tag("result", "unchanged").counter().count());
+        assertEquals(2.0, meterRegistry.get("insights.refresh").tag("result", "generated").counter().count());
+        assertEquals(1.0, meterRegistry.get("insights.refresh").tag("result", "rate_limited").counter().count());
+        assertEquals(1, table.values().stream().filter(row -> "old".equals(row.getInsights())).count());
+    }
+
+    private InsightsService service(Executor executor, int callsPerMinute) {
+        return new InsightsService(chatService, llmService, userRepository, insightsRepository, meterRegistry,
+                executor, Duration.ofDays(7), callsPerMinute, Duration.ZERO);
+    }
+
+    private void store(Long userId, String insights, String context) {
+        UserInsights row = new UserInsights(userId, LocalDateTime.now());
+        row.setInsights(insights);
+        row.setContextHash(sha256(context));
+        row.setGeneratedAt(LocalDateTime.now().minusHours(2));
+        table.put(userId, row);
+    }
+
+    private static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ActiveUser activeUser(long id) {
+        return new ActiveUser() {
+            @Override
+            public Long getUserId() {
+                return id;
+            }
+
+            @Override
+            public String getEmail() {
+                return "user" + id + "@example.com";
+            }
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package com.budgetwise.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IntentRouterTest {
+
+    private final IntentRouter router = new IntentRouter();
+
+    @Test
+    void routesLabeledCorpus() throws IOException {
+        List<String[]> corpus = loadCorpus();
+        List<String> misrouted = new ArrayList<>();
+        for (String[] example : corpus) {
+            ChatIntent actual = router.classify(example[1]);
+            if (actual != ChatIntent.valueOf(example[0])) {
+                misrouted.add(example[0] + " -> " + actual + ": " + example[1]);
+            }
+        }
+        assertTrue(corpus.size() >= 50);
+        assertTrue(misrouted.isEmpty(), "misrouted: " + misrouted);
+    }
+
+    @Test
+    void everyLegacyFinancialKeywordStillLeavesCasual() {
+        // The keywords of the old isFinancialQuery, which sent a message to the card
+        String[] legacy = { "spend", "budget", "income", "expense", "saving", "analys", "financ", "money",
+                "balance", "transaction", "invest", "summary", "breakdown", "report", "how much", "overview",
+                "tip", "suggestion", "advice", "₹", "rs.", "rupee" };
+        for (String keyword : legacy) {
+            assertNotEquals(ChatIntent.CASUAL, router.classify("tell me about " + keyword + " please"), keyword);
+        }
+    }
+
+    @Test
+    void keywordsMustStartAWord() {
+        assertEquals(ChatIntent.CASUAL, router.classify("I have multiple questions"));
+        assertEquals(ChatIntent.ADVICE, router.classify("TIPS please"));
+        assertEquals(ChatIntent.BUDGET_ALERTS, router.classify("overspending again?"));
+    }
+
+    @Test
+    void emptyMessageIsCasual() {
+        assertEquals(ChatIntent.CASUAL, router.classify(""));
+        assertEquals(ChatIntent.CASUAL, router.classify(null));
+    }
+
+    static List<String[]> loadCorpus() throws IOException {
+        List<String[]> corpus = new ArrayList<>();
+        try (InputStream in = IntentRouterTest.class.getResourceAsStream("/chat-intents.tsv");
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    corpus.add(line.split("\t", 2));
+                }
+            }
+        }
+        return corpus;
+    }
+}
@@ -0,0 +1,155 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.entity.OtpToken;
+import com.budgetwise.model.entity.OtpToken.OtpPurpose;
+import com.budgetwise.repository.OtpTokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs against the Flyway schema on H2, with real commits, since wrong
+ * guesses are counted in a transaction of their own.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ JpaOtpStore.class, JpaOtpStoreTest.MetricsConfig.class })
+public class JpaOtpStoreTest {
+
+    @Autowired
+    private JpaOtpStore otpStore;
+
+    @Autowired
+    private OtpTokenRepository otpTokenRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TestConfiguration
+    static class MetricsConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        otpTokenRepository.deleteAll();
+    }
+
+    @Test
+    void issueReplacesTheEarlierCodeAndVerifyMarksItOnce() {
+        otpStore.issue("a@example.com", OtpPurpose.RESET_PASSWORD, "111111", LocalDateTime.now().plusMinutes(15));
+        otpStore.issue("a@example.com", OtpPurpose.RESET_PASSWORD, "222222", LocalDateTime.now().plusMinutes(15));
+
+        assertEquals(1, otpTokenRepository.count());
+        assertFalse(otpStore.verify("a@example.com", OtpPurpose.RESET_PASSWORD, "111111"));
+        assertFalse(otpStore.isVerified("a@example.com", OtpPurpose.RESET_PASSWORD));
+        assertTrue(otpStore.verify("a@example.com", OtpPurpose.RESET_PASSWORD, "222222"));
+        assertFalse(otpStore.verify("a@example.com", OtpPurpose.RESET_PASSWORD, "222222"));
+        assertTrue(otpStore.isVerified("a@example.com", OtpPurpose.RESET_PASSWORD));
+
+        otpStore.remove("a@example.com", OtpPurpose.RESET_PASSWORD);
+        assertFalse(otpStore.isVerified("a@example.com", OtpPurpose.RESET_PASSWORD));
+    }
+
+    @Test
+    void expiredCodeIsRejected() {
+        otpStore.issue("a@example.com", OtpPurpose.LOGIN, "123456", LocalDateTime.now().minusSeconds(1));
+
+        assertFalse(otpStore.verify("a@example.com", OtpPurpose.LOGIN, "123456"));
+    }
+
+    @Test
+    void wrongGuessesAreCountedEvenWhenTheCallerRollsBack() {
+        otpStore.issue("a@example.com", OtpPurpose.LOGIN, "123456", LocalDateTime.now().plusMinutes(15));
+        TransactionTemplate caller = new TransactionTemplate(transactionManager);
+
+        for (int i = 0; i < 4; i++) {
+            caller.executeWithoutResult(status -> {
+                assertFalse(otpStore.verify("a@example.com", OtpPurpose.LOGIN, "000000"));
+                status.setRollbackOnly(); // as AuthService does by throwing
+            });
+        }
+        assertEquals(4, otpTokenRepository.findAll().get(0).getAttempts());
+
+        caller.executeWithoutResult(status -> otpStore.verify("a@example.com", OtpPurpose.LOGIN, "000000"));
+        assertEquals(0, otpTokenRepository.count());
+        assertFalse(otpStore.verify("a@example.com", OtpPurpose.LOGIN, "123456"));
+    }
+
+    @Test
+    void onlyOneConcurrentVerificationSucceeds() throws Exception {
+        otpStore.issue("a@example.com", OtpPurpose.LOGIN, "123456", LocalDateTime.now().plusMinutes(15));
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Callable<Boolean> attempt = () -> {
+                    start.await();
+                    return otpStore.verify("a@example.com", OtpPurpose.LOGIN, "123456");
+                };
+                results.add(pool.submit(attempt));
+            }
+            start.countDown();
+            int verified = 0;
+            for (Future<Boolean> result : results) {
+                verified += result.get() ? 1 : 0;
+            }
+            assertEquals(1, verified);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void purgeDeletesOnlyExpiredRows() {
+        String insert = "INSERT INTO otp_tokens (email, otp, expiry_time, purpose, verified) VALUES (?, '123456', ?, ?, ?)";
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(insert, "old@example.com", Timestamp.valueOf(now.minusDays(2)), "SIGNUP", false);
+        jdbcTemplate.update(insert, "used@example.com", Timestamp.valueOf(now.minusMinutes(1)), "RESET_PASSWORD", true);
+        jdbcTemplate.update(insert, "live@example.com", Timestamp.valueOf(now.plusMinutes(5)), "LOGIN", false);
+
+        otpStore.purgeExpired();
+
+        List<OtpToken> left = otpTokenRepository.findAll();
+        assertEquals(1, left.size());
+        assertEquals("live@example.com", left.get(0).getEmail());
+    }
+}
@@ -0,0 +1,196 @@
+package com.budgetwise.service;
+
+import com.budgetwise.config.LLMGatewayProperties;
+import com.budgetwise.service.FakeOpenAiServer.Reply;
+import com.budgetwise.util.CircuitBreaker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs LLMGateway against a local fake that injects latency and failures.
+ */
+public class LLMGatewayTest {
+
+    private static final List<Map<String, String>> MESSAGES = List.of(
+            Map.of("role", "system", "content", "You are a finance assistant."),
+            Map.of("role", "user", "content", "hello"));
+
+    private FakeOpenAiServer server;
+    private LLMGatewayProperties properties;
+    private LLMGateway gateway;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeOpenAiServer();
+        properties = new LLMGatewayProperties();
+        properties.setConnectTimeout(Duration.ofSeconds(1));
+        properties.setReadTimeout(Duration.ofMillis(300));
+        properties.setMaxAttempts(3);
+        properties.setBackoffInitial(Duration.ofMillis(10));
+        properties.setBackoffMax(Duration.ofMillis(50));
+        properties.setBreakerFailureThreshold(2);
+        properties.setBreakerOpenDuration(Duration.ofMillis(300));
+        properties.setBulkheadWait(Duration.ofMillis(20));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (gateway != null) {
+            gateway.close();
+        }
+        server.close();
+    }
+
+    @Test
+    void returnsCompletionAndSendsModelAndBearerToken() {
+        server.enqueue(Reply.completion("Spend less on takeout."));
+
+        LLMResult result = gateway().chat(MESSAGES);
+
+        assertTrue(result.isSuccess());
+        assertEquals("Spend less on takeout.", result.getText());
+        assertEquals("Bearer test-key", server.authorizations().get(0));
+        assertTrue(server.requestBodies().get(0).contains("\"model\":\"test-model\""));
+        assertTrue(server.requestBodies().get(0).contains("\"content\":\"hello\""));
+    }
+
+    @Test
+    void retriesServerErrorsUntilSuccess() {
+        server.enqueue(Reply.status(503)).enqueue(Reply.status(503)).enqueue(Reply.completion("recovered"));
+
+        LLMResult result = gateway().chat(MESSAGES);
+
+        assertEquals("recovered", result.getText());
+        assertEquals(3, server.hits());
+        assertEquals(CircuitBreaker.State.CLOSED, gateway.getCircuitState());
+    }
+
+    @Test
+    void persistentRateLimitStopsAfterMaxAttempts() {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(Reply.status(429).retryAfter(0));
+        }
+
+        LLMResult result = gateway().chat(MESSAGES);
+
+        assertEquals(LLMResult.Status.RATE_LIMITED, result.getStatus());
+        assertEquals(3, server.hits());
+    }
+
+    @Test
+    void slowUpstreamIsReportedAsTimeout() {
+        properties.setMaxAttempts(1);
+        server.enqueue(Reply.completion("too late").after(Duration.ofSeconds(1)));
+
+        long started = System.nanoTime();
+        LLMResult result = gateway().chat(MESSAGES);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertEquals(LLMResult.Status.TIMEOUT, result.getStatus());
+        assertTrue(elapsedMillis < 900, "read timeout should cut the call short, took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() {
+        server.enqueue(Reply.status(400));
+
+        LLMResult result = gateway().chat(MESSAGES);
+
+        assertEquals(LLMResult.Status.BAD_REQUEST, result.getStatus());
+        assertEquals(1, server.hits());
+        assertEquals(CircuitBreaker.State.CLOSED, gateway.getCircuitState());
+    }
+
+    @Test
+    void openCircuitFailsFastThenClosesAfterSuccessfulTrial() throws InterruptedException {
+        properties.setMaxAttempts(1);
+        server.enqueue(Reply.status(500)).enqueue(Reply.status(500));
+        gateway();
+
+        gateway.chat(MESSAGES);
+        gateway.chat(MESSAGES);
+        assertEquals(CircuitBreaker.State.OPEN, gateway.getCircuitState());
+
+        LLMResult rejected = gateway.chat(MESSAGES);
+        assertEquals(LLMResult.Status.CIRCUIT_OPEN, rejected.getStatus());
+        assertEquals(2, server.hits());
+
+        Thread.sleep(properties.getBreakerOpenDuration().toMillis() + 50);
+        LLMResult trial = gateway.chat(MESSAGES);
+        assertTrue(trial.isSuccess());
+        assertEquals(CircuitBreaker.State.CLOSED, gateway.getCircuitState());
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondTheLimit() throws Exception {
+        properties.setMaxConcurrent(1);
+        server.enqueue(Reply.completion("slow").after(Duration.ofMillis(200)));
+        gateway();
+
+        CompletableFuture<LLMResult> first = CompletableFuture.supplyAsync(() -> gateway.chat(MESSAGES));
+        while (server.hits() == 0) {
+            Thread.sleep(5);
+        }
+        LLMResult second = gateway.chat(MESSAGES);
+
+        assertEquals(LLMResult.Status.BULKHEAD_FULL, second.getStatus());
+        assertEquals("slow", first.get(5, TimeUnit.SECONDS).getText());
+        assertEquals(1, server.hits());
+    }
+
+    @Test
+    void unexpectedErrorsStillReachTheCircuitBreaker() throws InterruptedException {
+        properties.setMaxAttempts(1);
+        // Not a usable URL: the HTTP client throws before any request is sent
+        gateway = new LLMGateway("test-key", "test-model", "http://localhost:99999/v1", properties);
+
+        assertEquals(LLMResult.Status.UPSTREAM_ERROR, gateway.chat(MESSAGES).getStatus());
+        assertEquals(LLMResult.Status.UPSTREAM_ERROR, gateway.chat(MESSAGES).getStatus());
+        assertEquals(CircuitBreaker.State.OPEN, gateway.getCircuitState());
+
+        // The half-open trial fails the same way and must reopen the circuit, not leave it stuck
+        Thread.sleep(properties.getBreakerOpenDuration().toMillis() + 50);
+        assertEquals(LLMResult.Status.UPSTREAM_ERROR, gateway.chat(MESSAGES).getStatus());
+        assertEquals(CircuitBreaker.State.OPEN, gateway.getCircuitState());
+        Thread.sleep(properties.getBreakerOpenDuration().toMillis() + 50);
+        assertEquals(LLMResult.Status.UPSTREAM_ERROR, gateway.chat(MESSAGES).getStatus());
+    }
+
+    @Test
+    void backoffGivesUpTheBulkheadPermit() throws Exception {
+        properties.setMaxConcurrent(1);
+        properties.setBackoffInitial(Duration.ofMillis(300));
+        properties.setBackoffMax(Duration.ofMillis(300));
+        server.enqueue(Reply.status(429).retryAfter(1))
+                .enqueue(Reply.completion("second"))
+                .enqueue(Reply.completion("first"));
+        gateway();
+
+        CompletableFuture<LLMResult> first = CompletableFuture.supplyAsync(() -> gateway.chat(MESSAGES));
+        while (server.hits() == 0) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(50);
+        LLMResult second = gateway.chat(MESSAGES);
+
+        assertEquals("second", second.getText());
+        assertEquals("first", first.get(5, TimeUnit.SECONDS).getText());
+        assertEquals(3, server.hits());
+    }
+
+    private LLMGateway gateway() {
+        gateway = new LLMGateway("test-key", "test-model", server.url(), properties);
+        return gateway;
+    }
+}
@@ -0,0 +1,118 @@
+package com.budgetwise.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class LLMResponseCacheTest {
+
+    @Mock
+    private LLMService llmService;
+
+    private static final LLMResult TIMEOUT = LLMResult.failure(LLMResult.Status.TIMEOUT, "read timed out");
+
+    private final AtomicLong clock = new AtomicLong();
+    private SimpleMeterRegistry registry;
+    private LLMResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new LLMResponseCache(llmService, registry, "test-model", 100,
+                Duration.ofMinutes(30), Duration.ofHours(24), clock::get);
+    }
+
+    @Test
+    void servesRepeatedPromptFromCacheUntilTtl() {
+        when(llmService.getChatResponse("system", "insights")).thenReturn(LLMResult.success("first"), LLMResult.success("second"));
+
+        assertEquals("first", cache.getChatResponse("system", "insights").getText());
+        advance(Duration.ofMinutes(29));
+        assertEquals("first", cache.getChatResponse("system", "insights").getText());
+        advance(Duration.ofMinutes(2));
+        assertEquals("second", cache.getChatResponse("system", "insights").getText());
+
+        verify(llmService, times(2)).getChatResponse("system", "insights");
+        assertEquals(1.0, registry.get("llm.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0 / 3, registry.get("llm.cache.hit.ratio").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void differentContextIsADifferentKey() {
+        when(llmService.getChatResponse("context A", "insights")).thenReturn(LLMResult.success("for A"));
+        when(llmService.getChatResponse("context B", "insights")).thenReturn(LLMResult.success("for B"));
+
+        assertEquals("for A", cache.getChatResponse("context A", "insights").getText());
+        assertEquals("for B", cache.getChatResponse("context B", "insights").getText());
+    }
+
+    @Test
+    void servesStaleEntryWhenUpstreamFails() {
+        when(llmService.getChatResponse("system", "insights"))
+                .thenReturn(LLMResult.success("good"), TIMEOUT, TIMEOUT);
+
+        cache.getChatResponse("system", "insights");
+        advance(Duration.ofHours(1));
+        assertEquals("good", cache.getChatResponse("system", "insights").getText());
+        assertEquals(1.0, registry.get("llm.cache.stale.served").counter().count());
+
+        // Past the stale window there is nothing to fall back on
+        advance(Duration.ofHours(24));
+        assertEquals(LLMResult.Status.TIMEOUT, cache.getChatResponse("system", "insights").getStatus());
+    }
+
+    @Test
+    void concurrentIdenticalMissesShareOneUpstreamCall() throws Exception {
+        CountDownLatch upstreamEntered = new CountDownLatch(1);
+        CountDownLatch releaseUpstream = new CountDownLatch(1);
+        when(llmService.getChatResponse("system", "insights")).thenAnswer(invocation -> {
+            upstreamEntered.countDown();
+            assertTrue(releaseUpstream.await(5, TimeUnit.SECONDS));
+            return LLMResult.success("shared");
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<LLMResult>> results = new ArrayList<>();
+            results.add(pool.submit(() -> cache.getChatResponse("system", "insights")));
+            assertTrue(upstreamEntered.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(pool.submit(() -> cache.getChatResponse("system", "insights")));
+            }
+            // Let the followers reach the in-flight call before it finishes
+            Thread.sleep(100);
+            releaseUpstream.countDown();
+
+            for (Future<LLMResult> result : results) {
+                assertEquals("shared", result.get(5, TimeUnit.SECONDS).getText());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(llmService, times(1)).getChatResponse("system", "insights");
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+}
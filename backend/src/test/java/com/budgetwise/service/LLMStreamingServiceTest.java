@@ -0,0 +1,171 @@
+package com.budgetwise.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs LLMStreamingService against a local HTTP server that writes an
+ * OpenAI-style SSE completion with chunked transfer encoding.
+ */
+public class LLMStreamingServiceTest {
+
+    private HttpServer server;
+    private LLMStreamingService service;
+    private final AtomicReference<String> requestBody = new AtomicReference<>();
+    private final AtomicReference<String> authorization = new AtomicReference<>();
+    private final CountDownLatch releaseStream = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/stream", exchange -> {
+            record(exchange);
+            writeChunks(exchange, 200,
+                    chunk("Hello"), chunk(" there"), "", ": keep-alive", chunk("!"), "data: [DONE]");
+        });
+        server.createContext("/stall", exchange -> {
+            record(exchange);
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            out.write((chunk("partial") + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            await(releaseStream);
+            exchange.close();
+        });
+        server.createContext("/error", exchange -> {
+            record(exchange);
+            byte[] body = "{\"error\":{\"message\":\"rate limited\"}}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(429, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseStream.countDown();
+        if (service != null) {
+            service.shutdown();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void forwardsContentDeltasUntilDone() throws Exception {
+        service = newService("/stream", Duration.ofSeconds(5), 4);
+        List<String> tokens = new CopyOnWriteArrayList<>();
+
+        service.streamChatResponse("system", "hi", tokens::add).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("Hello", " there", "!"), tokens);
+        assertEquals("Bearer test-key", authorization.get());
+        assertTrue(requestBody.get().contains("\"stream\":true"));
+        assertTrue(requestBody.get().contains("\"content\":\"hi\""));
+    }
+
+    @Test
+    void failsWhenStreamGoesQuiet() {
+        service = newService("/stall", Duration.ofMillis(300), 4);
+        List<String> tokens = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<Void> reply = service.streamChatResponse("system", "hi", tokens::add);
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> reply.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertEquals(List.of("partial"), tokens);
+    }
+
+    @Test
+    void surfacesNonSuccessStatus() {
+        service = newService("/error", Duration.ofSeconds(5), 4);
+
+        CompletableFuture<Void> reply = service.streamChatResponse("system", "hi", token -> {
+        });
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> reply.get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause().getMessage().contains("429"));
+    }
+
+    @Test
+    void rejectsStreamsBeyondConcurrencyLimit() throws Exception {
+        service = newService("/stall", Duration.ofSeconds(5), 1);
+        CountDownLatch firstToken = new CountDownLatch(1);
+
+        CompletableFuture<Void> first = service.streamChatResponse("system", "hi", token -> firstToken.countDown());
+        assertTrue(firstToken.await(5, TimeUnit.SECONDS));
+
+        assertThrows(RejectedExecutionException.class,
+                () -> service.streamChatResponse("system", "again", token -> {
+                }));
+
+        // Cancelling the open stream frees its slot
+        first.cancel(true);
+        CompletableFuture<Void> next = service.streamChatResponse("system", "again", token -> {
+        });
+        next.cancel(true);
+    }
+
+    private LLMStreamingService newService(String path, Duration readTimeout, int maxConcurrent) {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + path;
+        return new LLMStreamingService("test-key", "test-model", url, Duration.ofSeconds(2), readTimeout,
+                maxConcurrent, new ObjectMapper(), new LLMCallMetrics(new SimpleMeterRegistry()));
+    }
+
+    private void record(HttpExchange exchange) throws IOException {
+        authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+        requestBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    private static String chunk(String content) {
+        return "data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":\"" + content + "\"}}]}";
+    }
+
+    // Length 0 makes the server use chunked transfer encoding; one flush per line
+    private static void writeChunks(HttpExchange exchange, int status, String... lines) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(status, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (String line : lines) {
+                out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
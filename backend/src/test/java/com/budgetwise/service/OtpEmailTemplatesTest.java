@@ -0,0 +1,54 @@
+package com.budgetwise.service;
+
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OtpEmailTemplatesTest {
+
+    private final OtpEmailTemplates templates = new OtpEmailTemplates();
+
+    @Test
+    void bodyHasTheTitleDescriptionAndCodeForEachPurpose() {
+        String body = templates.forPurpose("SIGNUP").body("123456");
+
+        assertTrue(body.contains("<h2 style=\"color: #333;\">BudgetWise - Verify Your Email for Registration</h2>"));
+        assertTrue(body.contains("Thank you for signing up with BudgetWise!"));
+        assertTrue(body.contains("letter-spacing: 3px;\">123456</div>"));
+        assertFalse(body.contains("\u0000"));
+        assertEquals("BudgetWise - Your Login OTP", templates.forPurpose("LOGIN").subject());
+    }
+
+    @Test
+    void purposeLookupIgnoresCaseAndFallsBackToTheGenericTemplate() {
+        assertSame(templates.forPurpose("LOGIN"), templates.forPurpose("login"));
+        assertSame(templates.forPurpose("RESET"), templates.forPurpose("RESET_PASSWORD"));
+        assertEquals("BudgetWise - Verification Code", templates.forPurpose("SOMETHING_ELSE").subject());
+        assertEquals("BudgetWise - Verification Code", templates.forPurpose(null).subject());
+    }
+
+    @Test
+    void composesASingleHtmlPart() throws Exception {
+        MimeMessage message = templates.compose(new MimeMessage(Session.getInstance(new Properties())),
+                "user@example.com", "654321", "RESET_PASSWORD");
+        message.saveChanges();
+
+        assertTrue(message.isMimeType("text/html"));
+        assertEquals("BudgetWise - Password Reset Request", message.getSubject());
+        assertEquals(new InternetAddress("noreply@budgetwise.com", "BudgetWise"), message.getFrom()[0]);
+        assertEquals("user@example.com", message.getAllRecipients()[0].toString());
+        assertTrue(((String) message.getContent()).contains("654321"));
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        message.writeTo(raw);
+        assertFalse(raw.toString().contains("multipart"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.budgetwise.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PromptBuilderTest {
+
+    @Test
+    void compactsAmounts() {
+        assertEquals("0", PromptBuilder.compact(BigDecimal.ZERO));
+        assertEquals("951", PromptBuilder.compact(new BigDecimal("950.50")));
+        assertEquals("9999", PromptBuilder.compact(new BigDecimal("9999.00")));
+        assertEquals("52.3k", PromptBuilder.compact(new BigDecimal("52345.10")));
+        assertEquals("120k", PromptBuilder.compact(new BigDecimal("120000")));
+        assertEquals("1.25M", PromptBuilder.compact(new BigDecimal("1250000")));
+        assertEquals("-40.1k", PromptBuilder.compact(new BigDecimal("-40100")));
+    }
+
+    @Test
+    void compactMovesToTheNextUnitWhenRoundingCarries() {
+        assertEquals("1M", PromptBuilder.compact(new BigDecimal("999999.99")));
+        assertEquals("1M", PromptBuilder.compact(new BigDecimal("999500")));
+        assertEquals("999k", PromptBuilder.compact(new BigDecimal("999499")));
+        assertEquals("1B", PromptBuilder.compact(new BigDecimal("999999999")));
+        assertEquals("-1M", PromptBuilder.compact(new BigDecimal("-999999.99")));
+        assertEquals("1000B", PromptBuilder.compact(new BigDecimal("999999999999")));
+    }
+
+    @Test
+    void estimatesTokensRoughlyLikeBpe() {
+        assertEquals(0, PromptBuilder.estimateTokens(""));
+        assertEquals(1, PromptBuilder.estimateTokens("food"));
+        assertEquals(4, PromptBuilder.estimateTokens("Total Income"));
+        assertEquals(4, PromptBuilder.estimateTokens("52.3k"));
+        // Raw BigDecimal strings cost several times their compact form
+        assertTrue(PromptBuilder.estimateTokens("1250000.00") > PromptBuilder.estimateTokens("1.25M"));
+    }
+
+    @Test
+    void admitsSectionsByPriorityButKeepsDeclaredOrder() {
+        List<String> transactions = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            transactions.add("  * 2024-05-" + (i % 28 + 1) + " grocery run " + i + ": -" + (100 + i));
+        }
+        PromptBuilder.Prompt prompt = new PromptBuilder(60)
+                .section(2, "- Recent Transactions:", transactions)
+                .section(0, "- Total Income: 52.3k")
+                .section(1, "- Budgets: None set for this month.")
+                .build();
+
+        String text = prompt.getText();
+        assertTrue(prompt.getEstimatedTokens() <= 60, "estimated " + prompt.getEstimatedTokens());
+        assertTrue(text.startsWith("- Recent Transactions:\n  * 2024-05-1 grocery run 0"));
+        assertTrue(text.contains("more)\n- Total Income: 52.3k\n- Budgets: None set"));
+        assertTrue(prompt.getOmittedLines() > 190);
+    }
+
+    @Test
+    void dropsLowPrioritySectionWhenNothingFits() {
+        PromptBuilder.Prompt prompt = new PromptBuilder(14)
+                .section(0, "- Total Income: 52.3k")
+                .section(1, "- Budgets (spent/limit, status):", List.of("  * Food: 4.2k/5k warning"))
+                .build();
+
+        assertEquals("- Total Income: 52.3k\n", prompt.getText());
+        assertFalse(prompt.getText().contains("Budgets"));
+        assertEquals(1, prompt.getOmittedLines());
+    }
+
+    @Test
+    void clipsFreeText() {
+        assertEquals("Dinner with the team", PromptBuilder.clip("  Dinner   with\nthe team ", 40));
+        assertEquals("Monthly subscript…", PromptBuilder.clip("Monthly subscription renewal", 18));
+        assertEquals("…", PromptBuilder.clip("Monthly subscription renewal", 1));
+        assertEquals("", PromptBuilder.clip("Monthly subscription renewal", 0));
+        assertEquals("a", PromptBuilder.clip("a", 1));
+    }
+}
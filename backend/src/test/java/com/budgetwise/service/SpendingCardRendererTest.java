@@ -0,0 +1,92 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.dto.SpendingCard;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpendingCardRendererTest {
+
+    private final SpendingCardRenderer renderer = new SpendingCardRenderer();
+
+    @Test
+    void rendersTheChatCardText() {
+        SpendingCard card = renderer.toCard(new BigDecimal("150000"), new BigDecimal("52345.10"),
+                List.of(entry("Food", "30000"), entry("Transportation", "15000"), entry("Misc", "7345.10")),
+                List.of(budget("Food", "over"), budget("Travel", "under")),
+                List.of("Cook at home", "Use public transport"));
+
+        assertEquals("----------------------------------\n"
+                + "🟢 Financial Health: Excellent\n"
+                + "----------------------------------\n"
+                + "\n"
+                + "💰 Income:   ₹150,000\n"
+                + "💸 Expenses: ₹52,345\n"
+                + "💵 Savings:  ₹97,655  (65%)\n"
+                + "\n"
+                + "📊 Spending Breakdown\n"
+                + "Food            ███████████ 57%\n"
+                + "Transportation  ██████ 29%\n"
+                + "Misc            ███ 14%\n"
+                + "\n"
+                + "⚠️ Alerts\n"
+                + "• Food budget exceeded\n"
+                + "\n"
+                + "🎯 AI Suggestions\n"
+                + "• Cook at home\n"
+                + "• Use public transport\n", renderer.render(card));
+    }
+
+    @Test
+    void emptyCardIsAtRiskWithOneBarMinimum() {
+        SpendingCard card = renderer.toCard(BigDecimal.ZERO, BigDecimal.ZERO, List.of(entry("Food", "0")),
+                List.of(), List.of());
+
+        String text = renderer.render(card);
+        assertEquals("at_risk", card.getHealth());
+        assertEquals(1, card.getCategories().get(0).getBars());
+        assertTrue(text.contains("Food  █ 0%\n"));
+        assertTrue(text.contains("No budget alerts — you're on track!\n"));
+    }
+
+    @Test
+    void structuredFormCarriesTheSameFigures() throws Exception {
+        SpendingCard card = renderer.toCard(new BigDecimal("5000"), new BigDecimal("4500"),
+                List.of(entry("Rent", "4500")), List.of(), List.of("Negotiate rent"));
+
+        JsonNode json = new ObjectMapper().valueToTree(card);
+        assertEquals("at_risk", json.get("health").asText());
+        assertEquals(10, json.get("savingsRate").asInt());
+        assertEquals("Rent", json.get("categories").get(0).get("name").asText());
+        assertEquals(100, json.get("categories").get(0).get("percent").asInt());
+        assertEquals(20, json.get("categories").get(0).get("bars").asInt());
+        assertEquals("Negotiate rent", json.get("suggestions").get(0).asText());
+    }
+
+    @Test
+    void extractsBulletLinesFromModelOutput() {
+        assertEquals(List.of("Cook at home", "Cancel unused subscriptions", "Save 20%"),
+                SpendingCardRenderer.bulletLines("- Cook at home\n\n  • Cancel unused subscriptions  \n* Save 20%\n"));
+        assertEquals(List.of(), SpendingCardRenderer.bulletLines("  \n"));
+    }
+
+    private static Map.Entry<String, BigDecimal> entry(String name, String amount) {
+        return new AbstractMap.SimpleEntry<>(name, new BigDecimal(amount));
+    }
+
+    private static Map<String, Object> budget(String category, String status) {
+        Map<String, Object> budget = new HashMap<>();
+        budget.put("categoryName", category);
+        budget.put("status", status);
+        return budget;
+    }
+}
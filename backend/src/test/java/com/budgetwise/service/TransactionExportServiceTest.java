@@ -0,0 +1,196 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.entity.Transaction;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(TransactionExportService.class)
+public class TransactionExportServiceTest {
+
+    private static final String HEADER = "Date,Description,Category,Type,Amount\n";
+
+    @Autowired
+    private TransactionExportService exportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO categories (name, color) VALUES ('Food', '#FF6B6B'), ('Salary', '#96CEB4')");
+        Long food = jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = 'Food'", Long.class);
+        Long salary = jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = 'Salary'", Long.class);
+        jdbcTemplate.update("INSERT INTO users (email, password, enabled) VALUES ('a@example.com', 'x', TRUE), "
+                + "('b@example.com', 'x', TRUE)");
+        userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'a@example.com'", Long.class);
+        Long otherUser = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'b@example.com'", Long.class);
+        String insert = "INSERT INTO transactions (user_id, category_id, description, amount, type, transaction_date) "
+                + "VALUES (?, ?, ?, ?, ?, ?)";
+        jdbcTemplate.update(insert, userId, food, "Lunch, with \"friends\"", 450.5, "EXPENSE",
+                Timestamp.valueOf(LocalDateTime.of(2024, 3, 2, 13, 0)));
+        jdbcTemplate.update(insert, userId, salary, "March salary", 85000, "INCOME",
+                Timestamp.valueOf(LocalDateTime.of(2024, 3, 1, 9, 0)));
+        jdbcTemplate.update(insert, userId, food, "Cash", 20, "EXPENSE",
+                Timestamp.valueOf(LocalDateTime.of(2024, 2, 10, 9, 0)));
+        jdbcTemplate.update(insert, otherUser, food, "Not mine", 1, "EXPENSE",
+                Timestamp.valueOf(LocalDateTime.of(2024, 3, 3, 9, 0)));
+    }
+
+    @Test
+    void writesTheUsersTransactionsNewestFirst() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.export(userId, null, null, null, false, out);
+
+        assertEquals(3, rows);
+        assertEquals(HEADER
+                + "02/03/2024,\"Lunch, with \"\"friends\"\"\",Food,Expense,-450.50\n"
+                + "01/03/2024,March salary,Salary,Income,85000.00\n"
+                + "10/02/2024,Cash,Food,Expense,-20.00\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void appliesDateRangeAndTypeFilters() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(userId, LocalDateTime.of(2024, 3, 1, 0, 0), LocalDateTime.of(2024, 3, 31, 23, 59),
+                Transaction.TransactionType.EXPENSE, false, out);
+
+        assertEquals(HEADER + "02/03/2024,\"Lunch, with \"\"friends\"\"\",Food,Expense,-450.50\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void gzipOutputDecompressesToTheSameCsv() throws IOException {
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        exportService.export(userId, null, null, null, false, plain);
+        exportService.export(userId, null, null, null, true, compressed);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertEquals(plain.toString(StandardCharsets.UTF_8), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /** Only the export statement is switched to Connector/J streaming; nothing app-wide. */
+    @Test
+    void streamsRowByRowOnMySql() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class, RETURNS_DEEP_STUBS);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData().getDatabaseProductName()).thenReturn("MySQL");
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(mock(ResultSet.class));
+
+        new TransactionExportService(new JdbcTemplate(dataSource), 1000).export(userId, null, null, null, false,
+                new ByteArrayOutputStream());
+
+        verify(statement).setFetchSize(Integer.MIN_VALUE);
+    }
+
+    /**
+     * Exports a million rows in a separate JVM whose heap could not hold the
+     * result as entities or as one CSV string.
+     */
+    @Test
+    void exportsAMillionRowsWithinACappedHeap(@TempDir Path dir) throws Exception {
+        Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx48m", "-cp", System.getProperty("java.class.path"), LargeExport.class.getName(),
+                dir.resolve("export").toString(), "1000000")
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(process.waitFor(5, TimeUnit.MINUTES), output);
+
+        assertEquals(0, process.exitValue(), output);
+        assertTrue(output.contains("EXPORTED 1000000 rows"), output);
+    }
+
+    /** Seeds a file-backed H2 database and exports it to a byte counter; run with a small -Xmx. */
+    public static final class LargeExport {
+
+        public static void main(String[] args) throws IOException {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            // Lazy execution stands in for MySQL's server-side cursor: rows are produced as they are fetched
+            dataSource.setURL("jdbc:h2:file:" + args[0] + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                    + "NON_KEYWORDS=MONTH,YEAR,VALUE;LAZY_QUERY_EXECUTION=TRUE");
+            Flyway.configure().dataSource(dataSource).load().migrate();
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.update("INSERT INTO categories (name, color) VALUES ('Food', '#FF6B6B')");
+            jdbcTemplate.update("INSERT INTO users (email, password, enabled) VALUES ('big@example.com', 'x', TRUE)");
+            Long userId = jdbcTemplate.queryForObject("SELECT id FROM users", Long.class);
+            Long categoryId = jdbcTemplate.queryForObject("SELECT id FROM categories", Long.class);
+            int rows = Integer.parseInt(args[1]);
+            for (int from = 1; from <= rows; from += 100_000) {
+                // SYSTEM_RANGE's column is upper-case "X", so it has to be quoted under DATABASE_TO_LOWER
+                jdbcTemplate.update("INSERT INTO transactions (user_id, category_id, description, amount, type, "
+                        + "transaction_date) SELECT ?, ?, CONCAT('Purchase number ', \"X\"), MOD(\"X\", 5000) + 0.25, "
+                        + "CASEWHEN(MOD(\"X\", 4) = 0, 'INCOME', 'EXPENSE'), "
+                        + "DATEADD(MINUTE, -\"X\", TIMESTAMP '2024-06-01 00:00:00') FROM SYSTEM_RANGE(?, ?)",
+                        userId, categoryId, from, Math.min(rows, from + 99_999));
+            }
+
+            long started = System.nanoTime();
+            CountingOutputStream out = new CountingOutputStream();
+            long exported = new TransactionExportService(jdbcTemplate, 1000).export(userId, null, null, null,
+                    false, out);
+            System.out.println("EXPORTED " + exported + " rows, " + out.bytes + " bytes, max heap "
+                    + Runtime.getRuntime().maxMemory() / (1024 * 1024) + " MB, "
+                    + (System.nanoTime() - started) / 1_000_000 + " ms");
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
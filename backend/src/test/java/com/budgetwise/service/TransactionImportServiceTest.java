@@ -0,0 +1,166 @@
+package com.budgetwise.service;
+
+import com.budgetwise.model.dto.TransactionImportResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Imports into the Flyway schema on H2 and checks the stored rows and
+ * rollup buckets against what the files contain.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({ TransactionImportService.class, TransactionRollupService.class })
+public class TransactionImportServiceTest {
+
+    @Autowired
+    private TransactionImportService importService;
+
+    @Autowired
+    private TransactionRollupService rollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private FinancialContextCache financialContextCache;
+
+    private Long userId;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO categories (name, color) VALUES ('Food', '#FF6B6B'), "
+                + "('Salary', '#96CEB4'), ('Other Income', '#AAAAAA'), ('Other Expense', '#BBBBBB')");
+        jdbcTemplate.update("INSERT INTO users (email, password, enabled) VALUES ('import@example.com', 'x', TRUE)");
+        userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'import@example.com'", Long.class);
+    }
+
+    @Test
+    void importsValidCsvRowsAndReportsTheRest() {
+        String future = LocalDate.now().plusDays(3).toString();
+        String csv = "\uFEFFDate,Description,Amount,Type,Category\n"
+                + "2024-03-01,\"Groceries, weekly\",-1250.50,,food\n"
+                + "05/03/2024,\"Pay \"\"March\"\"\",\"85,000.00\",INCOME,Salary\n"
+                + "2024-03-07,Refund,40,,\n"
+                + "\n"
+                + "not a date,Broken,10,EXPENSE,Food\n"
+                + "2024-03-08,Unknown category,10,EXPENSE,Travel\n"
+                + "2024-03-09,,10,EXPENSE,Food\n"
+                + "2024-03-10,Zero,0,EXPENSE,Food\n"
+                + future + ",Future expense,10,EXPENSE,Food\n";
+
+        TransactionImportResult result = importService.importTransactions(userId, stream(csv),
+                TransactionImportService.Format.CSV, null);
+
+        assertEquals(8, result.getRowsRead());
+        assertEquals(3, result.getImported());
+        assertEquals(5, result.getRejected());
+        assertEquals(List.of(6, 7, 8, 9, 10), result.getErrors().stream()
+                .map(TransactionImportResult.RowError::getLine).toList());
+        assertTrue(result.getErrors().get(1).getMessage().contains("Travel"));
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT t.description, t.amount, t.type, "
+                + "c.name FROM transactions t JOIN categories c ON c.id = t.category_id ORDER BY t.id");
+        assertEquals("Groceries, weekly", rows.get(0).get("description"));
+        assertEquals(0, new BigDecimal("1250.50").compareTo((BigDecimal) rows.get(0).get("amount")));
+        assertEquals("EXPENSE", rows.get(0).get("type"));
+        assertEquals("Food", rows.get(0).get("name"));
+        assertEquals("Pay \"March\"", rows.get(1).get("description"));
+        assertEquals(0, new BigDecimal("85000.00").compareTo((BigDecimal) rows.get(1).get("amount")));
+        assertEquals("Other Income", rows.get(2).get("name"));
+
+        assertFalse(rollupService.verifyUser(userId, false).hasDrift());
+        verify(financialContextCache).invalidate(userId);
+    }
+
+    @Test
+    void importsOfxStatementTransactions() {
+        String ofx = "OFXHEADER:100\nDATA:OFXSGML\n\n<OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS><BANKTRANLIST>\n"
+                + "<STMTTRN>\n<TRNTYPE>DEBIT\n<DTPOSTED>20240315120000[0:GMT]\n<TRNAMT>-42.10\n"
+                + "<FITID>1\n<NAME>Coffee &amp; Cake\n</STMTTRN>\n"
+                + "<STMTTRN>\n<TRNTYPE>CREDIT\n<DTPOSTED>20240316\n<TRNAMT>1500.00\n"
+                + "<FITID>2\n<MEMO>Transfer in\n</STMTTRN>\n"
+                + "<STMTTRN>\n<TRNTYPE>DEBIT\n<DTPOSTED>20240317\n<TRNAMT>abc\n<NAME>Bad\n</STMTTRN>\n"
+                + "<STMTTRN>\n<TRNTYPE>DEBIT\n<DTPOSTED>20240318083000.000[-5:EST]\n<TRNAMT>-18.25\n"
+                + "<FITID>4\n<NAME>Groceries\n</STMTTRN>\n"
+                + "</BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>\n";
+        Long foodId = jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = 'Food'", Long.class);
+
+        TransactionImportResult result = importService.importTransactions(userId, stream(ofx),
+                TransactionImportService.Format.OFX, foodId);
+
+        assertEquals(4, result.getRowsRead());
+        assertEquals(3, result.getImported());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(19, result.getErrors().get(0).getLine());
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT description, type, category_id, transaction_date FROM transactions ORDER BY id");
+        assertEquals("Coffee & Cake", rows.get(0).get("description"));
+        assertEquals("EXPENSE", rows.get(0).get("type"));
+        assertEquals("Transfer in", rows.get(1).get("description"));
+        assertEquals("INCOME", rows.get(1).get("type"));
+        assertEquals(foodId, ((Number) rows.get(1).get("category_id")).longValue());
+        assertEquals("Groceries", rows.get(2).get("description"));
+        assertEquals(LocalDate.of(2024, 3, 18),
+                ((Timestamp) rows.get(2).get("transaction_date")).toLocalDateTime().toLocalDate());
+        assertFalse(rollupService.verifyUser(userId, false).hasDrift());
+    }
+
+    @Test
+    void largeFileIsImportedInBatchesWithCappedErrorList() {
+        StringBuilder csv = new StringBuilder("amount,description,date\n");
+        int rows = 20_000;
+        for (int i = 0; i < rows; i++) {
+            // Every 50th row is missing its description
+            csv.append(i % 2 == 0 ? "-" : "").append(1 + i % 500).append('.').append(i % 100).append(',')
+                    .append(i % 50 == 0 ? "" : "row " + i).append(',')
+                    .append(LocalDate.of(2023, 1, 1).plusDays(i % 365)).append('\n');
+        }
+
+        TransactionImportResult result = importService.importTransactions(userId, stream(csv.toString()),
+                TransactionImportService.Format.CSV, null);
+
+        assertEquals(rows, result.getRowsRead());
+        assertEquals(rows / 50, result.getRejected());
+        assertEquals(rows - rows / 50, result.getImported());
+        assertEquals(100, result.getErrors().size());
+        assertTrue(result.isErrorsTruncated());
+        assertEquals(result.getImported(),
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE user_id = ?", Long.class, userId));
+        assertFalse(rollupService.verifyUser(userId, false).hasDrift());
+    }
+
+    @Test
+    void rejectsAFileWithoutTheRequiredColumns() {
+        assertThrows(RuntimeException.class, () -> importService.importTransactions(userId,
+                stream("when,what\n2024-01-01,x\n"), TransactionImportService.Format.CSV, null));
+        verify(financialContextCache, never()).invalidate(userId);
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
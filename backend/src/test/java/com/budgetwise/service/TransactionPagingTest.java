@@ -0,0 +1,175 @@
+package com.budgetwise.service;
+
+import com.budgetwise.controller.TransactionController;
+import com.budgetwise.exception.GlobalExceptionHandler;
+import com.budgetwise.model.dto.TransactionListItemDTO;
+import com.budgetwise.model.dto.TransactionPageDTO;
+import com.budgetwise.model.entity.Transaction.TransactionType;
+import com.budgetwise.model.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Walks the keyset pages of TransactionService over the Flyway schema on H2.
+ * Three rows share a date so a page boundary falls inside the tie.
+ */
+@DataJpaTest(showSql = false, properties = { "app.transactions.page-size.default=2",
+        "app.transactions.page-size.max=3" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({ TransactionService.class, TransactionRollupService.class })
+public class TransactionPagingTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private FinancialContextCache financialContextCache;
+
+    private Long userId;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO categories (name, color) VALUES ('Food', '#FF6B6B')");
+        Long categoryId = jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = 'Food'", Long.class);
+        jdbcTemplate.update("INSERT INTO users (email, password, enabled) VALUES ('page@example.com', 'x', TRUE), "
+                + "('other@example.com', 'x', TRUE)");
+        userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'page@example.com'", Long.class);
+        Long otherId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'other@example.com'",
+                Long.class);
+
+        // Inserted in this order, so ids ascend t1..t7
+        insert(userId, categoryId, "t1", "2024-03-10", TransactionType.EXPENSE);
+        insert(userId, categoryId, "t2", "2024-03-12", TransactionType.INCOME);
+        insert(userId, categoryId, "t3", "2024-03-12", TransactionType.EXPENSE);
+        insert(userId, categoryId, "t4", "2024-03-12", TransactionType.EXPENSE);
+        insert(userId, categoryId, "t5", "2024-03-01", TransactionType.INCOME);
+        insert(userId, categoryId, "t6", "2024-03-15", TransactionType.EXPENSE);
+        insert(userId, categoryId, "t7", "2024-02-20", TransactionType.INCOME);
+        insert(otherId, categoryId, "other", "2024-03-11", TransactionType.EXPENSE);
+    }
+
+    @Test
+    void pagesFollowDateThenIdDescendingAcrossTies() {
+        List<List<String>> pages = walk(cursor -> transactionService.getUserTransactionsPage(userId, cursor, 2));
+
+        assertEquals(List.of(List.of("t6", "t4"), List.of("t3", "t2"), List.of("t1", "t5"), List.of("t7")), pages);
+    }
+
+    @Test
+    void aFullLastPageHasNoNextCursor() {
+        TransactionPageDTO page = transactionService.getUserTransactionsPageByType(userId, TransactionType.INCOME,
+                null, 3);
+
+        assertEquals(List.of("t2", "t5", "t7"), descriptions(page));
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void sizeIsClampedToTheMaximumAndDefaultsWhenMissing() {
+        TransactionPageDTO large = transactionService.getUserTransactionsPage(userId, null, 500);
+        assertEquals(3, large.getSize());
+        assertEquals(List.of("t6", "t4", "t3"), descriptions(large));
+        assertTrue(large.isHasMore());
+
+        TransactionPageDTO unset = transactionService.getUserTransactionsPage(userId, null, null);
+        assertEquals(2, unset.getSize());
+        assertEquals(2, unset.getItems().size());
+        assertEquals(2, transactionService.getUserTransactionsPage(userId, null, 0).getSize());
+    }
+
+    @Test
+    void dateRangePagesStayWithinTheInclusiveRange() {
+        LocalDateTime start = LocalDate.of(2024, 3, 1).atStartOfDay();
+        LocalDateTime end = LocalDate.of(2024, 3, 12).atStartOfDay();
+
+        List<List<String>> pages = walk(cursor -> transactionService.getUserTransactionsPageByDateRange(userId,
+                start, end, cursor, 2));
+
+        assertEquals(List.of(List.of("t4", "t3"), List.of("t2", "t1"), List.of("t5")), pages);
+    }
+
+    @Test
+    void typePagesSkipOtherTypes() {
+        List<List<String>> pages = walk(cursor -> transactionService.getUserTransactionsPageByType(userId,
+                TransactionType.EXPENSE, cursor, 2));
+
+        assertEquals(List.of(List.of("t6", "t4"), List.of("t3", "t1")), pages);
+    }
+
+    @Test
+    void malformedCursorIsABadRequest() throws Exception {
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionService.getUserTransactionsPage(userId, "not-a-cursor", 2));
+
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new TransactionController(transactionService,
+                Mockito.mock(TransactionImportService.class), Mockito.mock(TransactionExportService.class)))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        User user = new User();
+        user.setId(userId);
+
+        mvc.perform(get("/api/transactions").param("cursor", "bm90LWEtY3Vyc29y")
+                .principal(new UsernamePasswordAuthenticationToken(user, null, List.of())))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid pagination cursor"));
+    }
+
+    /** Follows nextCursor until the last page, returning each page's descriptions. */
+    private static List<List<String>> walk(Function<String, TransactionPageDTO> fetch) {
+        List<List<String>> pages = new ArrayList<>();
+        String cursor = null;
+        while (true) {
+            TransactionPageDTO page = fetch.apply(cursor);
+            pages.add(descriptions(page));
+            if (!page.isHasMore()) {
+                assertNull(page.getNextCursor());
+                return pages;
+            }
+            assertNotNull(page.getNextCursor());
+            cursor = page.getNextCursor();
+        }
+    }
+
+    private static List<String> descriptions(TransactionPageDTO page) {
+        return page.getItems().stream().map(TransactionListItemDTO::getDescription).toList();
+    }
+
+    private void insert(Long owner, Long categoryId, String description, String date, TransactionType type) {
+        jdbcTemplate.update("INSERT INTO transactions (user_id, category_id, description, amount, type, "
+                + "transaction_date, created_at) VALUES (?, ?, ?, 10.00, ?, ?, CURRENT_TIMESTAMP)", owner, categoryId,
+                description, type.name(), Timestamp.valueOf(LocalDate.parse(date).atStartOfDay()));
+    }
+}
@@ -0,0 +1,144 @@
+package com.budgetwise.service;
+
+import com.budgetwise.dto.TransactionRequest;
+import com.budgetwise.model.dto.RollupDriftReport;
+import com.budgetwise.model.entity.Transaction;
+import com.budgetwise.model.entity.Transaction.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the rollup through TransactionService on the Flyway schema on H2
+ * and checks it against a recount from raw transactions after each change.
+ * Each call commits on its own, as it would for a request.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ TransactionService.class, TransactionRollupService.class })
+public class TransactionRollupServiceTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRollupService rollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private FinancialContextCache financialContextCache;
+
+    private Long userId;
+    private Long food;
+    private Long salary;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO categories (name, color) VALUES ('Food', '#FF6B6B'), ('Salary', '#96CEB4')");
+        food = jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = 'Food'", Long.class);
+        salary = jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = 'Salary'", Long.class);
+        jdbcTemplate.update("INSERT INTO users (email, password, enabled) VALUES ('rollup@example.com', 'x', TRUE)");
+        userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'rollup@example.com'", Long.class);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM user_month_category_rollup");
+        jdbcTemplate.update("DELETE FROM transactions");
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("DELETE FROM categories");
+    }
+
+    @Test
+    void createUpdateAndDeleteKeepTheRollupExact() {
+        Transaction lunch = transactionService.createTransaction(userId,
+                request("2024-03-05", "120.50", TransactionType.EXPENSE, food));
+        transactionService.createTransaction(userId, request("2024-03-20", "79.50", TransactionType.EXPENSE, food));
+        Transaction pay = transactionService.createTransaction(userId,
+                request("2024-03-01", "5000.00", TransactionType.INCOME, salary));
+        assertNoDrift();
+        assertEquals(Map.of("202403/" + food + "/EXPENSE", "200.00/2", "202403/" + salary + "/INCOME", "5000.00/1"),
+                buckets());
+
+        // Another month, category and type at once: the old bucket shrinks, a new one appears
+        transactionService.updateTransaction(lunch.getId(),
+                request("2024-04-02", "30.00", TransactionType.INCOME, salary), userId);
+        assertNoDrift();
+        assertEquals(Map.of("202403/" + food + "/EXPENSE", "79.50/1", "202403/" + salary + "/INCOME", "5000.00/1",
+                "202404/" + salary + "/INCOME", "30.00/1"), buckets());
+
+        // Moving the only row out of a bucket removes the bucket
+        transactionService.updateTransaction(pay.getId(),
+                request("2024-04-01", "5000.00", TransactionType.INCOME, salary), userId);
+        assertNoDrift();
+        assertEquals(Map.of("202403/" + food + "/EXPENSE", "79.50/1", "202404/" + salary + "/INCOME", "5030.00/2"),
+                buckets());
+
+        // Deleting the last row of a bucket removes it too
+        transactionService.deleteTransaction(lunch.getId(), userId);
+        assertNoDrift();
+        assertEquals(Map.of("202403/" + food + "/EXPENSE", "79.50/1", "202404/" + salary + "/INCOME", "5000.00/1"),
+                buckets());
+    }
+
+    @Test
+    void repairReplacesDriftedRowsWithTheRecount() {
+        transactionService.createTransaction(userId, request("2024-03-05", "120.50", TransactionType.EXPENSE, food));
+        jdbcTemplate.update("UPDATE user_month_category_rollup SET total_amount = 1, tx_count = 7 WHERE user_id = ?",
+                userId);
+        jdbcTemplate.update("INSERT INTO user_month_category_rollup (user_id, month_key, category_id, type, "
+                + "total_amount, tx_count) VALUES (?, 202402, ?, 'INCOME', 10, 1)", userId, salary);
+
+        RollupDriftReport report = rollupService.verifyUser(userId, true);
+
+        assertEquals(2, report.getDrift().size());
+        assertTrue(report.isRepaired());
+        assertNoDrift();
+        assertEquals(Map.of("202403/" + food + "/EXPENSE", "120.50/1"), buckets());
+    }
+
+    private void assertNoDrift() {
+        RollupDriftReport report = rollupService.verifyUser(userId, false);
+        assertFalse(report.hasDrift(), () -> String.valueOf(report.getDrift()));
+    }
+
+    private Map<String, String> buckets() {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT month_key, category_id, type, "
+                + "total_amount, tx_count FROM user_month_category_rollup WHERE user_id = ?", userId);
+        return rows.stream().collect(Collectors.toMap(
+                row -> row.get("month_key") + "/" + row.get("category_id") + "/" + row.get("type"),
+                row -> ((BigDecimal) row.get("total_amount")).setScale(2) + "/" + row.get("tx_count")));
+    }
+
+    private static TransactionRequest request(String date, String amount, TransactionType type, Long categoryId) {
+        TransactionRequest request = new TransactionRequest();
+        request.setTransactionDate(date);
+        request.setDescription(type + " " + amount);
+        request.setAmount(new BigDecimal(amount));
+        request.setType(type);
+        request.setCategoryId(categoryId);
+        return request;
+    }
+}
@@ -1030,7 +1030,7 @@ const Dashboard = () => {
                 </ProfileName>
               </ProfileButton>
             </Link>
-            <DropdownButton onClick={() => exportService.exportToCSV(transactions, exportService.getFilename('transactions'))} title="Export to CSV">
+            <DropdownButton onClick={() => exportService.exportToCSV(exportService.getFilename('transactions'))} title="Export to CSV">
               <FiDownload size={16} /> CSV
             </DropdownButton>
             <DropdownButton onClick={() => exportService.exportToPDF(transactions, exportService.getFilename('report'))} title="Export to PDF">
@@ -1,51 +1,52 @@
 import jsPDF from 'jspdf';
 import autoTable from 'jspdf-autotable';
+import authService from './authService';
+
+const EXPORT_URL = 'http://localhost:8081/api/transactions/export.csv';
 
 /**
  * Export service for generating CSV and PDF files from transactions
  */
 const exportService = {
     /**
-     * Export transactions to CSV file
-     * @param {Array} transactions - Array of transaction objects
+     * Download the user's transactions as CSV. The file is generated and
+     * streamed by the server, so the full history never has to be loaded here.
      * @param {string} filename - Name of the downloaded file (without extension)
+     * @param {Object} filters - Optional startDate/endDate (ISO date-time) and type (INCOME/EXPENSE)
      */
-    exportToCSV(transactions, filename = 'transactions') {
-        if (!transactions || transactions.length === 0) {
-            alert('No transactions to export');
-            return;
-        }
-
-        // CSV headers
-        const headers = ['Date', 'Description', 'Category', 'Type', 'Amount'];
-
-        // Convert transactions to CSV rows
-        const rows = transactions.map(tx => [
-            new Date(tx.date).toLocaleDateString('en-IN'),
-            `"${(tx.description || '').replace(/"/g, '""')}"`, // Escape quotes
-            tx.category || 'Uncategorized',
-            tx.type === 'income' ? 'Income' : 'Expense',
-            tx.type === 'income' ? tx.amount : -Math.abs(tx.amount)
-        ]);
+    async exportToCSV(filename = 'transactions', filters = {}) {
+        const params = new URLSearchParams();
+        Object.entries(filters).forEach(([key, value]) => {
+            if (value) params.append(key, value);
+        });
+        const query = params.toString();
+        const token = authService.getToken();
+
+        try {
+            const response = await fetch(`${EXPORT_URL}${query ? `?${query}` : ''}`, {
+                headers: token ? { 'Authorization': `Bearer ${token}` } : {},
+                cache: 'no-store'
+            });
+            if (!response.ok) {
+                throw new Error((await response.text()) || 'Failed to export transactions');
+            }
 
-        // Combine headers and rows
-        const csvContent = [
-            headers.join(','),
-            ...rows.map(row => row.join(','))
-        ].join('\n');
-
-        // Create and download file
-        const blob = new Blob([csvContent], { type: 'text/csv;charset=utf-8;' });
-        const link = document.createElement('a');
-        const url = URL.createObjectURL(blob);
-
-        link.setAttribute('href', url);
-        link.setAttribute('download', `${filename}.csv`);
-        link.style.visibility = 'hidden';
-        document.body.appendChild(link);
-        link.click();
-        document.body.removeChild(link);
-        URL.revokeObjectURL(url);
+            // Create and download file
+            const blob = await response.blob();
+            const link = document.createElement('a');
+            const url = URL.createObjectURL(blob);
+
+            link.setAttribute('href', url);
+            link.setAttribute('download', `${filename}.csv`);
+            link.style.visibility = 'hidden';
+            document.body.appendChild(link);
+            link.click();
+            document.body.removeChild(link);
+            URL.revokeObjectURL(url);
+        } catch (error) {
+            console.error('Export CSV error:', error);
+            alert('Could not export transactions. Please try again.');
+        }
     },
 
     /**